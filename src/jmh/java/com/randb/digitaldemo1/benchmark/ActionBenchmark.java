@@ -0,0 +1,183 @@
+package com.randb.digitaldemo1.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.core.ActionExecutor;
+import com.randb.digitaldemo1.core.EngineMetrics;
+import com.randb.digitaldemo1.core.ResponseCachePolicy;
+import com.randb.digitaldemo1.service.ActionFormatter;
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.digitaldemo1.service.ResponseSummarizer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.function.Supplier;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.nio.AsyncPushConsumer;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.AsyncResponseConsumer;
+import org.apache.hc.core5.http.nio.HandlerFactory;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorStatus;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动作处理基准测试
+ * 覆盖LLM输出的动作指令从解析、格式判断到执行并写入状态的CPU开销；
+ * HTTP层替换为在调用线程上直接回调固定响应的异步客户端，不产生网络请求
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionBenchmark {
+
+    @Param({"object", "list", "empty"})
+    public String response;
+
+    private ActionFormatter actionFormatter;
+
+    private Method isStandardFormat;
+
+    private ActionExecutor actionExecutor;
+
+    private AgentState agentState;
+
+    private JSONObject standardDirective;
+
+    private JSONObject simpleDirective;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        actionFormatter = new ActionFormatter();
+        isStandardFormat = ActionFormatter.class.getDeclaredMethod("isStandardFormat", JSONObject.class);
+        isStandardFormat.setAccessible(true);
+
+        EngineMetrics engineMetrics = new EngineMetrics();
+        CapabilityRegistry capabilityRegistry = new CapabilityRegistry();
+        ReflectionTestUtils.setField(capabilityRegistry, "digitalLifeConfig", new DigitalLifeConfig());
+        capabilityRegistry.reload();
+        ReflectionTestUtils.setField(engineMetrics, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(engineMetrics, "capabilityRegistry", capabilityRegistry);
+        engineMetrics.init();
+
+        // 响应缓存关闭（默认配置），测量的是每次都发出请求的路径
+        ResponseCachePolicy responseCachePolicy = new ResponseCachePolicy();
+        ReflectionTestUtils.setField(responseCachePolicy, "digitalLifeConfig", new DigitalLifeConfig());
+
+        actionExecutor = new ActionExecutor();
+        ReflectionTestUtils.setField(actionExecutor, "asyncHttpClient", new StubAsyncClient(BenchmarkFixtures.response(response)));
+        ReflectionTestUtils.setField(actionExecutor, "engineMetrics", engineMetrics);
+        ReflectionTestUtils.setField(actionExecutor, "responseCachePolicy", responseCachePolicy);
+
+        agentState = new AgentState("bench-1", null,
+                new ResponseSummarizer(new DigitalLifeConfig.ResponseConfig()), 8, null, 64);
+        agentState.startTask("发布一个帖子");
+
+        standardDirective = JSON.parseObject(BenchmarkFixtures.ACTION_DIRECTIVE);
+        simpleDirective = JSON.parseObject(BenchmarkFixtures.SIMPLE_DIRECTIVE);
+    }
+
+    @Benchmark
+    public Object parseDirective() {
+        return JSON.parseObject(BenchmarkFixtures.ACTION_DIRECTIVE);
+    }
+
+    @Benchmark
+    public Object isStandardFormatStandard() throws ReflectiveOperationException {
+        return isStandardFormat.invoke(actionFormatter, standardDirective);
+    }
+
+    @Benchmark
+    public Object isStandardFormatSimple() throws ReflectiveOperationException {
+        return isStandardFormat.invoke(actionFormatter, simpleDirective);
+    }
+
+    /**
+     * 解析动作指令并执行：请求构建、响应分类与摘要、执行历史和指标记录
+     */
+    @Benchmark
+    public Object executeComplexActionAsync() {
+        return actionExecutor.executeComplexActionAsync(JSON.parseObject(BenchmarkFixtures.ACTION_DIRECTIVE), agentState)
+                .join();
+    }
+
+    /**
+     * 在调用线程上直接以固定响应完成回调的异步HTTP客户端
+     */
+    private static class StubAsyncClient extends CloseableHttpAsyncClient {
+
+        private final String body;
+
+        private StubAsyncClient(String body) {
+            this.body = body;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected <T> Future<T> doExecute(HttpHost target, AsyncRequestProducer requestProducer,
+                                          AsyncResponseConsumer<T> responseConsumer,
+                                          HandlerFactory<AsyncPushConsumer> pushHandlerFactory,
+                                          HttpContext context, FutureCallback<T> callback) {
+            // 只用于execute(SimpleHttpRequest, ...)，响应类型固定为SimpleHttpResponse
+            T response = (T) SimpleHttpResponse.create(200, body, ContentType.APPLICATION_JSON);
+            callback.completed(response);
+            return CompletableFuture.completedFuture(response);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public IOReactorStatus getStatus() {
+            return IOReactorStatus.ACTIVE;
+        }
+
+        @Override
+        public void awaitShutdown(TimeValue waitTime) {
+        }
+
+        @Override
+        public void initiateShutdown() {
+        }
+
+        @Override
+        public void register(String hostname, String uriPattern, Supplier<AsyncPushConsumer> supplier) {
+        }
+
+        @Override
+        public void close(CloseMode closeMode) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.randb.digitaldemo1.benchmark;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.entity.StepCapability;
+import com.randb.digitaldemo1.service.KeywordMatcher;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试公共数据
+ * @author: randb
+ * @date: 2026-10-17
+ */
+final class BenchmarkFixtures {
+
+    static final String ABILITY_FILE = "src/main/resources/ability.txt";
+
+    /**
+     * 单个对象响应（获取一个帖子）
+     */
+    static final String POST_RESPONSE = "{\"code\":200,\"msg\":\"获取成功\",\"data\":{\"postId\":1024,"
+            + "\"title\":\"今天在图书馆门口遇到了橘猫\",\"article\":\"它趴在台阶上晒太阳，看到人来了也不躲，"
+            + "还主动蹭了蹭我的裤腿。希望大家路过的时候给它带点猫粮。\",\"authorId\":37,\"likeCount\":12,"
+            + "\"commentCount\":3,\"pictrueList\":[\"17-01.jpg\"],\"createTime\":\"2026-10-17 09:30:00\"}}";
+
+    /**
+     * 操作成功、data为null的响应（发布帖子、审核）
+     */
+    static final String EMPTY_DATA_RESPONSE = "{\"code\":200,\"msg\":\"发布成功\",\"data\":null}";
+
+    /**
+     * 列表响应（待审核帖子列表，超出默认摘要预算）
+     */
+    static final String LIST_RESPONSE = listResponse(60);
+
+    /**
+     * LLM规划输出的标准动作指令
+     */
+    static final String ACTION_DIRECTIVE = "{\"发布一个帖子\":{\"步骤\":[{\"描述\":\"模仿一名大学生，编辑帖子内容并发布帖子\","
+            + "\"动作\":{\"url\":\"http://localhost:8080/api/digital/addpost\",\"method\":\"POST\",\"params\":{},"
+            + "\"body\":{\"article\":\"今天的橘猫很亲人\",\"title\":\"图书馆的橘猫\",\"pictrueList\":[\"17-01.jpg\"]}}}]}}";
+
+    /**
+     * LLM规划输出的简单格式动作指令（未经格式化）
+     */
+    static final String SIMPLE_DIRECTIVE = "{\"审核帖子\":{\"url\":\"http://localhost:8080/api/digital/auditPost\","
+            + "\"method\":\"POST\",\"params\":{},\"body\":{\"postId\":1024,\"status\":1}}}";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * 按名称获取响应样例
+     * @param name object、list或empty
+     */
+    static String response(String name) {
+        switch (name) {
+            case "object":
+                return POST_RESPONSE;
+            case "list":
+                return LIST_RESPONSE;
+            case "empty":
+                return EMPTY_DATA_RESPONSE;
+            default:
+                throw new IllegalArgumentException("未知的响应样例: " + name);
+        }
+    }
+
+    private static String listResponse(int size) {
+        JSONArray posts = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            JSONObject post = new JSONObject(true);
+            post.put("postId", 2000 + i);
+            post.put("title", "校园流浪猫观察记录第" + i + "篇");
+            post.put("article", "今天在食堂后面看到三只小猫，其中一只是三花，毛色很干净，应该有同学在定期喂养。");
+            post.put("authorId", 100 + i);
+            post.put("status", 0);
+            post.put("createTime", String.format("2026-10-17 10:%02d:00", i));
+            posts.add(post);
+        }
+        JSONObject response = new JSONObject(true);
+        response.put("code", 200);
+        response.put("msg", "查询成功");
+        response.put("data", posts);
+        return response.toJSONString();
+    }
+
+    /**
+     * 读取能力配置原文
+     */
+    static String abilityContent() {
+        try {
+            return Files.readString(Paths.get(ABILITY_FILE));
+        } catch (IOException e) {
+            throw new IllegalStateException("读取能力配置失败: " + ABILITY_FILE, e);
+        }
+    }
+
+    /**
+     * 按ability.txt构建指定任务的步骤（与能力注册表的加载方式一致）
+     */
+    static List<StepCapability> abilitySteps(String taskPrefix) {
+        JSONArray tasks = JSON.parseArray(abilityContent());
+        for (int i = 0; i < tasks.size(); i++) {
+            JSONObject task = tasks.getJSONObject(i);
+            if (!task.getString("任务").startsWith(taskPrefix)) {
+                continue;
+            }
+            JSONArray stepArray = task.getJSONArray("步骤");
+            List<StepCapability> steps = new ArrayList<>();
+            for (int j = 0; j < stepArray.size(); j++) {
+                JSONObject step = stepArray.getJSONObject(j);
+                String description = step.getString("描述");
+                steps.add(new StepCapability(j, description, step.getJSONObject("动作"),
+                        KeywordMatcher.extractInternedKeywords(description)));
+            }
+            return steps;
+        }
+        throw new IllegalArgumentException("ability.txt中没有任务: " + taskPrefix);
+    }
+}
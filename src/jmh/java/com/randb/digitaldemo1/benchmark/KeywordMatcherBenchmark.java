@@ -0,0 +1,102 @@
+package com.randb.digitaldemo1.benchmark;
+
+import com.randb.digitaldemo1.entity.StepCapability;
+import com.randb.digitaldemo1.service.KeywordMatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 关键词匹配基准测试
+ * legacy* 为改造前ActionFormatter.isActionMatch的实现，用于对比
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeywordMatcherBenchmark {
+
+    @Param({"这个帖子没有问题，通过审核[二选一]", "审核帖子 通过审核 postId"})
+    public String actionDescription;
+
+    private List<StepCapability> steps;
+
+    private KeywordMatcher matcher;
+
+    @Setup
+    public void setup() {
+        steps = BenchmarkFixtures.abilitySteps("审核帖子");
+        matcher = new KeywordMatcher(steps);
+    }
+
+    @Benchmark
+    public Object extractKeywords() {
+        return KeywordMatcher.extractKeywords(actionDescription);
+    }
+
+    @Benchmark
+    public Object bestMatch() {
+        return matcher.bestMatch(actionDescription);
+    }
+
+    @Benchmark
+    public Object legacyExtractKeywords() {
+        return legacyExtractKeywords(actionDescription);
+    }
+
+    @Benchmark
+    public Object legacyFirstMatch() {
+        for (StepCapability step : steps) {
+            if (legacyIsActionMatch(actionDescription, step.getDescription())) {
+                return step;
+            }
+        }
+        return null;
+    }
+
+    private static boolean legacyIsActionMatch(String actionDescription, String stepDescription) {
+        String[] actionKeywords = legacyExtractKeywords(actionDescription);
+        String[] stepKeywords = legacyExtractKeywords(stepDescription);
+
+        int matchCount = 0;
+        for (String actionKeyword : actionKeywords) {
+            for (String stepKeyword : stepKeywords) {
+                if (actionKeyword.equals(stepKeyword)) {
+                    matchCount++;
+                    break;
+                }
+            }
+        }
+        return matchCount > 0 && (double) matchCount / actionKeywords.length >= 0.5;
+    }
+
+    private static String[] legacyExtractKeywords(String text) {
+        String[] stopWords = {"的", "了", "在", "是", "和", "与", "或", "但", "然后", "接着", "之后"};
+
+        String[] words = text.replaceAll("[^\\u4e00-\\u9fa5a-zA-Z0-9]", " ").split("\\s+");
+        List<String> keywords = new ArrayList<>();
+        for (String word : words) {
+            if (word.length() > 1 && !Arrays.asList(stopWords).contains(word)) {
+                keywords.add(word);
+            }
+        }
+        return keywords.toArray(new String[0]);
+    }
+}
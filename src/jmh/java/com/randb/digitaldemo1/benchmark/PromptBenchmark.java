@@ -0,0 +1,99 @@
+package com.randb.digitaldemo1.benchmark;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.core.DigitalLifeEngine;
+import com.randb.digitaldemo1.entity.Prompt;
+import com.randb.digitaldemo1.entity.ResponseView;
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.digitaldemo1.service.ResponseSummarizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt构建基准测试
+ * 覆盖每一步规划前的Prompt构建：buildPrompt、extractKeyDataFromResponse以及Prompt拼接
+ * （引擎方法为私有方法，通过反射调用，Method在Setup中获取一次）
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+
+    private static final String TASK = "浏览帖子，根据帖子内容评论，内容自己发挥（可选）";
+
+    @Param({"object", "list", "empty"})
+    public String response;
+
+    private DigitalLifeEngine engine;
+
+    private Method buildPrompt;
+
+    private Method extractKeyData;
+
+    private AgentState agentState;
+
+    private Prompt prompt;
+
+    private String prefix;
+
+    @Setup
+    public void setup() throws ReflectiveOperationException {
+        engine = new DigitalLifeEngine();
+        buildPrompt = DigitalLifeEngine.class.getDeclaredMethod("buildPrompt", String.class, AgentState.class);
+        buildPrompt.setAccessible(true);
+        extractKeyData = DigitalLifeEngine.class.getDeclaredMethod("extractKeyDataFromResponse", ResponseView.class);
+        extractKeyData.setAccessible(true);
+
+        agentState = new AgentState("bench-1", null,
+                new ResponseSummarizer(new DigitalLifeConfig.ResponseConfig()), 8, null, 64);
+        agentState.startTask(TASK);
+        agentState.saveTaskProgress(TASK, 1);
+        agentState.getStepHistory().record("POST", "http://localhost:8080/api/user/login", 200, 35, "登录成功，data字段: token");
+        agentState.getStepHistory().record("POST", "http://localhost:8080/api/digital/getOnePost", 200, 42, "获取成功，data字段: postId,title");
+        agentState.saveLastResponse(BenchmarkFixtures.response(response));
+        agentState.saveNextStep("根据帖子内容发表一条评论");
+
+        prompt = (Prompt) buildPrompt.invoke(engine, TASK, agentState);
+        prefix = Prompt.buildPrefix(BenchmarkFixtures.abilityContent());
+    }
+
+    @Benchmark
+    public Object buildPrompt() throws ReflectiveOperationException {
+        return buildPrompt.invoke(engine, TASK, agentState);
+    }
+
+    @Benchmark
+    public Object extractKeyDataFromResponse() throws ReflectiveOperationException {
+        return extractKeyData.invoke(engine, agentState.getLastResponseView());
+    }
+
+    @Benchmark
+    public String promptToString() {
+        return prompt.toString();
+    }
+
+    /**
+     * PromptComposer的每步拼接：缓存的前缀 + 任务进度
+     */
+    @Benchmark
+    public String composeWithCachedPrefix() {
+        return prefix + prompt.buildProgress();
+    }
+}
@@ -0,0 +1,65 @@
+package com.randb.digitaldemo1.benchmark;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.ResponseView;
+import com.randb.digitaldemo1.service.ResponseInspector;
+import com.randb.digitaldemo1.service.ResponseSummarizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应处理基准测试
+ * 覆盖每次HTTP响应保存时的解析、分类和摘要
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBenchmark {
+
+    @Param({"object", "list", "empty"})
+    public String response;
+
+    private String raw;
+
+    private ResponseView view;
+
+    private ResponseSummarizer summarizer;
+
+    @Setup
+    public void setup() {
+        raw = BenchmarkFixtures.response(response);
+        view = ResponseView.of(raw);
+        summarizer = new ResponseSummarizer(new DigitalLifeConfig.ResponseConfig());
+    }
+
+    @Benchmark
+    public Object parse() {
+        return ResponseView.of(raw);
+    }
+
+    @Benchmark
+    public Object classify() {
+        return ResponseInspector.classify(view);
+    }
+
+    @Benchmark
+    public Object summarize() {
+        return summarizer.summarize(view);
+    }
+}
@@ -0,0 +1,23 @@
+package com.randb.digitaldemo1.loadtest;
+
+import com.randb.springaichatstarter.core.ChatModelFactory;
+import com.randb.springaichatstarter.core.ChatService;
+
+/**
+ * 压测用模型工厂：不区分模型名称，统一返回脚本化的对话服务
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public class LoadTestChatModelFactory extends ChatModelFactory {
+
+    private final ChatService chatService;
+
+    public LoadTestChatModelFactory(ChatService chatService) {
+        this.chatService = chatService;
+    }
+
+    @Override
+    public ChatService get(String model) {
+        return chatService;
+    }
+}
@@ -0,0 +1,42 @@
+package com.randb.digitaldemo1.loadtest;
+
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.springaichatstarter.core.ChatModelFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 压测环境配置（loadtest配置文件）
+ * 用脚本化的对话服务替代真实LLM，并启动模拟"校猫日记"接口的本地HTTP服务
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Configuration
+@Profile("loadtest")
+public class LoadTestConfiguration {
+
+    @Bean
+    public ScriptedChatService scriptedChatService(CapabilityRegistry capabilityRegistry,
+                                                   @Value("${loadtest.llm.latency-ms:0}") long latencyMs) {
+        return new ScriptedChatService(capabilityRegistry, latencyMs);
+    }
+
+    /**
+     * 替代starter提供的模型工厂，所有模型都返回脚本化的对话服务
+     */
+    @Bean
+    @Primary
+    public ChatModelFactory loadTestChatModelFactory(ScriptedChatService scriptedChatService) {
+        return new LoadTestChatModelFactory(scriptedChatService);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public StubPlatformServer stubPlatformServer(@Value("${loadtest.backend.port:8080}") int port,
+                                                 @Value("${loadtest.backend.latency-ms:20}") long latencyMs,
+                                                 @Value("${loadtest.backend.jitter-ms:10}") long jitterMs) {
+        return new StubPlatformServer(port, latencyMs, jitterMs);
+    }
+}
@@ -0,0 +1,179 @@
+package com.randb.digitaldemo1.loadtest;
+
+import com.randb.digitaldemo1.Digitaldemo1Application;
+import com.randb.digitaldemo1.core.DigitalLifeEngine;
+import com.randb.digitaldemo1.core.EngineThroughput;
+import com.randb.digitaldemo1.core.ResponseCachePolicy;
+import com.randb.digitaldemo1.entity.ThroughputSnapshot;
+import com.randb.digitaldemo1.service.StubRedisServer;
+import com.randb.digitaldemo1.service.TaskSelector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 端到端压测入口
+ * 以loadtest配置文件启动引擎（脚本化LLM + 模拟平台接口，不启动Web服务），运行N个数字生命，
+ * 预热后统计每秒步数、每步耗时P50/P99、LLM调用和内存占用
+ *
+ * 参数：--agents=N --duration=秒 --warmup=秒 --backend-latency-ms=毫秒 --backend-jitter-ms=毫秒
+ * --llm-latency-ms=毫秒 --port=模拟接口端口 --redis=embedded|主机:端口（状态存储使用Redis，embedded时启动本地Redis替身），其余参数（如 --digital-life.loop.pipelined=true）原样传给Spring
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class LoadTestRunner {
+
+    private static final long MB = 1024 * 1024;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            String key = arg.startsWith("--") && eq > 2 ? arg.substring(2, eq) : null;
+            if (key != null && !key.contains(".")) {
+                options.put(key, arg.substring(eq + 1));
+            } else {
+                springArgs.add(arg);
+            }
+        }
+
+        int agents = Integer.parseInt(options.getOrDefault("agents", "50"));
+        int duration = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("digital-life.agent.count", agents);
+        properties.put("digital-life.agent.max-agents", Math.max(agents, 500));
+        properties.put("digital-life.http.max-total", Math.max(agents * 2, 200));
+        properties.put("digital-life.http.max-per-route", Math.max(agents, 50));
+        properties.put("digital-life.loop.mode", "as-fast-as-possible");
+        properties.put("digital-life.loop.max-loops", 0);
+        properties.put("digital-life.auto-start.enabled", false);
+        properties.put("digital-life.capability.watch", false);
+        properties.put("spring.ai.dashscope.chat.options.model", "loadtest");
+        properties.put("loadtest.backend.port", options.getOrDefault("port", "8080"));
+        properties.put("loadtest.backend.latency-ms", options.getOrDefault("backend-latency-ms", "20"));
+        properties.put("loadtest.backend.jitter-ms", options.getOrDefault("backend-jitter-ms", "10"));
+        properties.put("loadtest.llm.latency-ms", options.getOrDefault("llm-latency-ms", "0"));
+        properties.put("logging.level.com.randb.digitaldemo1", "WARN");
+
+        StubRedisServer redis = null;
+        String redisOption = options.get("redis");
+        if (redisOption != null) {
+            String host = "localhost";
+            int redisPort = 16379;
+            if ("embedded".equals(redisOption)) {
+                redis = new StubRedisServer(redisPort);
+                redis.start();
+            } else {
+                int colon = redisOption.lastIndexOf(':');
+                host = colon > 0 ? redisOption.substring(0, colon) : redisOption;
+                redisPort = colon > 0 ? Integer.parseInt(redisOption.substring(colon + 1)) : 6379;
+            }
+            properties.put("digital-life.state.store.type", "redis");
+            properties.put("digital-life.state.store.redis.host", host);
+            properties.put("digital-life.state.store.redis.port", redisPort);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(Digitaldemo1Application.class)
+                .profiles("loadtest")
+                .web(WebApplicationType.NONE)
+                .properties(properties)
+                .run(springArgs.toArray(new String[0]));
+
+        DigitalLifeEngine engine = context.getBean(DigitalLifeEngine.class);
+        EngineThroughput throughput = context.getBean(EngineThroughput.class);
+        ScriptedChatService chatService = context.getBean(ScriptedChatService.class);
+        StubPlatformServer platform = context.getBean(StubPlatformServer.class);
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long baselineHeap = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peakHeap = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-memory");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        System.out.printf("压测开始：%d 个数字生命，预热 %ds，统计 %ds%n", agents, warmup, duration);
+        engine.startDigitalLife();
+        TimeUnit.SECONDS.sleep(warmup);
+
+        throughput.reset();
+        long llmCallsBefore = chatService.getCalls();
+        long requestsBefore = platform.getRequests();
+        double[] cacheBefore = cacheCounts(meterRegistry);
+        sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 200, TimeUnit.MILLISECONDS);
+        TimeUnit.SECONDS.sleep(duration);
+
+        ThroughputSnapshot snapshot = engine.getThroughput();
+        long llmCalls = chatService.getCalls() - llmCallsBefore;
+        long requests = platform.getRequests() - requestsBefore;
+        double[] cacheAfter = cacheCounts(meterRegistry);
+        sampler.shutdownNow();
+        System.gc();
+        long retainedHeap = memory.getHeapMemoryUsage().getUsed();
+        // 数字生命在当前步骤完成后停止，等待全部停止后再关闭应用
+        engine.stopDigitalLife();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (engine.isRunning() && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+
+        System.out.println("========== 压测结果 ==========");
+        System.out.printf("数字生命: %d（结束时运行中 %d）%n", agents, snapshot.getRunningAgents());
+        System.out.printf("统计时长: %.1fs%n", snapshot.getElapsedSeconds());
+        System.out.printf("执行步数: %d，每秒 %.1f 步%n", snapshot.getSteps(), snapshot.getStepsPerSecond());
+        System.out.printf("每步耗时: P50 %dms，P99 %dms%n", snapshot.getStepLatencyP50Ms(), snapshot.getStepLatencyP99Ms());
+        System.out.printf("LLM调用: %d，每秒 %.1f 次%n", llmCalls, llmCalls / snapshot.getElapsedSeconds());
+        System.out.printf("平台请求: %d，每秒 %.1f 次%n", requests, requests / snapshot.getElapsedSeconds());
+        System.out.printf("完成任务: %d，循环异常: %d%n", snapshot.getTasksCompleted(), snapshot.getErrors());
+        System.out.printf("响应缓存: 命中 %.0f，未命中 %.0f，重新验证 %.0f%n", cacheAfter[0] - cacheBefore[0],
+                cacheAfter[1] - cacheBefore[1], cacheAfter[2] - cacheBefore[2]);
+        System.out.printf("堆内存: 峰值 %dMB，GC后 %dMB，每个数字生命约 %dKB%n", peakHeap.get() / MB, retainedHeap / MB,
+                Math.max(retainedHeap - baselineHeap, 0) / 1024 / Math.max(agents, 1));
+        context.getBean(TaskSelector.class).getStats().forEach((task, stats) ->
+                System.out.printf("任务 %s: 开始 %s 次，限流 %s 次%n", task, stats.get("started"), stats.get("throttled")));
+        if (redis != null) {
+            System.out.printf("Redis状态快照: %d%n", redis.hashSize(
+                    context.getEnvironment().getProperty("digital-life.state.store.redis.key-prefix", "digital-life:") + "states"));
+        }
+
+        System.exit(SpringApplication.exit(context));
+    }
+
+    /**
+     * 读取动作响应缓存的命中、未命中、重新验证次数
+     */
+    private static double[] cacheCounts(MeterRegistry meterRegistry) {
+        String[] results = {ResponseCachePolicy.RESULT_HIT, ResponseCachePolicy.RESULT_MISS, ResponseCachePolicy.RESULT_REVALIDATED};
+        double[] counts = new double[results.length];
+        for (int i = 0; i < results.length; i++) {
+            Counter counter = meterRegistry.find("digital_life.http.cache").tag("result", results[i]).counter();
+            counts[i] = counter != null ? counter.count() : 0;
+        }
+        return counts;
+    }
+}
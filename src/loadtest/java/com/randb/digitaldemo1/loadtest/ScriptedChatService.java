@@ -0,0 +1,206 @@
+package com.randb.digitaldemo1.loadtest;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.entity.StepCapability;
+import com.randb.digitaldemo1.entity.TaskCapability;
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.digitaldemo1.service.JsonExtractor;
+import com.randb.springaichatstarter.core.ChatService;
+import com.randb.springaichatstarter.dto.ChatRequest;
+import com.randb.springaichatstarter.dto.ChatResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 脚本化的对话服务（压测用）
+ * 按Prompt类型返回确定的结果：
+ * 规划Prompt按能力配置依次输出任务的每个步骤（"[二选一]"的步骤取第一个），格式与Prompt.printDescription一致；
+ * 格式化Prompt把原始输出中的动作指令转换为标准步骤格式；任务完成判断Prompt固定返回未完成，交给规则判断
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public class ScriptedChatService implements ChatService {
+
+    private static final String JUDGE_PROMPT_HEAD = "你是一个专门的任务完成判断助手";
+    private static final String FORMAT_PROMPT_HEAD = "你是一个专门的JSON格式转换器";
+
+    private static final String TASK_LABEL = "我的任务是什么：";
+    private static final String RAW_OUTPUT_LABEL = "LLM原始输出：";
+    private static final String FORMAT_TASK_LABEL = "任务名称必须是：";
+
+    // 上一步结果中的步骤序号（从1开始）
+    private static final Pattern STEP_PATTERN = Pattern.compile("当前(?:是)?第(\\d+)步");
+
+    private final CapabilityRegistry capabilityRegistry;
+
+    // 每次调用的模拟耗时（毫秒）
+    private final long latencyMs;
+
+    private final LongAdder calls = new LongAdder();
+
+    public ScriptedChatService(CapabilityRegistry capabilityRegistry, long latencyMs) {
+        this.capabilityRegistry = capabilityRegistry;
+        this.latencyMs = latencyMs;
+    }
+
+    @Override
+    public ChatResponse syncReply(ChatRequest request) {
+        calls.increment();
+        pause();
+
+        String prompt = request.getPrompt() != null ? request.getPrompt() : "";
+        String content;
+        if (prompt.startsWith(JUDGE_PROMPT_HEAD)) {
+            content = "{\"should_complete\": false, \"reason\": \"压测脚本：交给规则判断\"}";
+        } else if (prompt.startsWith(FORMAT_PROMPT_HEAD)) {
+            content = format(prompt);
+        } else {
+            content = plan(prompt);
+        }
+
+        ChatResponse response = new ChatResponse();
+        response.setContent(content);
+        return response;
+    }
+
+    /**
+     * 获取累计调用次数
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * 规划：输出任务的下一个步骤
+     */
+    private String plan(String prompt) {
+        String taskName = lineAfter(prompt, TASK_LABEL);
+        TaskCapability task = taskName != null ? capabilityRegistry.findTask(taskName) : null;
+        List<StepCapability> script = task != null ? script(task) : List.of();
+        if (script.isEmpty()) {
+            return "{\"动作指令\": {}, \"下一步指令\": \"\", \"当前这一步理想执行结果\": \"没有可执行的步骤\", "
+                    + "\"执行完当前这一步任务是否完成(yes/no)\": \"yes\"}";
+        }
+
+        int index = Math.min(currentStepIndex(prompt), script.size() - 1);
+        StepCapability step = script.get(index);
+        boolean last = index == script.size() - 1;
+
+        JSONObject plan = new JSONObject(true);
+        plan.put("动作指令", directive(step.getAction()));
+        plan.put("下一步指令", last ? "" : script.get(index + 1).getDescription());
+        plan.put("当前这一步理想执行结果", step.getDescription());
+        plan.put("执行完当前这一步任务是否完成(yes/no)", last ? "yes" : "no");
+        return plan.toJSONString();
+    }
+
+    /**
+     * 格式化：把原始输出中的动作指令包装为标准步骤格式
+     */
+    private String format(String prompt) {
+        String taskName = lineAfter(prompt, FORMAT_TASK_LABEL);
+        int start = prompt.indexOf(RAW_OUTPUT_LABEL);
+        String rawJson = start >= 0 ? JsonExtractor.extractFirstObject(prompt.substring(start)) : null;
+        JSONObject raw = rawJson != null ? JSON.parseObject(rawJson) : new JSONObject();
+        JSONObject action = raw.getJSONObject("动作指令");
+
+        JSONObject step = new JSONObject(true);
+        step.put("描述", "执行LLM指定的动作");
+        step.put("动作", action != null ? action : new JSONObject());
+        JSONArray steps = new JSONArray();
+        steps.add(step);
+        JSONObject body = new JSONObject(true);
+        body.put("步骤", steps);
+        JSONObject formatted = new JSONObject(true);
+        formatted.put(taskName != null ? taskName : "未知任务", body);
+        return formatted.toJSONString();
+    }
+
+    /**
+     * 任务的执行脚本：依次执行的步骤，"[二选一]"的一组步骤只保留第一个
+     */
+    private static List<StepCapability> script(TaskCapability task) {
+        List<StepCapability> script = new ArrayList<>();
+        boolean previousAlternative = false;
+        for (StepCapability step : task.getSteps()) {
+            boolean alternative = step.getDescription() != null && step.getDescription().contains("[二选一]");
+            if (step.hasHttpAction() && !(alternative && previousAlternative)) {
+                script.add(step);
+            }
+            previousAlternative = alternative;
+        }
+        return script;
+    }
+
+    /**
+     * 按能力配置生成动作指令，请求体中的说明文字替换为示例值
+     */
+    private static JSONObject directive(JSONObject action) {
+        JSONObject directive = new JSONObject(true);
+        directive.put("url", action.getString("url"));
+        directive.put("method", action.getString("method"));
+        directive.put("params", new JSONObject());
+        JSONObject body = new JSONObject(true);
+        JSONObject template = action.getJSONObject("body");
+        if (template != null) {
+            for (Map.Entry<String, Object> field : template.entrySet()) {
+                body.put(field.getKey(), sampleValue(field.getKey(), field.getValue()));
+            }
+        }
+        directive.put("body", body);
+        return directive;
+    }
+
+    private static Object sampleValue(String field, Object spec) {
+        if (!(spec instanceof String)) {
+            return spec;
+        }
+        String text = (String) spec;
+        if (text.contains("Integer") || text.contains("Long")) {
+            return 1;
+        }
+        if (text.contains("List")) {
+            JSONArray list = new JSONArray();
+            list.add("17-01.jpg");
+            return list;
+        }
+        return "压测" + field;
+    }
+
+    /**
+     * 从Prompt中读取当前步骤序号（从0开始），任务刚开始时为0
+     */
+    private static int currentStepIndex(String prompt) {
+        Matcher matcher = STEP_PATTERN.matcher(prompt);
+        return matcher.find() ? Math.max(Integer.parseInt(matcher.group(1)) - 1, 0) : 0;
+    }
+
+    private static String lineAfter(String text, String label) {
+        int start = text.indexOf(label);
+        if (start < 0) {
+            return null;
+        }
+        start += label.length();
+        int end = text.indexOf('\n', start);
+        return (end >= 0 ? text.substring(start, end) : text.substring(start)).trim();
+    }
+
+    private void pause() {
+        if (latencyMs <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(latencyMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.randb.digitaldemo1.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 模拟"校猫日记"平台接口的本地HTTP服务（压测用）
+ * 覆盖ability.txt中的接口，返回固定的响应；查询接口的响应带ETag，条件请求匹配时返回304；
+ * 响应按配置的耗时（加随机抖动）延迟发送，延迟期间不占用处理线程，少量线程即可支撑大量并发请求
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public class StubPlatformServer {
+
+    private static final String OK = "{\"code\":200,\"msg\":\"操作成功\",\"data\":null}";
+
+    private static final String NOT_FOUND = "{\"code\":404,\"msg\":\"接口不存在\",\"data\":null}";
+
+    private static final String POST = "{\"code\":200,\"msg\":\"获取成功\",\"data\":{\"postId\":1,"
+            + "\"title\":\"今天在图书馆门口遇到了橘猫\",\"article\":\"它趴在台阶上晒太阳，看到人来了也不躲，还主动蹭了蹭我的裤腿。\","
+            + "\"authorId\":37,\"likeCount\":12,\"commentCount\":3,\"pictrueList\":[\"17-01.jpg\"],"
+            + "\"createTime\":\"2026-10-17 09:30:00\"}}";
+
+    private static final String COMMENT = "{\"code\":200,\"msg\":\"获取成功\",\"data\":{\"commentId\":1,\"type\":20,"
+            + "\"postId\":1,\"commentContext\":\"好可爱的橘猫，明天我也去看看\",\"createTime\":\"2026-10-17 09:45:00\"}}";
+
+    private static final Map<String, String> RESPONSES = Map.of(
+            "/api/digital/addpost", OK,
+            "/api/digital/getOnePost", POST,
+            "/api/digital/comment", OK,
+            "/api/digital/getUnAuditedPost", POST,
+            "/api/digital/auditPost", OK,
+            "/api/digital/rejectPost", OK,
+            "/api/digital/getUnAuditedComment", COMMENT,
+            "/api/digital/auditComment", OK,
+            "/api/digital/rejectComment", OK);
+
+    private final int port;
+
+    private final long latencyMs;
+
+    private final long jitterMs;
+
+    private final LongAdder requests = new LongAdder();
+
+    private HttpServer server;
+
+    private ExecutorService handlers;
+
+    private ScheduledExecutorService delayer;
+
+    public StubPlatformServer(int port, long latencyMs, long jitterMs) {
+        this.port = port;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+    }
+
+    public void start() throws IOException {
+        handlers = Executors.newFixedThreadPool(4, daemonThreads("stub-platform-"));
+        delayer = Executors.newScheduledThreadPool(2, daemonThreads("stub-platform-delay-"));
+        server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/", this::handle);
+        server.setExecutor(handlers);
+        server.start();
+        log.info("模拟平台接口已启动: http://localhost:{}（耗时 {}ms ± {}ms）", port, latencyMs, jitterMs);
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (delayer != null) {
+            delayer.shutdownNow();
+        }
+        if (handlers != null) {
+            handlers.shutdownNow();
+        }
+    }
+
+    /**
+     * 获取累计处理的请求数
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.readAllBytes();
+        }
+        requests.increment();
+
+        String body = RESPONSES.get(exchange.getRequestURI().getPath());
+        int status = body != null ? 200 : 404;
+        byte[] bytes = (body != null ? body : NOT_FOUND).getBytes(StandardCharsets.UTF_8);
+        if (body != null && !OK.equals(body)) {
+            String etag = "\"" + Integer.toHexString(body.hashCode()) + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                status = 304;
+                bytes = new byte[0];
+            }
+        }
+
+        long delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        int responseStatus = status;
+        byte[] responseBytes = bytes;
+        if (delay > 0) {
+            delayer.schedule(() -> respond(exchange, responseStatus, responseBytes), delay, TimeUnit.MILLISECONDS);
+        } else {
+            respond(exchange, responseStatus, responseBytes);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] bytes) {
+        try {
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            // 304没有响应体
+            exchange.sendResponseHeaders(status, status == 304 ? -1 : bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            log.debug("模拟平台接口响应失败: {}", e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
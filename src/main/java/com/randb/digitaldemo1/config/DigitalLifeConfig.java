@@ -4,6 +4,11 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 数字生命配置类
  * @author: randb
@@ -18,6 +23,61 @@ public class DigitalLifeConfig {
      * 自动启动配置
      */
     private AutoStart autoStart = new AutoStart();
+
+    /**
+     * 多数字生命（agent池）配置
+     */
+    private Agent agent = new Agent();
+
+    /**
+     * 能力配置（ability.txt）
+     */
+    private Capability capability = new Capability();
+
+    /**
+     * 任务配置（tasks.txt）
+     */
+    private Task task = new Task();
+
+    /**
+     * 执行动作使用的HTTP客户端配置
+     */
+    private Http http = new Http();
+
+    /**
+     * 动作响应缓存配置
+     */
+    private HttpCache httpCache = new HttpCache();
+
+    /**
+     * 数字生命循环节奏与限制配置
+     */
+    private Loop loop = new Loop();
+
+    /**
+     * 任务完成判断配置
+     */
+    private Judge judge = new Judge();
+
+    /**
+     * Prompt组装配置
+     */
+    private PromptConfig prompt = new PromptConfig();
+
+    /**
+     * LLM调用配置
+     */
+    private Llm llm = new Llm();
+
+    /**
+     * HTTP响应保存配置
+     */
+    private ResponseConfig response = new ResponseConfig();
+
+    /**
+     * 状态访问审计配置
+     */
+    private State state = new State();
     
     @Data
     public static class AutoStart {
@@ -31,4 +91,375 @@ public class DigitalLifeConfig {
          */
         private int delaySeconds = 5;
     }
+
+    @Data
+    public static class Agent {
+        /**
+         * 启动时运行的数字生命数量
+         */
+        private int count = 1;
+
+        /**
+         * 允许同时运行的最大数字生命数量
+         */
+        private int maxAgents = 500;
+
+        /**
+         * 是否优先使用虚拟线程（需要Java 21及以上）
+         */
+        private boolean virtualThreads = true;
+
+        /**
+         * 不支持虚拟线程时使用的线程池大小
+         */
+        private int poolSize = 32;
+    }
+
+    @Data
+    public static class Capability {
+        /**
+         * 能力配置文件路径
+         */
+        private String abilityFile = "src/main/resources/ability.txt";
+
+        /**
+         * 是否监听文件变化并自动重新加载
+         */
+        private boolean watch = true;
+    }
+
+    @Data
+    public static class Task {
+        /**
+         * 任务配置文件路径，任务以全角分号分隔，任务名后可跟JSON属性，如 审核帖子{"权重":3,"优先级":1,"每分钟":30,"配额":1000}
+         */
+        private String tasksFile = "src/main/resources/tasks.txt";
+
+        /**
+         * 是否监听文件变化并自动重新加载
+         */
+        private boolean watch = true;
+
+        /**
+         * 所有任务都达到频率限制时，数字生命等待的最长时间（毫秒）
+         */
+        private long maxWaitMs = 5000;
+    }
+
+    @Data
+    public static class Http {
+        /**
+         * 连接池最大连接数
+         */
+        private int maxTotal = 200;
+
+        /**
+         * 每个主机（host:port）的默认最大连接数
+         */
+        private int maxPerRoute = 50;
+
+        /**
+         * 按主机单独设置的最大连接数，key为 http://host:port
+         */
+        private Map<String, Integer> maxPerHost = new HashMap<>();
+
+        /**
+         * 建立连接超时（毫秒）
+         */
+        private int connectTimeoutMs = 3000;
+
+        /**
+         * 读取响应超时（毫秒）
+         */
+        private int readTimeoutMs = 15000;
+
+        /**
+         * 从连接池获取连接的超时（毫秒）
+         */
+        private int connectionRequestTimeoutMs = 3000;
+
+        /**
+         * 服务端未声明Keep-Alive时连接的保活时间（秒）
+         */
+        private int keepAliveSeconds = 30;
+
+        /**
+         * 空闲连接回收时间（秒）
+         */
+        private int idleEvictSeconds = 60;
+    }
+
+    @Data
+    public static class HttpCache {
+        /**
+         * 是否为每个数字生命缓存只读接口的响应
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个数字生命最多缓存的响应数，超出时淘汰最久未使用的
+         */
+        private int maxEntries = 64;
+
+        /**
+         * 能力配置中未设置cache的GET接口的缓存时间（秒），0表示只按响应的Cache-Control缓存；
+         * 非GET接口只有在能力配置中设置了cache才会缓存
+         */
+        private int defaultGetTtlSeconds = 0;
+    }
+
+    @Data
+    public static class Loop {
+        /**
+         * 调度模式：fixed-delay（按步骤结果固定间隔）、fixed-rate（固定频率）、
+         * adaptive（按后端响应耗时自适应）、as-fast-as-possible（压测模式，不等待）
+         */
+        private Mode mode = Mode.FIXED_DELAY;
+
+        /**
+         * 流水线模式：动作执行完后规则无法判断任务是否完成时，LLM任务完成判断与下一步规划两个LLM调用并发进行，
+         * 判断为完成时丢弃预先规划的结果
+         */
+        private boolean pipelined = false;
+
+        /**
+         * 步骤未完成任务时到下一步的间隔（毫秒，fixed-delay）
+         */
+        private long stepDelayMs = 8000;
+
+        /**
+         * 任务完成后到开始新任务的间隔（毫秒，fixed-delay）
+         */
+        private long taskCompletedDelayMs = 15000;
+
+        /**
+         * 步骤异常后的间隔（毫秒，所有模式）
+         */
+        private long errorDelayMs = 10000;
+
+        /**
+         * 相邻两步开始时间的间隔（毫秒，fixed-rate）
+         */
+        private long periodMs = 8000;
+
+        /**
+         * 间隔 = 后端平均响应耗时 * 该倍数（adaptive）
+         */
+        private double latencyMultiplier = 2.0;
+
+        /**
+         * 自适应间隔下限（毫秒，adaptive）
+         */
+        private long minDelayMs = 0;
+
+        /**
+         * 自适应间隔上限（毫秒，adaptive）
+         */
+        private long maxDelayMs = 15000;
+
+        /**
+         * 每个数字生命最多执行的循环轮数，0表示不限制
+         */
+        private int maxLoops = 100;
+
+        /**
+         * 每个数字生命最多完成的任务数，0表示不限制
+         */
+        private int maxTasks = 0;
+
+        public enum Mode {
+            FIXED_DELAY,
+            FIXED_RATE,
+            ADAPTIVE,
+            AS_FAST_AS_POSSIBLE
+        }
+    }
+
+    @Data
+    public static class Judge {
+        /**
+         * 是否先用确定性规则判断，规则无法判断时才调用LLM
+         */
+        private boolean rulesEnabled = true;
+
+        /**
+         * 单个任务允许出错的步骤数，达到后结束任务
+         */
+        private int errorBudget = 3;
+
+        /**
+         * 单个任务的最大步骤数，达到后结束任务
+         */
+        private int maxSteps = 10;
+    }
+
+    @Data
+    public static class PromptConfig {
+        /**
+         * 只把当前任务相关的能力放入Prompt（找不到任务时仍放入全部能力）
+         */
+        private boolean relevantAbilitiesOnly = true;
+
+        /**
+         * 放入规划Prompt和任务完成判断Prompt的最近请求记录数（当前任务内）
+         */
+        private int stepHistorySize = 8;
+    }
+
+    @Data
+    public static class ResponseConfig {
+        /**
+         * 保存响应时是否按预算生成摘要（Prompt和任务完成判断使用摘要）
+         */
+        private boolean summarize = true;
+
+        /**
+         * 摘要的最大字符数
+         */
+        private int maxChars = 4000;
+
+        /**
+         * JSON最大展开深度，更深的对象和数组折叠为说明
+         */
+        private int maxDepth = 4;
+
+        /**
+         * 每个数组最多保留的项数
+         */
+        private int maxArrayItems = 5;
+
+        /**
+         * 每个对象最多保留的字段数
+         */
+        private int maxFields = 30;
+
+        /**
+         * 字符串值的最大长度
+         */
+        private int maxStringLength = 300;
+    }
+
+    @Data
+    public static class State {
+        /**
+         * 状态读取审计采样率：每N次读取记录一次（审计日志为DEBUG级别，logger: digital-life.state-audit）
+         */
+        private int auditSampleRate = 100;
+
+        /**
+         * 审计日志中状态值的最大长度
+         */
+        private int auditMaxValueLength = 200;
+
+        /**
+         * 是否异步记录状态变更日志（JSON Lines）
+         */
+        private boolean journalEnabled = false;
+
+        /**
+         * 状态变更日志文件
+         */
+        private String journalFile = "logs/state-journal.jsonl";
+
+        /**
+         * 状态存储（重启后恢复数字生命）
+         */
+        private Store store = new Store();
+    }
+
+    @Data
+    public static class Store {
+        /**
+         * 状态存储类型：none（只保存在内存中）、journal（本地追加日志）、redis（多个节点共享，按租约分配数字生命）
+         */
+        private String type = "none";
+
+        /**
+         * 启动数字生命时按保存的快照恢复任务进度，关闭时从头开始并覆盖保存的快照
+         */
+        private boolean resume = true;
+
+        /**
+         * journal：日志文件
+         */
+        private String journalFile = "data/agent-state.log";
+
+        /**
+         * journal：初始映射大小（MB，最大2047），空间不足时先压缩，仍不足时翻倍
+         */
+        private int journalInitialSizeMb = 16;
+
+        /**
+         * 刷盘间隔（毫秒）；redis：批量写入快照的间隔
+         */
+        private long syncIntervalMs = 1000;
+
+        /**
+         * redis：连接与租约配置
+         */
+        private Redis redis = new Redis();
+    }
+
+    @Data
+    public static class Redis {
+        private String host = "localhost";
+
+        private int port = 6379;
+
+        private String password = "";
+
+        private int database = 0;
+
+        /**
+         * 连接和读取超时（毫秒）
+         */
+        private int timeoutMs = 2000;
+
+        /**
+         * 键前缀，同一集群的节点使用相同的前缀
+         */
+        private String keyPrefix = "digital-life:";
+
+        /**
+         * 当前节点ID，为空时使用 主机名-进程号
+         */
+        private String nodeId = "";
+
+        /**
+         * 租约有效期（毫秒）：节点宕机后，它运行的数字生命最多在这段时间后可以被其他节点接管
+         */
+        private long leaseTtlMs = 15000;
+    }
+
+    @Data
+    public static class Llm {
+        /**
+         * LLM响应缓存
+         */
+        private LlmCache cache = new LlmCache();
+    }
+
+    @Data
+    public static class LlmCache {
+        /**
+         * 是否启用LLM响应缓存
+         */
+        private boolean enabled = false;
+
+        /**
+         * 开启缓存的调用方（planner、formatter、judge）；规划默认不缓存，
+         * 否则同一任务的第一步在所有数字生命中会得到完全相同的内容
+         */
+        private List<String> callers = new ArrayList<>(List.of("formatter", "judge"));
+
+        /**
+         * 最多缓存的响应数（所有数字生命共享）
+         */
+        private int maxEntries = 1024;
+
+        /**
+         * 缓存有效期（秒）
+         */
+        private int ttlSeconds = 300;
+    }
 }
@@ -0,0 +1,104 @@
+package com.randb.digitaldemo1.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.HeaderElement;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.message.MessageSupport;
+import org.apache.hc.core5.pool.ConnPoolControl;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URISyntaxException;
+import java.util.Iterator;
+
+/**
+ * 动作执行HTTP客户端配置
+ * ActionExecutor与ActionFormatter共用同一个带连接池、Keep-Alive和超时控制的非阻塞客户端
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * 非阻塞连接池HTTP客户端，用于异步执行动作
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpAsyncClient actionAsyncHttpClient(DigitalLifeConfig digitalLifeConfig) {
+        DigitalLifeConfig.Http http = digitalLifeConfig.getHttp();
+
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxTotal())
+                .setMaxConnPerRoute(http.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig(http))
+                .build();
+        applyMaxPerHost(connectionManager, http);
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig(http))
+                .setKeepAliveStrategy(keepAliveStrategy(http))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofSeconds(http.getIdleEvictSeconds()))
+                .build();
+        client.start();
+        return client;
+    }
+
+    private ConnectionConfig connectionConfig(DigitalLifeConfig.Http http) {
+        return ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(http.getConnectTimeoutMs()))
+                .setSocketTimeout(Timeout.ofMilliseconds(http.getReadTimeoutMs()))
+                .build();
+    }
+
+    private RequestConfig requestConfig(DigitalLifeConfig.Http http) {
+        return RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(http.getConnectionRequestTimeoutMs()))
+                .setResponseTimeout(Timeout.ofMilliseconds(http.getReadTimeoutMs()))
+                .build();
+    }
+
+    /**
+     * 按主机单独设置连接数上限
+     */
+    private void applyMaxPerHost(ConnPoolControl<HttpRoute> connectionManager, DigitalLifeConfig.Http http) {
+        http.getMaxPerHost().forEach((host, max) -> {
+            try {
+                connectionManager.setMaxPerRoute(new HttpRoute(HttpHost.create(host)), max);
+            } catch (URISyntaxException e) {
+                log.warn("忽略无效的主机连接数配置: {}", host);
+            }
+        });
+    }
+
+    private ConnectionKeepAliveStrategy keepAliveStrategy(DigitalLifeConfig.Http http) {
+        TimeValue defaultKeepAlive = TimeValue.ofSeconds(http.getKeepAliveSeconds());
+        return (response, context) -> {
+            // 优先使用服务端Keep-Alive头声明的timeout
+            Iterator<HeaderElement> elements = MessageSupport.iterate(response, "Keep-Alive");
+            while (elements.hasNext()) {
+                HeaderElement element = elements.next();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return TimeValue.ofSeconds(Long.parseLong(element.getValue()));
+                    } catch (NumberFormatException ignored) {
+                        // 使用默认保活时间
+                    }
+                }
+            }
+            return defaultKeepAlive;
+        };
+    }
+}
@@ -1,12 +1,18 @@
 package com.randb.digitaldemo1.controller;
 
 import com.randb.digitaldemo1.core.DigitalLifeEngine;
+import com.randb.digitaldemo1.entity.ThroughputSnapshot;
+import com.randb.digitaldemo1.service.AgentState;
 import com.randb.digitaldemo1.service.StateManager;
+import com.randb.digitaldemo1.service.TaskCompletionJudge;
+import com.randb.digitaldemo1.service.TaskSelector;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.concurrent.CompletableFuture;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 数字生命控制器
@@ -25,6 +31,12 @@ public class DigitalLifeController {
     @Autowired
     private StateManager stateManager;
 
+    @Autowired
+    private TaskCompletionJudge taskCompletionJudge;
+
+    @Autowired
+    private TaskSelector taskSelector;
+
     /**
      * 启动数字生命
      */
@@ -35,10 +47,8 @@ public class DigitalLifeController {
                 return "数字生命已经在运行中";
             }
             
-            // 异步启动数字生命，避免阻塞HTTP请求
-            CompletableFuture.runAsync(() -> {
-                digitalLifeEngine.startDigitalLife();
-            });
+            // 数字生命在引擎的执行器上异步运行，不会阻塞HTTP请求
+            digitalLifeEngine.startDigitalLife();
             
             return "数字生命启动成功";
         } catch (Exception e) {
@@ -61,6 +71,86 @@ public class DigitalLifeController {
         }
     }
 
+    /**
+     * 批量启动数字生命
+     */
+    @PostMapping("/agents/start")
+    public String startAgents(@RequestParam(defaultValue = "1") int count) {
+        try {
+            List<String> started = digitalLifeEngine.startAgents(count);
+            return "已启动数字生命 " + started.size() + " 个: " + started;
+        } catch (Exception e) {
+            log.error("批量启动数字生命失败: {}", e.getMessage(), e);
+            return "批量启动数字生命失败: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 启动指定ID的数字生命
+     */
+    @PostMapping("/agents/{agentId}/start")
+    public String startAgent(@PathVariable String agentId) {
+        try {
+            return digitalLifeEngine.startAgent(agentId) ? "数字生命启动成功: " + agentId : "数字生命启动失败: " + agentId;
+        } catch (Exception e) {
+            log.error("启动数字生命 {} 失败: {}", agentId, e.getMessage(), e);
+            return "启动数字生命失败: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 停止指定ID的数字生命
+     */
+    @PostMapping("/agents/{agentId}/stop")
+    public String stopAgent(@PathVariable String agentId) {
+        try {
+            return digitalLifeEngine.stopAgent(agentId) ? "数字生命停止信号已发送: " + agentId : "数字生命未在运行: " + agentId;
+        } catch (Exception e) {
+            log.error("停止数字生命 {} 失败: {}", agentId, e.getMessage(), e);
+            return "停止数字生命失败: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 获取运行中的数字生命ID
+     */
+    @GetMapping("/agents")
+    public Collection<String> getAgents() {
+        return digitalLifeEngine.getRunningAgentIds();
+    }
+
+    /**
+     * 获取引擎汇总吞吐量（steps/sec、LLM calls/sec）
+     */
+    @GetMapping("/throughput")
+    public ThroughputSnapshot getThroughput() {
+        return digitalLifeEngine.getThroughput();
+    }
+
+    /**
+     * 获取任务完成判断各层级的命中率
+     */
+    @GetMapping("/judge/stats")
+    public Map<String, Map<String, Object>> getJudgeStats() {
+        return taskCompletionJudge.getTierStats();
+    }
+
+    /**
+     * 获取各任务的权重、优先级、限制和已开始次数
+     */
+    @GetMapping("/tasks/stats")
+    public Map<String, Map<String, Object>> getTaskStats() {
+        return taskSelector.getStats();
+    }
+
+    /**
+     * 重新加载任务配置（tasks.txt）
+     */
+    @PostMapping("/tasks/reload")
+    public String reloadTasks() {
+        return taskSelector.reload() ? "任务配置已重新加载" : "任务配置加载失败，继续使用原来的配置";
+    }
+
     /**
      * 获取数字生命状态
      */
@@ -78,9 +168,9 @@ public class DigitalLifeController {
      * 获取所有状态信息
      */
     @GetMapping("/states")
-    public Object getAllStates() {
+    public Object getAllStates(@RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            return stateManager.getAllStates();
+            return stateManager.getAgentState(agentId).getAllStates();
         } catch (Exception e) {
             log.error("获取所有状态失败: {}", e.getMessage(), e);
             return "获取所有状态失败: " + e.getMessage();
@@ -91,9 +181,11 @@ public class DigitalLifeController {
      * 清空所有状态
      */
     @PostMapping("/clear-states")
-    public String clearAllStates() {
+    public String clearAllStates(@RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            stateManager.clearAllStates();
+            AgentState agentState = stateManager.getAgentState(agentId);
+            agentState.clearAllStates();
+            stateManager.saveAgentState(agentState);
             return "所有状态已清空";
         } catch (Exception e) {
             log.error("清空状态失败: {}", e.getMessage(), e);
@@ -105,9 +197,10 @@ public class DigitalLifeController {
      * 手动设置状态
      */
     @PostMapping("/set-state")
-    public String setState(@RequestParam String key, @RequestParam String value) {
+    public String setState(@RequestParam String key, @RequestParam String value,
+                           @RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            stateManager.saveState(key, value);
+            stateManager.getAgentState(agentId).saveState(key, value);
             return "状态设置成功: " + key + " = " + value;
         } catch (Exception e) {
             log.error("设置状态失败: {}", e.getMessage(), e);
@@ -119,9 +212,10 @@ public class DigitalLifeController {
      * 获取特定状态
      */
     @GetMapping("/get-state")
-    public String getState(@RequestParam String key) {
+    public String getState(@RequestParam String key,
+                           @RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            Object value = stateManager.getState(key);
+            Object value = stateManager.getAgentState(agentId).getState(key);
             return key + " = " + (value != null ? value.toString() : "null");
         } catch (Exception e) {
             log.error("获取状态失败: {}", e.getMessage(), e);
@@ -133,14 +227,15 @@ public class DigitalLifeController {
      * 手动完成当前任务
      */
     @PostMapping("/complete-task")
-    public String completeCurrentTask() {
+    public String completeCurrentTask(@RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            String currentTask = stateManager.getCurrentTask();
+            AgentState agentState = stateManager.getAgentState(agentId);
+            String currentTask = agentState.getCurrentTask();
             if (currentTask != null) {
-                stateManager.removeState("current_task");
-                stateManager.removeState("current_step");
-                stateManager.removeState("current_step_result");
-                stateManager.removeState("next_step");
+                agentState.completeTask();
+                agentState.saveCurrentStepResult(null);
+                agentState.saveNextStep(null);
+                stateManager.saveAgentState(agentState);
                 log.info("✅ 手动完成任务: {}", currentTask);
                 return "任务已手动完成: " + currentTask + "，系统将选择新任务";
             } else {
@@ -171,9 +266,9 @@ public class DigitalLifeController {
      * 获取登录token状态
      */
     @GetMapping("/token-status")
-    public String getTokenStatus() {
+    public String getTokenStatus(@RequestParam(defaultValue = StateManager.DEFAULT_AGENT_ID) String agentId) {
         try {
-            String token = stateManager.getLoginToken();
+            String token = stateManager.getAgentState(agentId).getLoginToken();
             if (token != null) {
                 return "已登录，Token: " + token.substring(0, Math.min(20, token.length())) + "...";
             } else {
@@ -1,192 +1,332 @@
 package com.randb.digitaldemo1.core;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.entity.ActionResult;
 import com.randb.digitaldemo1.entity.HttpRequestInfo;
-import com.randb.digitaldemo1.service.StateManager;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
+import com.randb.digitaldemo1.entity.ResponseView;
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.digitaldemo1.service.ResponseCache;
+import com.randb.digitaldemo1.service.ResponseInspector;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 动作执行器
- * 解析和执行LLM生成的动作指令
+ * 解析和执行LLM生成的动作指令，执行结果写入调用方传入的数字生命状态记录
+ * 请求由非阻塞客户端（HttpAsyncClient）发出，不占用调用线程
  * @author: randb
  * @date: 2025-08-22
  */
 @Slf4j
+@Component
 public class ActionExecutor {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-    private static final RestTemplate restTemplate = new RestTemplate();
-    private static StateManager stateManager;
+    @Autowired
+    private CloseableHttpAsyncClient asyncHttpClient;
+    @Autowired
+    private EngineMetrics engineMetrics;
+    @Autowired
+    private ResponseCachePolicy responseCachePolicy;
 
     /**
-     * 设置状态管理器
-     * @param manager 状态管理器实例
+     * 异步执行LLM生成的复杂动作指令
+     * 多个请求按顺序依次发出，不占用调用线程；每个请求完成时结果写入数字生命状态
+     * @param actionInstruction 已解析的动作指令
+     * @param agentState 执行动作的数字生命状态作用域
+     * @return 最后一个请求的执行结果
      */
-    public static void setStateManager(StateManager manager) {
-        stateManager = manager;
+    public CompletableFuture<ActionResult> executeComplexActionAsync(JSONObject actionInstruction, AgentState agentState) {
+        List<HttpRequestInfo> requests;
+        try {
+            requests = collectHttpRequests(actionInstruction);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<ActionResult> chain = CompletableFuture.completedFuture(ActionResult.noRequest());
+        for (HttpRequestInfo httpInfo : requests) {
+            chain = chain.thenCompose(previous -> executeRequestAsync(httpInfo, agentState));
+        }
+        return chain;
     }
 
     /**
-     * 新的动作执行器 - 解析LLM生成的复杂动作指令
-     * @param actionInstructionJson LLM生成的动作指令JSON字符串
+     * 异步发送单个HTTP请求（自动添加token），完成时结果写入数字生命状态
+     * @param httpInfo HTTP请求信息
+     * @param agentState 执行动作的数字生命状态作用域
+     * @return 执行结果，请求失败时也正常完成（error不为空）
      */
-    public static void executeComplexAction(String actionInstructionJson) {
+    public CompletableFuture<ActionResult> executeRequestAsync(HttpRequestInfo httpInfo, AgentState agentState) {
+        ActionResult result = new ActionResult();
+        result.setMethod(httpInfo.getMethod());
+        result.setUrl(httpInfo.getUrl());
+
+        CompletableFuture<ActionResult> future = new CompletableFuture<>();
+        long start = System.nanoTime();
+        // 回调在HTTP客户端的I/O线程上执行，带上发起请求时的日志MDC
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
         try {
-            log.info("开始解析动作指令: {}", actionInstructionJson);
-            
-            // 解析JSON
-            JsonNode rootNode = objectMapper.readTree(actionInstructionJson);
-            
-            // 遍历所有动作类型（如"发布一个帖子"）
-            rootNode.fieldNames().forEachRemaining(actionType -> {
-                try {
-                    log.info("执行动作类型: {}", actionType);
-                    JsonNode actionNode = rootNode.get(actionType);
-                    
-                    if (actionNode.has("步骤")) {
-                        // 标准格式：包含步骤数组
-                        JsonNode stepsNode = actionNode.get("步骤");
-                        
-                        // 遍历每个步骤
-                        for (int i = 0; i < stepsNode.size(); i++) {
-                            JsonNode stepNode = stepsNode.get(i);
-                            executeStep(stepNode, i + 1);
-                        }
-                    } else if (actionNode.has("url") || actionNode.has("method")) {
-                        // 简单格式：直接包含HTTP请求信息
-                        log.info("执行简单动作: {}", actionType);
-                        HttpRequestInfo httpInfo = extractHttpRequestInfo(actionNode);
-                        
-                        if (httpInfo != null && httpInfo.isValid()) {
-                            sendHttpRequest(httpInfo);
-                        } else {
-                            log.warn("简单动作 {} 没有有效的HTTP请求信息", actionType);
-                        }
-                    } else {
-                        // 检查是否是嵌套的动作对象
-                        executeNestedAction(actionNode, actionType);
+            // 命中有效期内的缓存时不发出请求
+            ResponseCachePolicy.Lookup cacheLookup = responseCachePolicy.lookup(httpInfo, agentState);
+            if (cacheLookup != null && cacheLookup.isHit()) {
+                applyCachedResponse(result, cacheLookup.getCached());
+                result.setCacheHit(true);
+                future.complete(finish(result, start, httpInfo, agentState));
+                return future;
+            }
+
+            log.info("异步发送HTTP请求: {} {}", httpInfo.getMethod(), httpInfo.getUrl());
+            SimpleHttpRequest request = buildAsyncRequest(httpInfo, agentState);
+            if (cacheLookup != null) {
+                responseCachePolicy.conditionalHeaders(cacheLookup).forEach(request::setHeader);
+            }
+
+            asyncHttpClient.execute(request, new FutureCallback<SimpleHttpResponse>() {
+                @Override
+                public void completed(SimpleHttpResponse response) {
+                    result.setStatusCode(response.getCode());
+                    result.setBody(response.getBodyText());
+                    ResponseCache.Entry revalidated = cacheLookup == null ? null
+                            : responseCachePolicy.onResponse(cacheLookup, response.getCode(), result.getBody(),
+                                    name -> headerValue(response, name));
+                    if (revalidated != null) {
+                        applyCachedResponse(result, revalidated);
+                    } else if (response.getCode() >= 400) {
+                        result.setError(response.getCode() + " " + response.getReasonPhrase());
                     }
-                } catch (Exception e) {
-                    log.error("执行动作类型 {} 失败: {}", actionType, e.getMessage(), e);
+                    LogChannels.runWithMdc(mdc, () -> future.complete(finish(result, start, httpInfo, agentState)));
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    result.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+                    LogChannels.runWithMdc(mdc, () -> future.complete(finish(result, start, httpInfo, agentState)));
+                }
+
+                @Override
+                public void cancelled() {
+                    result.setError("请求已取消");
+                    LogChannels.runWithMdc(mdc, () -> future.complete(finish(result, start, httpInfo, agentState)));
                 }
             });
-            
         } catch (Exception e) {
-            log.error("解析动作指令失败: {}", e.getMessage(), e);
-            throw new RuntimeException("解析动作指令失败: " + e.getMessage(), e);
+            result.setError(e.getMessage());
+            future.complete(finish(result, start, httpInfo, agentState));
+        }
+        return future;
+    }
+
+    /**
+     * 构建异步HTTP请求
+     */
+    private SimpleHttpRequest buildAsyncRequest(HttpRequestInfo httpInfo, AgentState agentState) {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.create(httpInfo.getMethod().toUpperCase())
+                .setUri(httpInfo.getUrl())
+                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+
+        // 如果有登录token，添加到请求头
+        if (agentState != null && agentState.hasLoginToken()) {
+            builder.setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + agentState.getLoginToken());
+        }
+
+        // 准备请求体
+        if (httpInfo.getBody() != null) {
+            builder.setBody(JSON.toJSONString(httpInfo.getBody()), ContentType.APPLICATION_JSON);
+        } else if (httpInfo.getBodyString() != null && !httpInfo.getBodyString().isEmpty()) {
+            builder.setBody(httpInfo.getBodyString(), ContentType.APPLICATION_JSON);
         }
+        return builder.build();
     }
 
     /**
-     * 执行单个步骤
+     * 异步请求完成：记录耗时并把结果写入数字生命状态
      */
-    private static void executeStep(JsonNode stepNode, int stepNumber) {
+    private ActionResult finish(ActionResult result, long start, HttpRequestInfo httpInfo, AgentState agentState) {
+        result.setLatencyMs((System.nanoTime() - start) / 1_000_000);
+        log.info("HTTP请求响应状态: {} ({}ms{}) {}", result.getStatusCode(), result.getLatencyMs(),
+                result.isCacheHit() ? "，缓存" : "", httpInfo.getUrl());
+        LogChannels.PAYLOAD.debug("HTTP请求响应内容: {}", result.getBody());
+
+        if (agentState != null) {
+            agentState.saveLastResponseLatency(result.getLatencyMs());
+            agentState.saveLastResponseCached(result.isCacheHit());
+            agentState.saveLastActionUrl(httpInfo.getUrl());
+            if (result.isSuccess()) {
+                // 登录响应含有token，保存时不写入审计日志和状态变更日志
+                boolean login = httpInfo.getUrl().contains("login");
+                ResponseView response = login ? agentState.saveLoginResponse(result.getBody())
+                        : agentState.saveLastResponse(result.getBody());
+                recordStep(agentState, result.getMethod(), httpInfo.getUrl(), result.getStatusCode(),
+                        result.getLatencyMs(), describeResponse(response), result.isCacheHit());
+
+                // 如果是登录请求，尝试提取token
+                if (login) {
+                    extractAndSaveToken(response, agentState);
+                }
+            } else {
+                log.error("发送HTTP请求失败: {}", result.getError());
+                String detail = result.getBody() != null ? result.getError() + ": " + result.getBody() : result.getError();
+                agentState.saveLastResponse(ResponseInspector.REQUEST_FAILURE_PREFIX + detail);
+                recordStep(agentState, result.getMethod(), httpInfo.getUrl(), result.getStatusCode(),
+                        result.getLatencyMs(), "失败: " + result.getError(), false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按执行顺序提取动作指令中的所有HTTP请求
+     */
+    private List<HttpRequestInfo> collectHttpRequests(JSONObject actionInstruction) {
+        List<HttpRequestInfo> requests = new ArrayList<>();
+        if (actionInstruction == null) {
+            throw new IllegalArgumentException("动作指令为空");
+        }
+        LogChannels.PAYLOAD.debug("开始解析动作指令: {}", actionInstruction);
+
+        // 遍历所有动作类型（如"发布一个帖子"）
+        for (Map.Entry<String, Object> entry : actionInstruction.entrySet()) {
+            String actionType = entry.getKey();
+            try {
+                log.info("执行动作类型: {}", actionType);
+                if (!(entry.getValue() instanceof JSONObject)) {
+                    continue;
+                }
+                JSONObject actionNode = (JSONObject) entry.getValue();
+
+                if (actionNode.containsKey("步骤")) {
+                    // 标准格式：包含步骤数组
+                    List<Object> stepsNode = actionNode.getJSONArray("步骤");
+
+                    // 遍历每个步骤
+                    for (int i = 0; i < stepsNode.size(); i++) {
+                        if (stepsNode.get(i) instanceof JSONObject) {
+                            collectStep((JSONObject) stepsNode.get(i), i + 1, requests);
+                        }
+                    }
+                } else if (actionNode.containsKey("url") || actionNode.containsKey("method")) {
+                    // 简单格式：直接包含HTTP请求信息
+                    log.info("执行简单动作: {}", actionType);
+                    HttpRequestInfo httpInfo = extractHttpRequestInfo(actionNode);
+
+                    if (httpInfo != null && httpInfo.isValid()) {
+                        requests.add(httpInfo);
+                    } else {
+                        log.warn("简单动作 {} 没有有效的HTTP请求信息", actionType);
+                    }
+                } else {
+                    // 检查是否是嵌套的动作对象
+                    collectNestedAction(actionNode, actionType, requests);
+                }
+            } catch (Exception e) {
+                log.error("执行动作类型 {} 失败: {}", actionType, e.getMessage(), e);
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * 解析单个步骤
+     */
+    private void collectStep(JSONObject stepNode, int stepNumber, List<HttpRequestInfo> requests) {
         try {
-            String description = stepNode.has("描述") ? stepNode.get("描述").asText() : "";
+            String description = stepNode.containsKey("描述") ? stepNode.getString("描述") : "";
             log.info("执行步骤 {}: {}", stepNumber, description);
-            
+
             // 检查是否有动作节点
-            if (stepNode.has("动作") && !stepNode.get("动作").isTextual()) {
-                JsonNode actionNode = stepNode.get("动作");
-                
+            Object actionNode = stepNode.get("动作");
+            if (actionNode instanceof JSONObject) {
                 // 提取HTTP请求信息
-                HttpRequestInfo httpInfo = extractHttpRequestInfo(actionNode);
-                
+                HttpRequestInfo httpInfo = extractHttpRequestInfo((JSONObject) actionNode);
+
                 if (httpInfo != null && httpInfo.isValid()) {
-                    // 发送HTTP请求
-                    sendHttpRequest(httpInfo);
+                    requests.add(httpInfo);
                 } else {
                     log.info("步骤 {} 没有有效的HTTP请求信息", stepNumber);
                 }
             } else {
                 log.info("步骤 {} 没有动作或动作为空字符串", stepNumber);
             }
-            
+
             // 检查是否为最后步骤
-            if (stepNode.has("是否最后步骤")) {
-                String isLastStep = stepNode.get("是否最后步骤").asText();
-                if ("是".equals(isLastStep)) {
-                    log.info("已到达最后步骤");
-                }
+            if ("是".equals(stepNode.getString("是否最后步骤"))) {
+                log.info("已到达最后步骤");
             }
-            
+
         } catch (Exception e) {
             log.error("执行步骤 {} 失败: {}", stepNumber, e.getMessage(), e);
         }
     }
 
     /**
-     * 执行嵌套的动作对象
+     * 解析嵌套的动作对象
      */
-    private static void executeNestedAction(JsonNode actionNode, String actionType) {
-        try {
-            // 遍历嵌套对象的所有字段
-            actionNode.fieldNames().forEachRemaining(fieldName -> {
-                try {
-                    JsonNode fieldNode = actionNode.get(fieldName);
-                    
-                    if (fieldNode.has("url") || fieldNode.has("method")) {
-                        // 找到HTTP请求信息
-                        log.info("执行嵌套动作: {} -> {}", actionType, fieldName);
-                        HttpRequestInfo httpInfo = extractHttpRequestInfo(fieldNode);
-                        
-                        if (httpInfo != null && httpInfo.isValid()) {
-                            sendHttpRequest(httpInfo);
-                        } else {
-                            log.warn("嵌套动作 {} -> {} 没有有效的HTTP请求信息", actionType, fieldName);
-                        }
+    private void collectNestedAction(JSONObject actionNode, String actionType, List<HttpRequestInfo> requests) {
+        // 遍历嵌套对象的所有字段
+        for (Map.Entry<String, Object> entry : actionNode.entrySet()) {
+            String fieldName = entry.getKey();
+            try {
+                if (!(entry.getValue() instanceof JSONObject)) {
+                    continue;
+                }
+                JSONObject fieldNode = (JSONObject) entry.getValue();
+
+                if (fieldNode.containsKey("url") || fieldNode.containsKey("method")) {
+                    // 找到HTTP请求信息
+                    log.info("执行嵌套动作: {} -> {}", actionType, fieldName);
+                    HttpRequestInfo httpInfo = extractHttpRequestInfo(fieldNode);
+
+                    if (httpInfo != null && httpInfo.isValid()) {
+                        requests.add(httpInfo);
+                    } else {
+                        log.warn("嵌套动作 {} -> {} 没有有效的HTTP请求信息", actionType, fieldName);
                     }
-                } catch (Exception e) {
-                    log.error("执行嵌套动作字段 {} 失败: {}", fieldName, e.getMessage(), e);
                 }
-            });
-        } catch (Exception e) {
-            log.error("执行嵌套动作 {} 失败: {}", actionType, e.getMessage(), e);
+            } catch (Exception e) {
+                log.error("执行嵌套动作字段 {} 失败: {}", fieldName, e.getMessage(), e);
+            }
         }
     }
 
     /**
      * 从动作节点中提取HTTP请求信息
      */
-    private static HttpRequestInfo extractHttpRequestInfo(JsonNode actionNode) {
+    private HttpRequestInfo extractHttpRequestInfo(JSONObject actionNode) {
         try {
             HttpRequestInfo info = new HttpRequestInfo();
-            
-            if (actionNode.has("method")) {
-                info.setMethod(actionNode.get("method").asText());
-            }
-            
-            if (actionNode.has("url")) {
-                info.setUrl(actionNode.get("url").asText());
-            }
-            
-            if (actionNode.has("params")) {
-                JsonNode paramsNode = actionNode.get("params");
-                @SuppressWarnings("unchecked")
-                Map<String, Object> paramsMap = objectMapper.convertValue(paramsNode, Map.class);
-                info.setParams(paramsMap);
+            info.setMethod(actionNode.getString("method"));
+            info.setUrl(actionNode.getString("url"));
+
+            Object params = actionNode.get("params");
+            if (params instanceof JSONObject) {
+                info.setParams((JSONObject) params);
             }
-            
-            if (actionNode.has("body")) {
-                JsonNode bodyNode = actionNode.get("body");
-                if (bodyNode.isObject()) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> bodyMap = objectMapper.convertValue(bodyNode, Map.class);
-                    info.setBody(bodyMap);
-                } else {
-                    info.setBodyString(bodyNode.asText());
-                }
+
+            Object body = actionNode.get("body");
+            if (body instanceof JSONObject) {
+                info.setBody((JSONObject) body);
+            } else if (body != null) {
+                info.setBodyString(body.toString());
             }
-            
+
             return info;
         } catch (Exception e) {
             log.error("提取HTTP请求信息失败: {}", e.getMessage(), e);
@@ -195,104 +335,85 @@ public class ActionExecutor {
     }
 
     /**
-     * 发送HTTP请求（增强版，支持状态管理）
+     * 把一次请求记入当前任务的执行历史和请求指标（使用缓存的请求不计入请求耗时指标）
      */
-    private static void sendHttpRequest(HttpRequestInfo httpInfo) {
-        try {
-            log.info("发送HTTP请求: {} {}", httpInfo.getMethod(), httpInfo.getUrl());
-            log.info("请求参数: {}", httpInfo.getParams());
-            log.info("请求体: {}", httpInfo.getBody() != null ? httpInfo.getBody() : httpInfo.getBodyString());
-            
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            // 如果有登录token，添加到请求头
-            if (stateManager != null && stateManager.hasState("login_token")) {
-                String token = stateManager.getLoginToken();
-                headers.setBearerAuth(token);
-                log.info("添加认证token到请求头");
-            }
-            
-            // 准备请求体
-            Object requestBody = null;
-            if (httpInfo.getBody() != null) {
-                requestBody = httpInfo.getBody();
-            } else if (httpInfo.getBodyString() != null && !httpInfo.getBodyString().isEmpty()) {
-                requestBody = httpInfo.getBodyString();
-            }
-            
-            HttpEntity<Object> entity = new HttpEntity<>(requestBody, headers);
-            
-            // 发送请求
-            HttpMethod method = HttpMethod.valueOf(httpInfo.getMethod().toUpperCase());
-            ResponseEntity<String> response = restTemplate.exchange(
-                httpInfo.getUrl(),
-                method,
-                entity,
-                String.class
-            );
-            
-            log.info("HTTP请求响应状态: {}", response.getStatusCode());
-            log.info("HTTP请求响应内容: {}", response.getBody());
-            
-            // 保存响应到状态管理器
-            if (stateManager != null) {
-                stateManager.saveLastResponse(response.getBody());
-                
-                // 如果是登录请求，尝试提取token
-                if (httpInfo.getUrl().contains("login") && response.getStatusCode().is2xxSuccessful()) {
-                    extractAndSaveToken(response.getBody());
-                }
-            }
-            
-        } catch (Exception e) {
-            log.error("发送HTTP请求失败: {}", e.getMessage(), e);
-            if (stateManager != null) {
-                stateManager.saveLastResponse("ERROR: " + e.getMessage());
-            }
+    private void recordStep(AgentState agentState, String method, String url, int statusCode, long latencyMs,
+                            String summary, boolean cacheHit) {
+        if (!cacheHit) {
+            engineMetrics.recordHttpRequest(method, url, statusCode, latencyMs);
         }
+        agentState.getStepHistory().record(method != null ? method.toUpperCase() : "GET", url, statusCode, latencyMs,
+                cacheHit ? "[缓存] " + summary : summary);
     }
-    
+
+    private static String headerValue(SimpleHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
     /**
-     * 从登录响应中提取并保存token
+     * 使用缓存记录作为请求结果
      */
-    private static void extractAndSaveToken(String responseBody) {
-        try {
-            if (responseBody != null && !responseBody.isEmpty()) {
-                JsonNode responseNode = objectMapper.readTree(responseBody);
-                
-                // 首先检查是否有data字段（嵌套结构）
-                if (responseNode.has("data")) {
-                    JsonNode dataNode = responseNode.get("data");
-                    if (dataNode.has("token")) {
-                        String token = dataNode.get("token").asText();
-                        if (token != null && !token.isEmpty()) {
-                            stateManager.saveLoginToken(token);
-                            log.info("成功提取并保存登录token");
-                            return;
-                        }
-                    }
-                }
-                
-                // 尝试多种可能的顶级token字段名
-                String[] tokenFields = {"token", "accessToken", "access_token", "authToken", "jwt"};
-                
-                for (String field : tokenFields) {
-                    if (responseNode.has(field)) {
-                        String token = responseNode.get(field).asText();
-                        if (token != null && !token.isEmpty()) {
-                            stateManager.saveLoginToken(token);
-                            log.info("成功提取并保存登录token");
-                            return;
-                        }
-                    }
-                }
-                
-                log.warn("未能从登录响应中提取token");
+    private static void applyCachedResponse(ActionResult result, ResponseCache.Entry entry) {
+        result.setStatusCode(entry.getStatusCode());
+        result.setBody(entry.getBody());
+        result.setError(null);
+    }
+
+    /**
+     * 生成响应的简短描述：优先使用msg，否则描述data的规模
+     */
+    private String describeResponse(ResponseView response) {
+        JSONObject json = response.getJson();
+        if (json == null) {
+            return response.getRaw();
+        }
+        String msg = json.getString("msg");
+        Object data = json.get("data");
+        String dataInfo;
+        if (data instanceof JSONArray) {
+            dataInfo = "data共" + ((JSONArray) data).size() + "项";
+        } else if (data instanceof JSONObject) {
+            dataInfo = "data字段: " + String.join(",", ((JSONObject) data).keySet());
+        } else {
+            dataInfo = data == null ? "data为空" : "data=" + data;
+        }
+        return msg != null && !msg.isEmpty() ? msg + "，" + dataInfo : dataInfo;
+    }
+
+    /**
+     * 从登录响应中提取并保存token（使用保存响应时已解析的完整视图）
+     */
+    private void extractAndSaveToken(ResponseView response, AgentState agentState) {
+        JSONObject responseNode = response.getJson();
+        if (responseNode == null) {
+            log.warn("登录响应不是JSON，无法提取token");
+            return;
+        }
+
+        // 首先检查是否有data字段（嵌套结构）
+        Object dataNode = responseNode.get("data");
+        if (dataNode instanceof JSONObject) {
+            String token = ((JSONObject) dataNode).getString("token");
+            if (token != null && !token.isEmpty()) {
+                agentState.saveLoginToken(token);
+                log.info("成功提取并保存登录token");
+                return;
+            }
+        }
+
+        // 尝试多种可能的顶级token字段名
+        String[] tokenFields = {"token", "accessToken", "access_token", "authToken", "jwt"};
+
+        for (String field : tokenFields) {
+            String token = responseNode.getString(field);
+            if (token != null && !token.isEmpty()) {
+                agentState.saveLoginToken(token);
+                log.info("成功提取并保存登录token");
+                return;
             }
-        } catch (Exception e) {
-            log.error("提取token失败: {}", e.getMessage(), e);
         }
+
+        log.warn("未能从登录响应中提取token");
     }
 }
@@ -0,0 +1,64 @@
+package com.randb.digitaldemo1.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 数字生命执行器工厂
+ * Java 21及以上使用虚拟线程，否则退化为固定大小的线程池
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public final class AgentExecutors {
+
+    private AgentExecutors() {
+    }
+
+    /**
+     * 创建执行阻塞调用（数字生命的一轮循环、LLM同步调用）的工作执行器
+     * 线程用满时任务排队等待而不是被拒绝
+     * @param preferVirtualThreads 是否优先使用虚拟线程
+     * @param poolSize 线程池大小（不支持虚拟线程时生效）
+     * @param threadPrefix 线程名前缀
+     * @return 执行器
+     */
+    public static ExecutorService createWorkers(boolean preferVirtualThreads, int poolSize, String threadPrefix) {
+        ExecutorService virtual = preferVirtualThreads ? tryVirtualThreads() : null;
+        if (virtual != null) {
+            log.info("{}执行器：虚拟线程", threadPrefix);
+            return virtual;
+        }
+        log.info("{}执行器：线程池（大小 {}）", threadPrefix, poolSize);
+        return new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), namedThreadFactory(threadPrefix));
+    }
+
+    private static ExecutorService tryVirtualThreads() {
+        try {
+            // 通过反射调用，保证在Java 17下也能编译运行
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.debug("当前JVM不支持虚拟线程");
+            return null;
+        }
+    }
+
+    private static ThreadFactory namedThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger(1);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,153 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.springaichatstarter.dto.ChatResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 数字生命实例
+ * 每个实例拥有独立的ID、状态作用域、运行标记和循环节奏策略，由引擎按tick调度驱动
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public class DigitalLifeAgent {
+
+    private final String agentId;
+
+    private final AgentState state;
+
+    private final long startedAt = System.currentTimeMillis();
+
+    private final TickPolicy tickPolicy;
+
+    // 已执行步数
+    private final AtomicLong steps = new AtomicLong();
+
+    // 已执行循环轮数（包括异常的轮次）
+    private final AtomicLong loops = new AtomicLong();
+
+    // 已完成任务数
+    private final AtomicLong tasksCompleted = new AtomicLong();
+
+    // 是否运行中
+    private volatile boolean running = true;
+
+    // 已调度、尚未开始的下一轮
+    private volatile Future<?> future;
+
+    // 流水线模式下预先规划的下一步
+    private final AtomicReference<SpeculativePlan> speculativePlan = new AtomicReference<>();
+
+    public DigitalLifeAgent(String agentId, AgentState state, TickPolicy tickPolicy) {
+        this.agentId = agentId;
+        this.state = state;
+        this.tickPolicy = tickPolicy;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public AgentState getState() {
+        return state;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    public long getSteps() {
+        return steps.get();
+    }
+
+    public void incrementSteps() {
+        steps.incrementAndGet();
+    }
+
+    public long getLoops() {
+        return loops.get();
+    }
+
+    public long incrementLoops() {
+        return loops.incrementAndGet();
+    }
+
+    public long getTasksCompleted() {
+        return tasksCompleted.get();
+    }
+
+    public long incrementTasksCompleted() {
+        return tasksCompleted.incrementAndGet();
+    }
+
+    public TickPolicy getTickPolicy() {
+        return tickPolicy;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 发送停止信号，当前步骤完成后停止
+     */
+    public void stop() {
+        running = false;
+    }
+
+    public Future<?> getFuture() {
+        return future;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public void setSpeculativePlan(SpeculativePlan plan) {
+        SpeculativePlan previous = speculativePlan.getAndSet(plan);
+        if (previous != null) {
+            previous.getResponse().cancel(false);
+        }
+    }
+
+    /**
+     * 取出预先规划的下一步（取出后清空）
+     * @return 预先规划，没有时返回null
+     */
+    public SpeculativePlan takeSpeculativePlan() {
+        return speculativePlan.getAndSet(null);
+    }
+
+    /**
+     * 预先规划的下一步：规划时的任务、步骤和LLM响应
+     */
+    public static class SpeculativePlan {
+
+        private final String task;
+
+        private final int step;
+
+        private final CompletableFuture<ChatResponse> response;
+
+        public SpeculativePlan(String task, int step, CompletableFuture<ChatResponse> response) {
+            this.task = task;
+            this.step = step;
+            this.response = response;
+        }
+
+        /**
+         * 是否仍适用于当前的任务和步骤
+         */
+        public boolean matches(String currentTask, int currentStep) {
+            return task.equals(currentTask) && step == currentStep;
+        }
+
+        public CompletableFuture<ChatResponse> getResponse() {
+            return response;
+        }
+    }
+}
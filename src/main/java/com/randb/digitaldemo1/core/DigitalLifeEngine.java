@@ -3,10 +3,18 @@ package com.randb.digitaldemo1.core;
 import com.alibaba.fastjson.JSONObject;
 import com.randb.digitaldemo1.config.DigitalLifeConfig;
 import com.randb.digitaldemo1.config.SpringAIChatStarterConfig;
+import com.randb.digitaldemo1.entity.ActionPlan;
 import com.randb.digitaldemo1.entity.Prompt;
+import com.randb.digitaldemo1.entity.ResponseClassification;
+import com.randb.digitaldemo1.entity.ResponseView;
+import com.randb.digitaldemo1.entity.ThroughputSnapshot;
 import com.randb.digitaldemo1.service.ActionFormatter;
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.digitaldemo1.service.PromptComposer;
 import com.randb.digitaldemo1.service.StateManager;
+import com.randb.digitaldemo1.service.StepHistory;
 import com.randb.digitaldemo1.service.TaskCompletionJudge;
+import com.randb.digitaldemo1.service.TaskSelector;
 
 import com.randb.springaichatstarter.core.ChatModelFactory;
 import com.randb.springaichatstarter.core.ChatService;
@@ -14,20 +22,32 @@ import com.randb.springaichatstarter.dto.ChatRequest;
 import com.randb.springaichatstarter.dto.ChatResponse;
 import lombok.extern.slf4j.Slf4j;
 
-import org.slf4j.Marker;
-import org.slf4j.MarkerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Arrays;
-import java.util.Random;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 数字生命核心引擎
- * 实现完整的数字生命循环逻辑
+ * 实现完整的数字生命循环逻辑，支持多个数字生命并发运行，每个数字生命拥有独立的ID、状态作用域和循环
  * @author: randb
  * @date: 2025-08-22
  */
@@ -45,196 +65,400 @@ public class DigitalLifeEngine {
     private TaskCompletionJudge taskCompletionJudge;
     @Autowired
     private SpringAIChatStarterConfig springAIChatStarterConfig;
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+    @Autowired
+    private EngineThroughput engineThroughput;
+    @Autowired
+    private EngineMetrics engineMetrics;
+    @Autowired
+    private PromptComposer promptComposer;
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    @Autowired
+    private TaskSelector taskSelector;
 
+    // 运行中的数字生命（agentId -> 数字生命实例）
+    private final Map<String, DigitalLifeAgent> agents = new ConcurrentHashMap<>();
 
-    private final Random random = new Random();
-    
-    // 数字生命是否运行中
-    private volatile boolean isRunning = false;
+    // 数字生命ID序号
+    private final AtomicInteger agentSequence = new AtomicInteger();
+
+    // 执行数字生命每一轮循环（任务选择、任务完成判断）的执行器
+    private ExecutorService agentExecutor;
+
+    // 调度数字生命下一轮循环的定时器，等待期间不占用执行线程
+    private ScheduledExecutorService tickScheduler;
+
+    // 执行LLM同步调用（规划、动作格式化）的执行器，动作的HTTP请求由非阻塞客户端执行
+    private ExecutorService llmExecutor;
+
+    // 在LLM执行器上执行任务时传递日志MDC
+    private Executor llmTasks;
+
+    @PostConstruct
+    public void init() {
+        DigitalLifeConfig.Agent agentConfig = digitalLifeConfig.getAgent();
+        agentExecutor = AgentExecutors.createWorkers(agentConfig.isVirtualThreads(), agentConfig.getPoolSize(), "digital-life-");
+        tickScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "digital-life-tick");
+            thread.setDaemon(true);
+            return thread;
+        });
+        llmExecutor = AgentExecutors.createWorkers(agentConfig.isVirtualThreads(), agentConfig.getPoolSize(), "llm-worker-");
+        llmTasks = LogChannels.withMdc(llmExecutor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopDigitalLife();
+        tickScheduler.shutdownNow();
+        agentExecutor.shutdownNow();
+        llmExecutor.shutdownNow();
+    }
     
     /**
-     * 启动数字生命
+     * 启动数字生命（按配置的数量启动）
      */
     public void startDigitalLife() {
-        if (isRunning) {
+        if (isRunning()) {
             log.warn("数字生命已经在运行中");
             return;
         }
-        
-        isRunning = true;
-        log.info("🚀 启动数字生命引擎...");
-        
-        // 设置ActionExecutor的状态管理器
-        ActionExecutor.setStateManager(stateManager);
-        
-        // 清空之前的状态
-        stateManager.clearAllStates();
-        
+
+        log.info(LogChannels.MAIN_FLOW, "🚀 启动数字生命引擎...");
+        engineThroughput.reset();
+        startAgents(Math.max(digitalLifeConfig.getAgent().getCount(), 1));
+    }
+
+    /**
+     * 批量启动数字生命
+     * @param count 启动数量
+     * @return 成功启动的数字生命ID列表
+     */
+    public List<String> startAgents(int count) {
+        List<String> started = new ArrayList<>();
+        int maxAgents = digitalLifeConfig.getAgent().getMaxAgents();
+        // 共享状态存储时部分ID已由其他节点运行，跳过这些ID继续尝试
+        int attempts = 0;
+        while (started.size() < count && agents.size() < maxAgents && !agentExecutor.isShutdown()
+                && attempts++ < count + maxAgents) {
+            String agentId = nextAgentId();
+            if (startAgent(agentId)) {
+                started.add(agentId);
+            }
+        }
+        log.info("本次启动数字生命 {} 个，当前运行 {} 个", started.size(), agents.size());
+        return started;
+    }
+
+    /**
+     * 启动指定ID的数字生命
+     * @param agentId 数字生命ID
+     * @return 是否启动成功
+     */
+    public boolean startAgent(String agentId) {
+        int maxAgents = digitalLifeConfig.getAgent().getMaxAgents();
+        if (agents.size() >= maxAgents) {
+            log.warn("运行中的数字生命已达上限 {}，拒绝启动: {}", maxAgents, agentId);
+            return false;
+        }
+
+        AgentState agentState = stateManager.getAgentState(agentId);
+        DigitalLifeAgent agent = new DigitalLifeAgent(agentId, agentState, TickPolicy.create(digitalLifeConfig.getLoop()));
+        if (agents.putIfAbsent(agentId, agent) != null) {
+            log.warn("数字生命 {} 已经在运行中", agentId);
+            return false;
+        }
+        if (!stateManager.acquireAgent(agentId)) {
+            agents.remove(agentId, agent);
+            log.info("数字生命 {} 正在其他节点上运行，跳过", agentId);
+            return false;
+        }
+
+        // 有保存的状态快照时从中断处继续，否则清空之前的状态
+        boolean resumed = stateManager.resumeOrReset(agentState);
+
+        log.info(LogChannels.MAIN_FLOW, "[{}] 数字生命{}，调度模式: {}", agentId, resumed ? "从保存的状态恢复运行" : "开始运行",
+                digitalLifeConfig.getLoop().getMode());
         try {
-            // 开始数字生命循环
-            digitalLifeLoop();
-        } catch (Exception e) {
-            log.error("数字生命运行异常: {}", e.getMessage(), e);
-        } finally {
-            isRunning = false;
-            log.info("🛑 数字生命引擎停止");
+            scheduleTick(agent, 0);
+            return true;
+        } catch (RejectedExecutionException e) {
+            log.warn("引擎已关闭，无法启动数字生命: {}", agentId);
+            finishAgent(agent);
+            return false;
         }
     }
+
+    /**
+     * 停止指定ID的数字生命
+     * @param agentId 数字生命ID
+     * @return 是否存在该数字生命
+     */
+    public boolean stopAgent(String agentId) {
+        DigitalLifeAgent agent = agents.get(agentId);
+        if (agent == null) {
+            return false;
+        }
+        stopAgent(agent);
+        log.info("[{}] 收到停止信号，数字生命将在当前步骤完成后停止", agentId);
+        return true;
+    }
     
     /**
-     * 停止数字生命
+     * 停止所有数字生命
      */
     public void stopDigitalLife() {
-        isRunning = false;
-        log.info("收到停止信号，数字生命将在当前任务完成后停止");
+        agents.values().forEach(this::stopAgent);
+        log.info("收到停止信号，数字生命将在当前步骤完成后停止");
     }
-    
+
     /**
-     * 数字生命主循环
+     * 发送停止信号；正在等待下一轮的数字生命直接取消调度并结束
      */
-    private void digitalLifeLoop() {
-        ChatService chatService = chatModelFactory.get(springAIChatStarterConfig.getModel());
-        int loopCount = 1;
-        
-        while (isRunning) {
-            try {
-                // 获取当前任务信息用于日志显示
-                String currentTaskForLog = stateManager.getCurrentTask();
-                Integer currentStepForLog = stateManager.getCurrentStep();
-                
-                if (currentTaskForLog != null) {
-                    log.info("\n========== 数字生命循环 第{}轮 ========== [任务: {} | 第{}步]", 
-                            loopCount, currentTaskForLog, currentStepForLog + 1);
-                } else {
-                    log.info("\n========== 数字生命循环 第{}轮 ========== [准备选择新任务]", loopCount);
-                }
-                
-                // 1. 选择任务（如果没有当前任务）
-                String currentTask = stateManager.getCurrentTask();
-                if (currentTask == null) {
-                    currentTask = selectRandomTask();
-                    if (currentTask == null) {
-                        // 没有可用任务，停止循环
-                        log.info("没有可用任务，数字生命停止运行");
-                        break;
-                    }
-                    stateManager.saveTaskProgress(currentTask, 0);
+    private void stopAgent(DigitalLifeAgent agent) {
+        agent.stop();
+        Future<?> pending = agent.getFuture();
+        if (pending != null && pending.cancel(false)) {
+            finishAgent(agent);
+        }
+    }
 
-                    // 清空上一个任务的响应状态，避免影响新任务的判断
-                    stateManager.removeState("last_response");
-                    stateManager.removeState("current_step_result");
-                    stateManager.removeState("next_step");
+    /**
+     * 生成下一个未被占用的数字生命ID
+     */
+    private String nextAgentId() {
+        String agentId;
+        do {
+            agentId = "digital-life-" + agentSequence.incrementAndGet();
+        } while (agents.containsKey(agentId));
+        return agentId;
+    }
 
-                    log.info("选择新任务: {}", currentTask);
-                    log.info("已清空上一任务的状态信息");
-                }
-                
-                // 2. 构建Prompt
-                Prompt prompt = buildPrompt(currentTask);
-                
-                // 3. 调用LLM
-                ChatRequest request = createChatRequest(prompt);
-                ChatResponse response = chatService.syncReply(request);
-                
-                // 4. 解析LLM响应
-                boolean taskCompleted = processLLMResponse(response, currentTask);
-                
-                // 5. 如果任务完成，清空当前任务状态，准备选择新任务
-                if (taskCompleted) {
-                    stateManager.removeState("current_task");
-                    stateManager.removeState("current_step");
-                    log.info("任务完成: {}", currentTask);
-                    log.info("准备从tasks.txt随机选择新任务...");
-                    
-                    // 短暂休息后开始新任务
-                    Thread.sleep(15000);
-                } else {
-                    // 任务未完成，继续下一步
-                    Thread.sleep(8000);
-                }
-                
-                loopCount++;
-                
-                // 防止无限循环，设置最大循环次数
-                if (loopCount > 100) {
-                    log.warn("达到最大循环次数，停止数字生命");
-                    break;
-                }
-                
-            } catch (Exception e) {
-                log.error("数字生命循环异常: {}", e.getMessage(), e);
-                try {
-                    Thread.sleep(10000); // 异常时等待更长时间
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+    /**
+     * 调度数字生命的下一轮循环：定时器到期后把这一轮交给执行器
+     */
+    private void scheduleTick(DigitalLifeAgent agent, long delayMillis) {
+        agent.setFuture(tickScheduler.schedule(() -> {
+            try {
+                agentExecutor.execute(() -> runTick(agent));
+            } catch (RejectedExecutionException e) {
+                finishAgent(agent);
             }
+        }, delayMillis, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 执行数字生命的一轮循环：LLM调用和动作执行异步进行，不占用执行线程；本轮完成后按节奏策略调度下一轮
+     */
+    private void runTick(DigitalLifeAgent agent) {
+        if (!agent.isRunning()) {
+            finishAgent(agent);
+            return;
+        }
+        if (!stateManager.ownsAgent(agent.getAgentId())) {
+            log.warn(LogChannels.MAIN_FLOW, "[{}] 租约已失效（可能已由其他节点接管），停止运行", agent.getAgentId());
+            finishAgent(agent);
+            return;
+        }
+
+        long loopCount = agent.incrementLoops();
+        long start = System.currentTimeMillis();
+        CompletableFuture<TickOutcome> outcome;
+        MDC.put(LogChannels.MDC_AGENT_ID, agent.getAgentId());
+        try {
+            outcome = executeLoop(agent, loopCount);
+        } catch (Exception e) {
+            outcome = CompletableFuture.failedFuture(e);
         }
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        MDC.clear();
+        outcome.whenComplete((result, error) ->
+                LogChannels.runWithMdc(context, () -> completeTick(agent, start, result, error)));
     }
-    
+
     /**
-     * 随机选择任务
+     * 一轮循环结束：保存状态，结束数字生命或调度下一轮
+     * @param outcome 本轮执行结果，没有可用任务或已失去租约时为null
+     * @param error 本轮的异常，正常完成时为null
      */
-    private String selectRandomTask() {
+    private void completeTick(DigitalLifeAgent agent, long start, TickOutcome outcome, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            log.error("[{}] 数字生命循环异常: {}", agent.getAgentId(), cause.getMessage(), cause);
+            engineThroughput.recordError();
+            engineMetrics.recordLoopError();
+            outcome = TickOutcome.failed(System.currentTimeMillis() - start);
+        }
+        stateManager.saveAgentState(agent.getState());
+
+        if (outcome == null || !agent.isRunning() || reachedLimit(agent)) {
+            finishAgent(agent);
+            return;
+        }
+
         try {
-            String tasksContent = Files.readString(Paths.get("src/main/resources/tasks.txt"));
-            if (tasksContent == null || tasksContent.trim().isEmpty()) {
-                log.warn("tasks.txt文件为空，没有可执行的任务");
-                stopDigitalLife();
-                return null;
+            scheduleTick(agent, outcome.getWaitMs() > 0 ? outcome.getWaitMs() : agent.getTickPolicy().nextDelayMillis(outcome));
+        } catch (RejectedExecutionException e) {
+            finishAgent(agent);
+        }
+    }
+
+    /**
+     * 检查数字生命是否达到配置的循环轮数或任务数上限
+     */
+    private boolean reachedLimit(DigitalLifeAgent agent) {
+        DigitalLifeConfig.Loop loop = digitalLifeConfig.getLoop();
+        if (loop.getMaxLoops() > 0 && agent.getLoops() >= loop.getMaxLoops()) {
+            log.warn("[{}] 达到最大循环次数 {}，停止数字生命", agent.getAgentId(), loop.getMaxLoops());
+            return true;
+        }
+        if (loop.getMaxTasks() > 0 && agent.getTasksCompleted() >= loop.getMaxTasks()) {
+            log.info("[{}] 已完成 {} 个任务，停止数字生命", agent.getAgentId(), loop.getMaxTasks());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 数字生命结束运行：移除实例（多次调用只生效一次）
+     */
+    private void finishAgent(DigitalLifeAgent agent) {
+        agent.stop();
+        discardSpeculativePlan(agent, "数字生命停止");
+        if (agents.remove(agent.getAgentId(), agent)) {
+            stateManager.releaseAgent(agent.getAgentId());
+            log.info(LogChannels.MAIN_FLOW, "🛑 [{}] 数字生命停止，共执行 {} 步", agent.getAgentId(), agent.getSteps());
+        }
+    }
+    
+    /**
+     * 数字生命的一轮循环：选择任务 → 构建Prompt → 调用LLM → 执行动作 → 判断任务是否完成
+     * LLM调用在LLM执行器上进行，动作由非阻塞客户端执行，任务完成判断回到数字生命执行器
+     * @return 本轮执行结果，没有可用任务或已失去租约时结果为null
+     */
+    private CompletableFuture<TickOutcome> executeLoop(DigitalLifeAgent agent, long loopCount) {
+        long start = System.currentTimeMillis();
+        AgentState agentState = agent.getState();
+
+        // 获取当前任务信息用于日志显示
+        String currentTaskForLog = agentState.getCurrentTask();
+        int currentStepForLog = agentState.getCurrentStep();
+
+        if (currentTaskForLog != null) {
+            log.info("\n========== [{}] 数字生命循环 第{}轮 ========== [任务: {} | 第{}步]",
+                    agent.getAgentId(), loopCount, currentTaskForLog, currentStepForLog + 1);
+        } else {
+            log.info("\n========== [{}] 数字生命循环 第{}轮 ========== [准备选择新任务]", agent.getAgentId(), loopCount);
+        }
+
+        // 1. 选择任务（如果没有当前任务）
+        String currentTask = agentState.getCurrentTask();
+        if (currentTask == null) {
+            TaskSelector.Selection selection = taskSelector.next();
+            currentTask = selection.getTask();
+            if (currentTask == null && selection.getWaitMs() > 0) {
+                log.info("[{}] 所有任务都已达到频率限制，{}ms后重试", agent.getAgentId(), selection.getWaitMs());
+                return CompletableFuture.completedFuture(
+                        TickOutcome.waiting(System.currentTimeMillis() - start, selection.getWaitMs()));
             }
-            
-            String[] tasks = tasksContent.split("；");
-            
-            // 过滤空任务
-            String[] validTasks = Arrays.stream(tasks)
-                    .map(String::trim)
-                    .filter(task -> !task.isEmpty())
-                    .toArray(String[]::new);
-            
-            if (validTasks.length > 0) {
-                String selectedTask = validTasks[random.nextInt(validTasks.length)];
-                log.info("随机选择任务: {}", selectedTask);
-                return selectedTask;
-            } else {
-                log.warn("tasks.txt中没有有效的任务，停止数字生命");
-                stopDigitalLife();
-                return null;
+            if (currentTask == null) {
+                // 没有可用任务，停止循环
+                log.warn(LogChannels.MAIN_FLOW, "[{}] 没有可执行的任务（tasks.txt为空或配额已用完），数字生命停止运行",
+                        agent.getAgentId());
+                agent.stop();
+                return CompletableFuture.completedFuture(null);
             }
-        } catch (IOException e) {
-            log.error("读取任务文件失败: {}", e.getMessage(), e);
-            log.info("由于无法读取任务文件，停止数字生命服务");
-            stopDigitalLife();
-            return null;
+            engineMetrics.recordTaskSelected(currentTask);
+            // 记录新任务，并清空上一个任务的响应状态，避免影响新任务的判断
+            agentState.startTask(currentTask);
+
+            log.info(LogChannels.MAIN_FLOW, "[{}] 选择新任务: {}", agent.getAgentId(), currentTask);
+            log.info("已清空上一任务的状态信息");
+        }
+        agentState.saveLastResponseLatency(-1);
+        MDC.put(LogChannels.MDC_TASK, currentTask);
+        MDC.put(LogChannels.MDC_STEP, String.valueOf(agentState.getCurrentStep() + 1));
+
+        // 回调可能在LLM线程或HTTP客户端的I/O线程上触发，后续各阶段都使用本轮的MDC
+        Map<String, String> context = MDC.getCopyOfContextMap();
+        Executor agentTasks = LogChannels.withMdc(agentExecutor, context);
+        Executor planTasks = LogChannels.withMdc(llmExecutor, context);
+        String task = currentTask;
+
+        // 2-3. 构建Prompt并调用LLM（流水线模式下优先使用上一轮预先规划的结果）
+        CompletableFuture<ChatResponse> response = takeSpeculativePlan(agent, currentTask, planTasks);
+        if (response == null) {
+            response = requestPlanAsync(agent.getAgentId(), currentTask, agentState, planTasks);
+        }
+
+        // 4. 解析LLM响应并执行动作，5. 判断任务是否完成
+        return response.thenCompose(plan -> {
+            // 规划期间租约可能已失效（由其他节点接管），不再执行动作
+            if (!stateManager.ownsAgent(agent.getAgentId())) {
+                log.warn(LogChannels.MAIN_FLOW, "[{}] 租约已失效，放弃本步骤并停止运行", agent.getAgentId());
+                agent.stop();
+                return CompletableFuture.completedFuture(null);
+            }
+            return processLLMResponse(plan, task, agent, agentTasks, planTasks)
+                    .thenApply(taskCompleted -> completeStep(agent, task, taskCompleted, start));
+        });
+    }
+
+    /**
+     * 记录本轮步骤；任务完成时清空当前任务状态，下一轮选择新任务
+     */
+    private TickOutcome completeStep(DigitalLifeAgent agent, String currentTask, boolean taskCompleted, long start) {
+        AgentState agentState = agent.getState();
+        agent.incrementSteps();
+        engineThroughput.recordStep(System.currentTimeMillis() - start);
+        engineMetrics.recordStep();
+
+        if (taskCompleted) {
+            int taskSteps = agentState.getCurrentStep();
+            engineMetrics.recordTaskCompleted(taskSteps);
+            agentState.completeTask();
+            agent.incrementTasksCompleted();
+            engineThroughput.recordTaskCompleted();
+            log.info(LogChannels.MAIN_FLOW, "[{}] 任务完成: {}（{}步）", agent.getAgentId(), currentTask, taskSteps);
+            log.info("准备选择新任务...");
         }
+
+        // 命中动作响应缓存时后端没有处理请求，不参与自适应节奏的耗时估计
+        long backendLatencyMs = agentState.isLastResponseCached() ? -1 : agentState.getLastResponseLatencyMs();
+        return new TickOutcome(taskCompleted, false, System.currentTimeMillis() - start, backendLatencyMs, 0);
     }
     
     /**
      * 构建Prompt
      */
-    private Prompt buildPrompt(String currentTask) {
+    private Prompt buildPrompt(String currentTask, AgentState agentState) {
         Prompt prompt = new Prompt();
         
         // 设置基本信息
         prompt.setWhatIsMytask(currentTask);
         
         // 设置我刚刚做了什么（包含任务进度信息和数据内容）
-        String lastResponse = stateManager.getLastResponse();
-        Integer currentStep = stateManager.getCurrentStep();
+        ResponseView lastResponseView = agentState.getLastResponseView();
+        String lastResponse = lastResponseView.getRaw();
+        Integer currentStep = agentState.getCurrentStep();
 
         if (lastResponse != null) {
             // 分析响应内容，提供更好的上下文
-            String contextInfo = analyzeLastResponse(lastResponse, currentTask, currentStep);
+            String contextInfo = analyzeLastResponse(lastResponse, agentState.getLastResponseClass(), currentTask, currentStep);
 
             // 提取关键数据信息
-            String dataInfo = extractKeyDataFromResponse(lastResponse);
-            log.info("调试：extractKeyDataFromResponse 返回结果: {}", dataInfo);
+            String dataInfo = extractKeyDataFromResponse(lastResponseView);
+            LogChannels.PAYLOAD.debug("extractKeyDataFromResponse 返回结果: {}", dataInfo);
             if (dataInfo != null) {
                 contextInfo += "\n" + dataInfo;
-                log.info("调试：已添加数据信息到上下文");
-            } else {
-                log.info("调试：数据信息为null，未添加到上下文");
+            }
+
+            // 本任务已执行的请求，避免重复获取已有的数据
+            StepHistory stepHistory = agentState.getStepHistory();
+            if (!stepHistory.isEmpty()) {
+                contextInfo += "\n本任务已执行的请求：\n" + stepHistory.render();
             }
 
             prompt.setWhatDidIJustDo(contextInfo);
@@ -243,7 +467,7 @@ public class DigitalLifeEngine {
         }
         
         // 设置下一步指导
-        String guidance = buildGuidance(currentTask, currentStep, lastResponse);
+        String guidance = buildGuidance(currentTask, currentStep, lastResponse, agentState);
         prompt.setWhatNow(guidance);
         
         return prompt;
@@ -252,7 +476,7 @@ public class DigitalLifeEngine {
     /**
      * 分析上一步响应，提供更好的上下文（通用方法）
      */
-    private String analyzeLastResponse(String response, String currentTask, Integer currentStep) {
+    private String analyzeLastResponse(String response, ResponseClassification analysis, String currentTask, Integer currentStep) {
         try {
             // 如果没有响应，说明是新任务的开始
             if (response == null || response.trim().isEmpty()) {
@@ -262,13 +486,10 @@ public class DigitalLifeEngine {
             // 构建基础上下文
             String baseContext = String.format("任务: %s，当前第%d步", currentTask, currentStep + 1);
 
-            // 通用的响应分析
-            ResponseAnalysis analysis = analyzeResponseContent(response);
-
-            // 根据分析结果构建上下文
+            // 根据保存响应时的分类结果构建上下文
             if (analysis.isSuccess()) {
                 String actionDescription = extractActionDescription(response, currentTask);
-                if (analysis.hasData()) {
+                if (analysis.isHasData()) {
                     return baseContext + String.format("，上一步成功%s，获得了数据，可以继续下一步或完成任务", actionDescription);
                 } else {
                     return baseContext + String.format("，上一步成功%s", actionDescription);
@@ -284,38 +505,6 @@ public class DigitalLifeEngine {
         }
     }
 
-    /**
-     * 通用的响应内容分析
-     */
-    private ResponseAnalysis analyzeResponseContent(String response) {
-        if (response == null) {
-            return new ResponseAnalysis(false, false, false);
-        }
-
-        // 检查是否成功
-        boolean isSuccess = response.contains("成功") ||
-                           response.contains("success") ||
-                           response.contains("code\":10001") ||
-                           response.contains("\"code\":10001");
-
-        // 检查是否有错误
-        boolean isError = response.contains("错误") ||
-                         response.contains("失败") ||
-                         response.contains("error") ||
-                         response.contains("code\":10002") ||
-                         response.contains("\"code\":10002");
-
-        // 检查是否包含数据（通用数据特征）
-        boolean hasData = response.contains("data") ||
-                         response.contains("postId") ||
-                         response.contains("userId") ||
-                         response.contains("id") ||
-                         response.contains("list") ||
-                         response.contains("items");
-
-        return new ResponseAnalysis(isSuccess, isError, hasData);
-    }
-
     /**
      * 从响应中提取动作描述（基于任务名称推断）
      */
@@ -336,39 +525,17 @@ public class DigitalLifeEngine {
         }
     }
 
-    /**
-     * 响应分析结果类
-     */
-    private static class ResponseAnalysis {
-        private final boolean success;
-        private final boolean error;
-        private final boolean hasData;
-
-        public ResponseAnalysis(boolean success, boolean error, boolean hasData) {
-            this.success = success;
-            this.error = error;
-            this.hasData = hasData;
-        }
-
-        public boolean isSuccess() { return success; }
-        public boolean isError() { return error; }
-        public boolean hasData() { return hasData; }
-    }
-
     /**
      * 从响应中提取关键数据信息（完全通用方法）
      */
-    private String extractKeyDataFromResponse(String response) {
+    private String extractKeyDataFromResponse(ResponseView responseView) {
         try {
-            if (response == null || response.trim().isEmpty()) {
-                return null;
-            }
-
-            // 尝试解析JSON响应
-            JSONObject responseObj = JSONObject.parseObject(response);
+            // 使用保存响应时已解析的JSON
+            JSONObject responseObj = responseView.getJson();
             if (responseObj == null) {
                 return null;
             }
+            String response = responseView.getRaw();
 
             // 检查是否有data字段
             Object dataObj = responseObj.get("data");
@@ -377,17 +544,16 @@ public class DigitalLifeEngine {
                 Object msgObj = responseObj.get("msg");
                 String msg = msgObj != null ? msgObj.toString() : null;
 
-                log.info("调试：检测到data为null，msg: {}", msg);
+                log.debug("检测到data为null，msg: {}", msg);
 
                 if (msg != null && !msg.trim().isEmpty()) {
                     // 有msg说明是操作成功的响应，data为null是正常的
-                    log.info("调试：有msg内容，这是操作成功响应，data为null正常");
+                    log.debug("有msg内容，这是操作成功响应，data为null正常");
                     return "上一步获得的数据：\n```json\n" + response + "\n```\n\n操作成功：" + msg + "\n请基于操作结果进行下一步操作";
                 } else {
                     // 没有msg说明是查询无结果，应该结束任务
-                    log.info("调试：无msg内容，这是查询无结果，建议结束任务");
+                    log.debug("无msg内容，这是查询无结果，建议结束任务");
                     String emptyDataMessage = "上一步获得的数据：\n```json\n" + response + "\n```\n\n重要：查询成功但无数据返回，表示没有更多数据可处理\n建议将任务标记为完成(yes)，然后选择新任务";
-                    log.info("调试：空数据提示内容: {}", emptyDataMessage);
                     return emptyDataMessage;
                 }
             }
@@ -459,43 +625,15 @@ public class DigitalLifeEngine {
         }
     }
 
-    /**
-     * 检查响应是否为空数据（完全通用方法）
-     */
-    private boolean isEmptyDataResponse(String response) {
-        try {
-            if (response == null || response.trim().isEmpty()) {
-                return false;
-            }
-
-            JSONObject responseObj = JSONObject.parseObject(response);
-            if (responseObj == null) {
-                return false;
-            }
-
-            // 通用检查：data字段是否为null，且msg为空（表示查询无结果）
-            Object dataObj = responseObj.get("data");
-            Object msgObj = responseObj.get("msg");
-            String msg = msgObj != null ? msgObj.toString() : null;
-
-            // 只有当data为null且msg为空时，才认为是查询无结果
-            return dataObj == null && (msg == null || msg.trim().isEmpty());
-
-        } catch (Exception e) {
-            log.debug("检查空数据响应失败: {}", e.getMessage());
-            return false;
-        }
-    }
-    
     /**
      * 构建任务指导（通用方法，不依赖特例化）
      */
-    private String buildGuidance(String currentTask, Integer currentStep, String lastResponse) {
+    private String buildGuidance(String currentTask, Integer currentStep, String lastResponse, AgentState agentState) {
+        ResponseClassification responseClass = agentState.getLastResponseClass();
         try {
             // 优先使用LLM1自己提供的下一步指令
-            Object nextStepObj = stateManager.getState("next_step");
-            if (nextStepObj != null) {
-                String nextStepFromLLM = nextStepObj.toString();
+            String nextStepFromLLM = agentState.getNextStep();
+            if (nextStepFromLLM != null) {
                 if (!nextStepFromLLM.trim().isEmpty()) {
                     log.info("使用LLM1提供的下一步指令: {}", nextStepFromLLM);
                     return nextStepFromLLM;
@@ -510,9 +648,9 @@ public class DigitalLifeEngine {
             // 如果有上一步的响应，分析响应结果
             if (lastResponse != null && !lastResponse.trim().isEmpty()) {
                 // 检查成功标识
-                if (isSuccessResponse(lastResponse)) {
+                if (responseClass.isSuccess()) {
                     // 通用检查：如果响应成功但数据为空，强烈建议结束任务
-                    if (isEmptyDataResponse(lastResponse)) {
+                    if (responseClass.isEmptyData()) {
                         return String.format("重要：任务 '%s' 已经没有更多数据可处理，请立即将任务标记为完成(yes)", currentTask);
                     }
                     // 通用的成功处理，让LLM自己判断下一步
@@ -520,7 +658,7 @@ public class DigitalLifeEngine {
                 }
 
                 // 检查错误标识
-                if (isErrorResponse(lastResponse)) {
+                if (responseClass.isError()) {
                     return String.format("任务 '%s' 上一步遇到错误，请分析错误原因并重试或调整策略", currentTask);
                 }
             }
@@ -535,119 +673,169 @@ public class DigitalLifeEngine {
     }
 
     /**
-     * 检查响应是否表示成功
+     * 在LLM执行器上规划当前步骤
      */
-    private boolean isSuccessResponse(String response) {
-        if (response == null) return false;
+    private CompletableFuture<ChatResponse> requestPlanAsync(String agentId, String currentTask, AgentState agentState,
+                                                             Executor planTasks) {
+        return CompletableFuture.supplyAsync(() -> requestPlan(agentId, currentTask, agentState), planTasks);
+    }
 
-        return response.contains("成功") ||
-               response.contains("success") ||
-               response.contains("code\":10001") ||
-               response.contains("登录成功") ||
-               response.contains("发帖成功") ||
-               response.contains("完成");
+    /**
+     * 构建Prompt并调用LLM规划当前步骤
+     */
+    private ChatResponse requestPlan(String agentId, String currentTask, AgentState agentState) {
+        Prompt prompt = buildPrompt(currentTask, agentState);
+        ChatService chatService = chatModelFactory.get(springAIChatStarterConfig.getModel());
+        ChatRequest request = createChatRequest(prompt, agentId);
+        return llmResponseCache.reply(EngineMetrics.CALLER_PLANNER, request,
+                () -> engineMetrics.timeLlmCall(EngineMetrics.CALLER_PLANNER, () -> chatService.syncReply(request)));
     }
 
     /**
-     * 检查响应是否表示错误
+     * 流水线模式：动作执行完、状态更新且规则无法判断任务是否完成时，在LLM执行器上预先规划下一步，
+     * 此时构建的Prompt与下一轮构建的完全相同，与LLM任务完成判断并发进行
      */
-    private boolean isErrorResponse(String response) {
-        if (response == null) return false;
+    private void startSpeculativePlan(DigitalLifeAgent agent, String currentTask) {
+        AgentState agentState = agent.getState();
+        int nextStep = agentState.getCurrentStep();
+        CompletableFuture<ChatResponse> plan = requestPlanAsync(agent.getAgentId(), currentTask, agentState, llmTasks);
+        agent.setSpeculativePlan(new DigitalLifeAgent.SpeculativePlan(currentTask, nextStep, plan));
+        log.debug("[{}] 预先规划下一步: {} 第{}步", agent.getAgentId(), currentTask, nextStep + 1);
+    }
 
-        return response.contains("错误") ||
-               response.contains("失败") ||
-               response.contains("error") ||
-               response.contains("code\":10002") ||
-               response.contains("异常");
+    /**
+     * 取出与当前任务、步骤一致的预先规划结果；不一致时返回null，由调用方重新规划；规划失败时重新规划
+     */
+    private CompletableFuture<ChatResponse> takeSpeculativePlan(DigitalLifeAgent agent, String currentTask,
+                                                                Executor planTasks) {
+        DigitalLifeAgent.SpeculativePlan plan = agent.takeSpeculativePlan();
+        if (plan == null) {
+            return null;
+        }
+        if (!plan.matches(currentTask, agent.getState().getCurrentStep())) {
+            plan.getResponse().cancel(false);
+            return null;
+        }
+        log.info("[{}] 使用预先规划的下一步", agent.getAgentId());
+        AgentState agentState = agent.getState();
+        return plan.getResponse().exceptionallyCompose(e -> {
+            log.warn("[{}] 预先规划失败，重新规划: {}", agent.getAgentId(), e.getMessage());
+            return requestPlanAsync(agent.getAgentId(), currentTask, agentState, planTasks);
+        });
     }
 
+    /**
+     * 作废预先规划的下一步
+     * @param reason 作废原因（任务已完成、数字生命停止）
+     */
+    private void discardSpeculativePlan(DigitalLifeAgent agent, String reason) {
+        DigitalLifeAgent.SpeculativePlan plan = agent.takeSpeculativePlan();
+        if (plan != null) {
+            plan.getResponse().cancel(false);
+            log.info("[{}] {}，丢弃预先规划的下一步", agent.getAgentId(), reason);
+        }
+    }
 
-    
     /**
      * 创建聊天请求
      */
-    private ChatRequest createChatRequest(Prompt prompt) {
+    private ChatRequest createChatRequest(Prompt prompt, String agentId) {
         ChatRequest request = new ChatRequest();
         request.setRequestId(String.valueOf(System.currentTimeMillis()));
-        request.setUserId("digital_life");
-        request.setSessionId("digital_life_session");
+        request.setUserId(agentId);
+        request.setSessionId(agentId + "_session");
         request.setModel(springAIChatStarterConfig.getModel());
         request.setStream(false);
-        request.setPrompt(prompt.printDescription() + prompt.toString());
+        request.setPrompt(promptComposer.compose(prompt));
+        MDC.put(LogChannels.MDC_REQUEST_ID, request.getRequestId());
+        LogChannels.PAYLOAD.debug("规划Prompt: {}", request.getPrompt());
         
         return request;
     }
     
     /**
-     * 处理LLM响应
+     * 处理LLM响应：解析后异步执行动作，动作结果写入状态后在数字生命执行器上判断任务是否完成
+     * @return 任务是否完成；处理失败时为false
      */
-    private boolean processLLMResponse(ChatResponse response, String currentTask) {
+    private CompletableFuture<Boolean> processLLMResponse(ChatResponse response, String currentTask, DigitalLifeAgent agent,
+                                                          Executor agentTasks, Executor planTasks) {
+        AgentState agentState = agent.getState();
+        ActionPlan plan;
+        CompletableFuture<Boolean> action;
         try {
-            log.info("LLM响应: {}", response.getContent());
-            
-            JSONObject responseObj = JSONObject.parseObject(response.getContent());
-            
-            // 提取动作指令
-            Object actionInstructionObj = responseObj.get("动作指令（whatCanIDo选一个，只能选一个最佳的动作，JSON格式输出完整描述key-动作value）");
-            if (actionInstructionObj == null) {
-                // 尝试其他可能的字段名
-                actionInstructionObj = responseObj.get("动作指令");
-            }
-            
-            if (actionInstructionObj != null) {
-                String rawActionInstruction = null;
-                
-                // 提取原始动作指令
-                if (actionInstructionObj instanceof String) {
-                    rawActionInstruction = (String) actionInstructionObj;
-                } else {
-                    rawActionInstruction = actionInstructionObj.toString();
-                }
-                
-                if (rawActionInstruction != null && !rawActionInstruction.equals("null") && !rawActionInstruction.equals("")) {
-                    log.info("原始动作指令: {}", rawActionInstruction);
+            LogChannels.PAYLOAD.debug("LLM响应: {}", response.getContent());
 
-                    // 使用智能处理：先尝试直接执行，失败后再格式化
-                    boolean success = actionFormatter.smartProcessAction(rawActionInstruction, currentTask);
+            // LLM响应只解析一次，后续格式化、执行都使用解析结果
+            plan = ActionPlan.parse(response.getContent());
+            if (plan.hasAction()) {
+                LogChannels.PAYLOAD.debug("原始动作指令: {}", plan.getActionText());
 
-                    if (!success) {
-                        log.warn("动作指令处理失败，跳过执行");
-                    }
-                }
+                // 使用智能处理：先尝试直接执行，失败后再格式化
+                // HTTP请求异步执行，结果写入状态后再进行任务完成判断
+                action = actionFormatter.smartProcessActionAsync(plan, currentTask, agentState, planTasks);
+            } else {
+                action = CompletableFuture.completedFuture(true);
             }
-            
-            // 提取其他信息（兼容多种字段名格式）
-            String nextStep = responseObj.getString("下一步指令");
-            if (nextStep == null) {
-                nextStep = responseObj.getString("下一步指令（输出指令指导下游LLM，不要重复包括这次的动作）");
+        } catch (Exception e) {
+            log.error("处理LLM响应失败: {}", e.getMessage(), e);
+            return CompletableFuture.completedFuture(false);
+        }
+
+        return action.thenApplyAsync(success -> judgeStep(plan, success, currentTask, agent), agentTasks);
+    }
+
+    /**
+     * 动作执行完成后更新步骤状态，并判断任务是否完成
+     */
+    private boolean judgeStep(ActionPlan plan, boolean success, String currentTask, DigitalLifeAgent agent) {
+        AgentState agentState = agent.getState();
+        try {
+            if (!success) {
+                log.warn("动作指令处理失败，跳过执行");
             }
 
-            String currentStepResult = responseObj.getString("当前这一步理想执行结果");
-            String isTaskDone = responseObj.getString("执行完当前这一步任务是否完成(yes/no)");
-            
+            String nextStep = plan.getNextStep();
+            String currentStepResult = plan.getCurrentStepResult();
+            String isTaskDone = plan.getTaskDone();
+
             log.info("当前步骤结果: {}", currentStepResult);
             log.info("下一步指令: {}", nextStep);
             log.info("任务是否完成: {}", isTaskDone);
             
             // 更新状态
             if (currentStepResult != null) {
-                stateManager.saveState("current_step_result", currentStepResult);
+                agentState.saveCurrentStepResult(currentStepResult);
             }
             if (nextStep != null) {
-                stateManager.saveState("next_step", nextStep);
+                agentState.saveNextStep(nextStep);
             }
             
             // 更新步骤计数
-            Integer currentStep = stateManager.getCurrentStep();
-            stateManager.saveTaskProgress(currentTask, currentStep + 1);
+            Integer currentStep = agentState.getCurrentStep();
+            agentState.saveTaskProgress(currentTask, currentStep + 1);
             
-            // 使用专门的任务完成判断服务
-            String executionHistory = taskCompletionJudge.buildExecutionHistory(currentTask, currentStep + 1, currentStepResult);
-            String lastResponse = stateManager.getLastResponse();
-            boolean shouldComplete = taskCompletionJudge.shouldCompleteTask(currentTask, executionHistory, lastResponse);
+            // 使用专门的任务完成判断服务：先用本地规则判断，命中时不需要规划下一步
+            if (taskCompletionJudge.applyRules(currentTask, agentState) != null) {
+                log.info("专门判断服务结果: true（规则）, 原LLM判断: {}", isTaskDone);
+                return true;
+            }
+
+            // 流水线模式：规则无法判断时，LLM判断与下一步规划并发进行
+            if (digitalLifeConfig.getLoop().isPipelined()) {
+                startSpeculativePlan(agent, currentTask);
+            }
+
+            String executionHistory = taskCompletionJudge.buildExecutionHistory(
+                    currentTask, currentStep + 1, currentStepResult, agentState.getStepHistory());
+            boolean shouldComplete = taskCompletionJudge.judgeByLlm(currentTask, agentState, executionHistory);
 
             log.info("专门判断服务结果: {}, 原LLM判断: {}", shouldComplete, isTaskDone);
 
+            // 任务已完成，预先规划的下一步作废
+            if (shouldComplete) {
+                discardSpeculativePlan(agent, "任务已完成");
+            }
+
             // 优先使用专门判断服务的结果
             return shouldComplete;
             
@@ -658,10 +846,24 @@ public class DigitalLifeEngine {
     }
     
     /**
-     * 获取数字生命运行状态
+     * 获取数字生命运行状态（任一数字生命运行中即为运行中）
      */
     public boolean isRunning() {
-        return isRunning;
+        return !agents.isEmpty();
+    }
+
+    /**
+     * 获取运行中的数字生命ID
+     */
+    public Collection<String> getRunningAgentIds() {
+        return Collections.unmodifiableSet(agents.keySet());
+    }
+
+    /**
+     * 获取引擎汇总吞吐量
+     */
+    public ThroughputSnapshot getThroughput() {
+        return engineThroughput.snapshot(agents.size());
     }
     
     /**
@@ -669,10 +871,16 @@ public class DigitalLifeEngine {
      */
     public String getStatusInfo() {
         StringBuilder status = new StringBuilder();
-        status.append("数字生命状态: ").append(isRunning ? "运行中" : "已停止").append("\n");
-        status.append("当前任务: ").append(stateManager.getCurrentTask()).append("\n");
-        status.append("当前步骤: ").append(stateManager.getCurrentStep()).append("\n");
-        status.append("登录状态: ").append(stateManager.hasState("login_token") ? "已登录" : "未登录").append("\n");
+        status.append("数字生命状态: ").append(isRunning() ? "运行中" : "已停止").append("\n");
+        status.append("运行数量: ").append(agents.size()).append("\n");
+        for (DigitalLifeAgent agent : agents.values()) {
+            AgentState agentState = agent.getState();
+            status.append("[").append(agent.getAgentId()).append("] ");
+            status.append("当前任务: ").append(agentState.getCurrentTask()).append("，");
+            status.append("当前步骤: ").append(agentState.getCurrentStep()).append("，");
+            status.append("已执行: ").append(agent.getSteps()).append("步，");
+            status.append("登录状态: ").append(agentState.hasLoginToken() ? "已登录" : "未登录").append("\n");
+        }
         return status.toString();
     }
 }
@@ -0,0 +1,190 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.springaichatstarter.dto.ChatResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 引擎指标（Micrometer）
+ * 记录数字生命循环各环节的耗时和次数，通过Actuator的 /actuator/prometheus 导出：
+ * LLM调用耗时（按调用方）、HTTP请求耗时和状态码（按能力配置中的接口）、每个任务的步数、任务完成数、
+ * 动作格式化兜底次数、循环异常次数、任务完成判断各层级命中次数、动作响应和LLM响应缓存命中次数
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Component
+public class EngineMetrics {
+
+    /**
+     * LLM调用方
+     */
+    public static final String CALLER_PLANNER = "planner";
+    public static final String CALLER_FORMATTER = "formatter";
+    public static final String CALLER_JUDGE = "judge";
+
+    // 不在能力配置中的接口统一使用的标签值
+    private static final String OTHER_ENDPOINT = "other";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CapabilityRegistry capabilityRegistry;
+    @Autowired
+    private EngineThroughput engineThroughput;
+
+    private Counter steps;
+    private Counter tasksCompleted;
+    private Counter loopErrors;
+    private DistributionSummary stepsPerTask;
+
+    @PostConstruct
+    public void init() {
+        steps = Counter.builder("digital_life.steps")
+                .description("执行的步骤数")
+                .register(meterRegistry);
+        tasksCompleted = Counter.builder("digital_life.tasks.completed")
+                .description("完成的任务数")
+                .register(meterRegistry);
+        loopErrors = Counter.builder("digital_life.loop.errors")
+                .description("循环异常次数")
+                .register(meterRegistry);
+        stepsPerTask = DistributionSummary.builder("digital_life.task.steps")
+                .description("每个任务执行的步数")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 执行一次LLM调用并记录耗时、结果和引擎吞吐量中的调用次数
+     * @param caller 调用方（planner、formatter、judge）
+     * @param call LLM调用
+     * @return LLM响应，调用失败时异常原样抛出
+     */
+    public ChatResponse timeLlmCall(String caller, Supplier<ChatResponse> call) {
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            ChatResponse response = call.get();
+            success = true;
+            return response;
+        } finally {
+            engineThroughput.recordLlmCall();
+            recordLlmCall(caller, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * 记录一次LLM调用
+     * @param caller 调用方（planner、formatter、judge）
+     * @param nanos 耗时（纳秒）
+     * @param success 是否成功返回
+     */
+    public void recordLlmCall(String caller, long nanos, boolean success) {
+        Timer.builder("digital_life.llm.latency")
+                .description("LLM调用耗时")
+                .tag("caller", caller)
+                .tag("outcome", success ? "success" : "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次HTTP请求
+     * @param method HTTP方法
+     * @param url 请求URL（能力配置中的接口按路径作为接口标签，其他URL都记为other）
+     * @param statusCode HTTP状态码，请求未发出或无响应时为0
+     * @param latencyMs 耗时（毫秒）
+     */
+    public void recordHttpRequest(String method, String url, int statusCode, long latencyMs) {
+        Timer.builder("digital_life.http.latency")
+                .description("动作HTTP请求耗时")
+                .tag("method", method != null ? method.toUpperCase() : "GET")
+                .tag("endpoint", endpointOf(url))
+                .tag("status", statusCode > 0 ? String.valueOf(statusCode) : "none")
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 记录动作指令的执行方式
+     * @param path direct（直接执行）、formatter（格式化后执行）、failed（格式化后仍无法执行）
+     */
+    public void recordActionDispatch(String path) {
+        meterRegistry.counter("digital_life.action.dispatch", "path", path).increment();
+    }
+
+    /**
+     * 记录一次动作响应缓存查询
+     * @param result hit（命中）、miss（未命中）、revalidated（条件请求验证通过）
+     */
+    public void recordCacheLookup(String result) {
+        meterRegistry.counter("digital_life.http.cache", "result", result).increment();
+    }
+
+    /**
+     * 记录一次LLM响应缓存查询
+     * @param caller 调用方（planner、formatter、judge）
+     * @param result hit（命中）、miss（未命中）
+     */
+    public void recordLlmCacheLookup(String caller, String result) {
+        meterRegistry.counter("digital_life.llm.cache", "caller", caller, "result", result).increment();
+    }
+
+    /**
+     * 记录任务完成判断命中的层级
+     * @param tier 层级名称
+     */
+    public void recordJudgeTier(String tier) {
+        meterRegistry.counter("digital_life.judge.decisions", "tier", tier).increment();
+    }
+
+    /**
+     * 记录选择了一个新任务
+     * @param task 任务名称（来自tasks.txt，数量有限）
+     */
+    public void recordTaskSelected(String task) {
+        meterRegistry.counter("digital_life.task.selected", "task", task).increment();
+    }
+
+    /**
+     * 记录执行了一步
+     */
+    public void recordStep() {
+        steps.increment();
+    }
+
+    /**
+     * 记录完成了一个任务
+     * @param taskSteps 该任务执行的步数
+     */
+    public void recordTaskCompleted(int taskSteps) {
+        tasksCompleted.increment();
+        stepsPerTask.record(taskSteps);
+    }
+
+    /**
+     * 记录一次循环异常
+     */
+    public void recordLoopError() {
+        loopErrors.increment();
+    }
+
+    /**
+     * 接口标签：URL由LLM生成，只有能力配置中的接口使用路径，避免标签数量无限增长
+     */
+    private String endpointOf(String url) {
+        String endpoint = capabilityRegistry.findEndpoint(url);
+        return endpoint != null ? endpoint : OTHER_ENDPOINT;
+    }
+}
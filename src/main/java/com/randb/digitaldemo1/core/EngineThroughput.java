@@ -0,0 +1,89 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.entity.ThroughputSnapshot;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 引擎吞吐量统计
+ * 汇总所有数字生命的执行步数、LLM调用次数、每步耗时分布等，多线程下使用LongAdder避免竞争
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Component
+public class EngineThroughput {
+
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder llmCalls = new LongAdder();
+    private final LongAdder tasksCompleted = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram stepLatency = new LatencyHistogram();
+
+    // 统计起始时间
+    private volatile long since = System.currentTimeMillis();
+
+    /**
+     * 记录执行了一步
+     * @param elapsedMs 本步耗时（毫秒）
+     */
+    public void recordStep(long elapsedMs) {
+        steps.increment();
+        stepLatency.record(elapsedMs);
+    }
+
+    /**
+     * 记录一次LLM调用
+     */
+    public void recordLlmCall() {
+        llmCalls.increment();
+    }
+
+    /**
+     * 记录完成了一个任务
+     */
+    public void recordTaskCompleted() {
+        tasksCompleted.increment();
+    }
+
+    /**
+     * 记录一次循环异常
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * 重置统计
+     */
+    public void reset() {
+        steps.reset();
+        llmCalls.reset();
+        tasksCompleted.reset();
+        errors.reset();
+        stepLatency.reset();
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取当前吞吐量快照
+     * @param runningAgents 运行中的数字生命数量
+     * @return 吞吐量快照
+     */
+    public ThroughputSnapshot snapshot(int runningAgents) {
+        double elapsedSeconds = Math.max(System.currentTimeMillis() - since, 1) / 1000.0;
+
+        ThroughputSnapshot snapshot = new ThroughputSnapshot();
+        snapshot.setRunningAgents(runningAgents);
+        snapshot.setElapsedSeconds(elapsedSeconds);
+        snapshot.setSteps(steps.sum());
+        snapshot.setLlmCalls(llmCalls.sum());
+        snapshot.setTasksCompleted(tasksCompleted.sum());
+        snapshot.setErrors(errors.sum());
+        snapshot.setStepsPerSecond(snapshot.getSteps() / elapsedSeconds);
+        snapshot.setLlmCallsPerSecond(snapshot.getLlmCalls() / elapsedSeconds);
+        snapshot.setStepLatencyP50Ms(stepLatency.percentile(0.5));
+        snapshot.setStepLatencyP99Ms(stepLatency.percentile(0.99));
+        return snapshot;
+    }
+}
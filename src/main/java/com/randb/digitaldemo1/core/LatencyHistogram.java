@@ -0,0 +1,91 @@
+package com.randb.digitaldemo1.core;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 耗时直方图（毫秒）
+ * 100ms以内按1ms分桶，更大的值保留两位有效数字（误差不超过10%），桶数固定，记录时不分配对象
+ * @author: randb
+ * @date: 2026-10-17
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR_BUCKETS = 100;
+
+    private static final int BUCKETS_PER_DECADE = 90;
+
+    // 覆盖到10^10毫秒
+    private static final int MAX_SCALE = 8;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR_BUCKETS + MAX_SCALE * BUCKETS_PER_DECADE);
+
+    /**
+     * 记录一次耗时
+     * @param millis 耗时（毫秒），负数按0记录
+     */
+    void record(long millis) {
+        counts.incrementAndGet(indexOf(Math.max(millis, 0)));
+    }
+
+    /**
+     * 获取分位数
+     * @param quantile 分位（0~1）
+     * @return 所在桶的下界（毫秒），没有记录时返回0
+     */
+    long percentile(double quantile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max((long) Math.ceil(quantile * total), 1);
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return lowerBound(i);
+            }
+        }
+        return lowerBound(counts.length() - 1);
+    }
+
+    /**
+     * 清空记录
+     */
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    private static int indexOf(long millis) {
+        if (millis < LINEAR_BUCKETS) {
+            return (int) millis;
+        }
+        int scale = 0;
+        long mantissa = millis;
+        while (mantissa >= LINEAR_BUCKETS) {
+            mantissa /= 10;
+            scale++;
+        }
+        if (scale > MAX_SCALE) {
+            return LINEAR_BUCKETS + MAX_SCALE * BUCKETS_PER_DECADE - 1;
+        }
+        return LINEAR_BUCKETS + (scale - 1) * BUCKETS_PER_DECADE + (int) (mantissa - 10);
+    }
+
+    private static long lowerBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int offset = index - LINEAR_BUCKETS;
+        long value = offset % BUCKETS_PER_DECADE + 10;
+        for (int scale = offset / BUCKETS_PER_DECADE + 1; scale > 0; scale--) {
+            value *= 10;
+        }
+        return value;
+    }
+}
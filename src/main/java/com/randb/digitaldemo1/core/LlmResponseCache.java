@@ -0,0 +1,167 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.springaichatstarter.dto.ChatRequest;
+import com.randb.springaichatstarter.dto.ChatResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * LLM响应缓存
+ * 规划、格式化、任务完成判断的Prompt在不同数字生命、不同轮次之间经常几乎相同（同一任务、同一步骤、同样的指导），
+ * 按调用方开启后，Prompt去掉时间、耗时、长ID等易变内容后作为缓存键，有效期内相同的Prompt直接使用上次的输出，不再调用LLM。
+ * 所有数字生命共享，容量固定，超出时批量淘汰过期和最久未使用的记录
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+@Component
+public class LlmResponseCache {
+
+    public static final String RESULT_HIT = "hit";
+    public static final String RESULT_MISS = "miss";
+
+    // 超出容量时一次淘汰的比例，避免每次写入都扫描全部记录
+    private static final double EVICTION_RATIO = 0.1;
+
+    private static final Pattern DATE_TIME = Pattern.compile(
+            "\\d{4}-\\d{2}-\\d{2}(?:[ T]\\d{2}:\\d{2}(?::\\d{2}(?:\\.\\d+)?)?(?:Z|[+-]\\d{2}:?\\d{2})?)?");
+    private static final Pattern LATENCY = Pattern.compile("(?<!\\d)\\d+ms(?![a-zA-Z])");
+    private static final Pattern UUID = Pattern.compile(
+            "(?<![0-9a-fA-F])[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}(?![0-9a-fA-F])");
+    // 10位及以上的数字：时间戳、请求ID等
+    private static final Pattern LONG_NUMBER = Pattern.compile("(?<!\\d)\\d{10,}(?!\\d)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+    @Autowired
+    private EngineMetrics engineMetrics;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // 同一时间只有一个线程执行淘汰
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    /**
+     * 调用LLM，调用方开启了缓存时优先使用缓存的输出
+     * @param caller 调用方（planner、formatter、judge）
+     * @param request 对话请求
+     * @param call 实际调用LLM（包括调用方自己的耗时统计），只在未命中时执行
+     * @return LLM响应
+     */
+    public ChatResponse reply(String caller, ChatRequest request, Supplier<ChatResponse> call) {
+        DigitalLifeConfig.LlmCache config = digitalLifeConfig.getLlm().getCache();
+        if (!config.isEnabled() || !config.getCallers().contains(caller) || request.getPrompt() == null) {
+            return call.get();
+        }
+
+        String key = key(caller, request.getModel(), request.getPrompt());
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(key);
+        if (cached != null && now < cached.expiresAtMillis) {
+            cached.lastAccessMillis = now;
+            engineMetrics.recordLlmCacheLookup(caller, RESULT_HIT);
+            log.debug("LLM响应缓存命中: {}", caller);
+            ChatResponse response = new ChatResponse();
+            response.setContent(cached.content);
+            return response;
+        }
+
+        engineMetrics.recordLlmCacheLookup(caller, RESULT_MISS);
+        ChatResponse response = call.get();
+        if (response != null && response.getContent() != null && !response.getContent().isBlank()) {
+            entries.put(key, new Entry(response.getContent(), now, now + config.getTtlSeconds() * 1000L));
+            evictIfFull(config.getMaxEntries(), now);
+        }
+        return response;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 规范化Prompt：时间、耗时、UUID、长数字替换为占位符，连续空白合并为一个空格
+     */
+    static String normalize(String prompt) {
+        String text = DATE_TIME.matcher(prompt).replaceAll("<时间>");
+        text = LATENCY.matcher(text).replaceAll("<耗时>");
+        text = UUID.matcher(text).replaceAll("<ID>");
+        text = LONG_NUMBER.matcher(text).replaceAll("<ID>");
+        return WHITESPACE.matcher(text).replaceAll(" ").trim();
+    }
+
+    /**
+     * 缓存键：调用方+模型+规范化Prompt的摘要，不保存Prompt原文
+     */
+    private static String key(String caller, String model, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((caller + '\n' + model + '\n').getBytes(StandardCharsets.UTF_8));
+            digest.update(normalize(prompt).getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 超出容量时淘汰：先删除已过期的记录，仍超出时删除最久未使用的一批记录，淘汰后留出一部分空间
+     */
+    private void evictIfFull(int maxEntries, long now) {
+        int limit = Math.max(maxEntries, 1);
+        if (entries.size() <= limit || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> now >= entry.expiresAtMillis);
+            int target = limit - (int) (limit * EVICTION_RATIO);
+            int excess = entries.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+            long[] accessTimes = entries.values().stream().mapToLong(entry -> entry.lastAccessMillis).toArray();
+            Arrays.sort(accessTimes);
+            long threshold = accessTimes[Math.min(excess, accessTimes.length) - 1];
+            entries.values().removeIf(entry -> entry.lastAccessMillis <= threshold);
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * 缓存的LLM输出
+     */
+    private static final class Entry {
+
+        private final String content;
+        private final long expiresAtMillis;
+        private volatile long lastAccessMillis;
+
+        private Entry(String content, long lastAccessMillis, long expiresAtMillis) {
+            this.content = content;
+            this.lastAccessMillis = lastAccessMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
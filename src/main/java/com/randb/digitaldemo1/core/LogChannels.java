@@ -0,0 +1,87 @@
+package com.randb.digitaldemo1.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * 日志通道与MDC
+ * MAIN_FLOW标记数字生命启停、任务选择和完成等主流程事件，logback-spring.xml中单独输出为低频日志；
+ * Prompt、LLM响应、请求和响应内容等大段内容只通过PAYLOAD通道以DEBUG级别输出；
+ * MDC记录数字生命ID、任务、步骤和请求ID，跨线程执行时随任务一起传递
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class LogChannels {
+
+    /**
+     * 主流程事件标记
+     */
+    public static final Marker MAIN_FLOW = MarkerFactory.getMarker("MAINFLOW");
+
+    /**
+     * 大段内容日志（DEBUG级别，默认不输出，payload配置文件开启）
+     */
+    public static final Logger PAYLOAD = LoggerFactory.getLogger("digital-life.payload");
+
+    /**
+     * MDC键
+     */
+    public static final String MDC_AGENT_ID = "agentId";
+    public static final String MDC_TASK = "task";
+    public static final String MDC_STEP = "step";
+    public static final String MDC_REQUEST_ID = "requestId";
+
+    private LogChannels() {
+    }
+
+    /**
+     * 包装执行器：提交任务时的MDC在执行线程上恢复，执行完后还原
+     * @param delegate 执行器
+     * @return 传递MDC的执行器
+     */
+    public static Executor withMdc(Executor delegate) {
+        return command -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            delegate.execute(() -> runWithMdc(context, command));
+        };
+    }
+
+    /**
+     * 包装执行器：任务都在指定的MDC下执行（异步回调可能在I/O线程上提交，提交时的MDC不可靠）
+     * @param delegate 执行器
+     * @param context MDC内容
+     * @return 使用固定MDC的执行器
+     */
+    public static Executor withMdc(Executor delegate, Map<String, String> context) {
+        return command -> delegate.execute(() -> runWithMdc(context, command));
+    }
+
+    /**
+     * 在指定MDC下执行，执行完后还原线程原有的MDC
+     * @param context MDC内容，为null时清空
+     * @param command 任务
+     */
+    public static void runWithMdc(Map<String, String> context, Runnable command) {
+        Map<String, String> previous = MDC.getCopyOfContextMap();
+        setMdc(context);
+        try {
+            command.run();
+        } finally {
+            setMdc(previous);
+        }
+    }
+
+    private static void setMdc(Map<String, String> context) {
+        if (context != null) {
+            MDC.setContextMap(context);
+        } else {
+            MDC.clear();
+        }
+    }
+}
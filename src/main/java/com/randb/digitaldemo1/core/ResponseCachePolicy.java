@@ -0,0 +1,203 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.HttpRequestInfo;
+import com.randb.digitaldemo1.service.AgentState;
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.digitaldemo1.service.ResponseCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * 动作响应缓存策略
+ * 能力配置中设置了cache的接口按配置的时间缓存（不限HTTP方法，用于POST形式的只读接口），
+ * 未设置的GET接口按默认时间缓存，其余请求不缓存；响应的Cache-Control可以缩短（no-cache、max-age）或禁止（no-store）缓存，
+ * 过期后带ETag或Last-Modified的记录通过条件请求重新验证；写操作成功后删除同一URL的缓存
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Component
+public class ResponseCachePolicy {
+
+    /**
+     * 缓存查询结果
+     */
+    public static final String RESULT_HIT = "hit";
+    public static final String RESULT_MISS = "miss";
+    public static final String RESULT_REVALIDATED = "revalidated";
+
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+    @Autowired
+    private CapabilityRegistry capabilityRegistry;
+    @Autowired
+    private EngineMetrics engineMetrics;
+
+    /**
+     * 请求发出前查询缓存
+     * @param httpInfo HTTP请求信息
+     * @param agentState 数字生命状态
+     * @return 查询结果，缓存未启用时返回null
+     */
+    public Lookup lookup(HttpRequestInfo httpInfo, AgentState agentState) {
+        DigitalLifeConfig.HttpCache config = digitalLifeConfig.getHttpCache();
+        if (!config.isEnabled() || agentState == null) {
+            return null;
+        }
+
+        String method = httpInfo.getMethod() != null ? httpInfo.getMethod().toUpperCase(Locale.ROOT) : "GET";
+        Integer endpointTtl = capabilityRegistry.findCacheTtlSeconds(httpInfo.getUrl());
+        boolean cacheable = endpointTtl != null ? endpointTtl > 0 : "GET".equals(method);
+        Lookup lookup = new Lookup(agentState.getResponseCache(), httpInfo.getUrl(), method);
+        if (!cacheable) {
+            return lookup;
+        }
+
+        lookup.endpointConfigured = endpointTtl != null;
+        lookup.baseTtlSeconds = endpointTtl != null ? endpointTtl : config.getDefaultGetTtlSeconds();
+        Object body = httpInfo.getBody() != null ? httpInfo.getBody() : httpInfo.getBodyString();
+        lookup.key = ResponseCache.key(method, httpInfo.getUrl(), httpInfo.getParams(), body,
+                agentState.hasLoginToken() ? agentState.getLoginToken() : null);
+        lookup.cached = lookup.cache.get(lookup.key);
+        if (lookup.cached != null && lookup.cached.isFresh(System.currentTimeMillis())) {
+            lookup.hit = true;
+            engineMetrics.recordCacheLookup(RESULT_HIT);
+        }
+        return lookup;
+    }
+
+    /**
+     * 重新验证过期记录的条件请求头
+     */
+    public Map<String, String> conditionalHeaders(Lookup lookup) {
+        Map<String, String> headers = new LinkedHashMap<>(2);
+        ResponseCache.Entry cached = lookup.cached;
+        if (cached != null && !lookup.hit) {
+            if (cached.getEtag() != null) {
+                headers.put("If-None-Match", cached.getEtag());
+            }
+            if (cached.getLastModified() != null) {
+                headers.put("If-Modified-Since", cached.getLastModified());
+            }
+        }
+        return headers;
+    }
+
+    /**
+     * 收到响应后更新缓存
+     * @param lookup 请求发出前的查询结果
+     * @param statusCode HTTP状态码，请求失败时为0
+     * @param body 响应内容
+     * @param header 按名称读取响应头
+     * @return 304时返回重新验证通过的缓存记录（调用方使用其中的状态码和内容），否则返回null
+     */
+    public ResponseCache.Entry onResponse(Lookup lookup, int statusCode, String body, UnaryOperator<String> header) {
+        boolean success = statusCode >= 200 && statusCode < 300;
+        if (lookup.key == null) {
+            // 写操作成功后，同一URL的缓存不再可信
+            if (success && !"GET".equals(lookup.method) && !"HEAD".equals(lookup.method)) {
+                lookup.cache.invalidateUrl(lookup.url);
+            }
+            return null;
+        }
+
+        long now = System.currentTimeMillis();
+        if (statusCode == 304 && lookup.cached != null) {
+            engineMetrics.recordCacheLookup(RESULT_REVALIDATED);
+            long ttl = freshnessSeconds(lookup, header.apply("Cache-Control"));
+            ResponseCache.Entry refreshed = lookup.cached.withExpiry(now + Math.max(ttl, 0) * 1000);
+            lookup.cache.put(lookup.key, refreshed);
+            return refreshed;
+        }
+
+        engineMetrics.recordCacheLookup(RESULT_MISS);
+        if (!success) {
+            lookup.cache.remove(lookup.key);
+            return null;
+        }
+        long ttl = freshnessSeconds(lookup, header.apply("Cache-Control"));
+        String etag = header.apply("ETag");
+        String lastModified = header.apply("Last-Modified");
+        if (ttl > 0 || (ttl == 0 && (etag != null || lastModified != null))) {
+            lookup.cache.put(lookup.key, new ResponseCache.Entry(lookup.url, statusCode, body, etag, lastModified,
+                    now + ttl * 1000));
+        } else {
+            lookup.cache.remove(lookup.key);
+        }
+        return null;
+    }
+
+    /**
+     * 按配置和Cache-Control计算缓存时间（秒），-1表示不允许缓存
+     */
+    private static long freshnessSeconds(Lookup lookup, String cacheControl) {
+        long ttl = lookup.baseTtlSeconds;
+        if (cacheControl == null) {
+            return ttl;
+        }
+
+        long maxAge = -1;
+        boolean noCache = false;
+        for (String directive : cacheControl.split(",")) {
+            String value = directive.trim().toLowerCase(Locale.ROOT);
+            if (value.equals("no-store")) {
+                return -1;
+            } else if (value.equals("no-cache")) {
+                noCache = true;
+            } else if (value.startsWith("max-age=")) {
+                try {
+                    maxAge = Long.parseLong(value.substring("max-age=".length()));
+                } catch (NumberFormatException e) {
+                    maxAge = 0;
+                }
+            }
+        }
+        if (maxAge >= 0) {
+            // 接口配置的时间是上限；未配置时以服务端声明为准
+            ttl = lookup.endpointConfigured ? Math.min(ttl, maxAge) : maxAge;
+        }
+        return noCache ? 0 : ttl;
+    }
+
+    /**
+     * 一次请求的缓存查询结果
+     */
+    public static final class Lookup {
+
+        private final ResponseCache cache;
+        private final String url;
+        private final String method;
+
+        // 缓存键，请求不可缓存时为null
+        private String key;
+        private boolean endpointConfigured;
+        private long baseTtlSeconds;
+        private ResponseCache.Entry cached;
+        private boolean hit;
+
+        private Lookup(ResponseCache cache, String url, String method) {
+            this.cache = cache;
+            this.url = url;
+            this.method = method;
+        }
+
+        /**
+         * 是否命中有效期内的缓存（无需发出请求）
+         */
+        public boolean isHit() {
+            return hit;
+        }
+
+        /**
+         * 命中或可重新验证的缓存记录
+         */
+        public ResponseCache.Entry getCached() {
+            return cached;
+        }
+    }
+}
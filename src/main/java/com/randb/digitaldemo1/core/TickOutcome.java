@@ -0,0 +1,47 @@
+package com.randb.digitaldemo1.core;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 数字生命一轮循环（一个tick）的执行结果，用于计算到下一轮的间隔
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Getter
+@AllArgsConstructor
+public class TickOutcome {
+
+    /**
+     * 本轮是否完成了任务
+     */
+    private final boolean taskCompleted;
+
+    /**
+     * 本轮是否发生异常
+     */
+    private final boolean error;
+
+    /**
+     * 本轮执行耗时（毫秒）
+     */
+    private final long elapsedMs;
+
+    /**
+     * 本轮后端HTTP响应耗时（毫秒），-1表示没有发出请求或命中了动作响应缓存
+     */
+    private final long backendLatencyMs;
+
+    /**
+     * 所有任务都达到频率限制时到下一轮的等待时间（毫秒），0表示按节奏策略计算
+     */
+    private final long waitMs;
+
+    public static TickOutcome failed(long elapsedMs) {
+        return new TickOutcome(false, true, elapsedMs, -1, 0);
+    }
+
+    public static TickOutcome waiting(long elapsedMs, long waitMs) {
+        return new TickOutcome(false, false, elapsedMs, -1, waitMs);
+    }
+}
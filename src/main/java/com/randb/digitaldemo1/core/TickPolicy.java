@@ -0,0 +1,112 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+
+/**
+ * 数字生命循环节奏策略
+ * 每个数字生命持有一个实例，根据上一轮的执行结果计算到下一轮的间隔，
+ * 由引擎通过ScheduledExecutorService调度下一轮，等待期间不占用线程
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public interface TickPolicy {
+
+    /**
+     * 计算到下一轮的间隔
+     * @param outcome 上一轮的执行结果
+     * @return 间隔（毫秒），0表示立即执行
+     */
+    long nextDelayMillis(TickOutcome outcome);
+
+    /**
+     * 按配置创建节奏策略
+     * @param loop 循环配置
+     * @return 节奏策略（有状态策略每次返回新实例）
+     */
+    static TickPolicy create(DigitalLifeConfig.Loop loop) {
+        switch (loop.getMode()) {
+            case FIXED_RATE:
+                return new FixedRate(loop);
+            case ADAPTIVE:
+                return new Adaptive(loop);
+            case AS_FAST_AS_POSSIBLE:
+                return outcome -> 0;
+            case FIXED_DELAY:
+            default:
+                return new FixedDelay(loop);
+        }
+    }
+
+    /**
+     * 固定间隔：按本轮结果（任务完成/未完成/异常）等待固定时间
+     */
+    class FixedDelay implements TickPolicy {
+
+        private final DigitalLifeConfig.Loop loop;
+
+        public FixedDelay(DigitalLifeConfig.Loop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public long nextDelayMillis(TickOutcome outcome) {
+            if (outcome.isError()) {
+                return loop.getErrorDelayMs();
+            }
+            return outcome.isTaskCompleted() ? loop.getTaskCompletedDelayMs() : loop.getStepDelayMs();
+        }
+    }
+
+    /**
+     * 固定频率：相邻两轮的开始时间间隔固定，本轮耗时超过周期时立即开始下一轮
+     */
+    class FixedRate implements TickPolicy {
+
+        private final DigitalLifeConfig.Loop loop;
+
+        public FixedRate(DigitalLifeConfig.Loop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public long nextDelayMillis(TickOutcome outcome) {
+            if (outcome.isError()) {
+                return loop.getErrorDelayMs();
+            }
+            return Math.max(0, loop.getPeriodMs() - outcome.getElapsedMs());
+        }
+    }
+
+    /**
+     * 自适应：按后端响应耗时的指数移动平均调整间隔，后端变慢时自动放缓
+     */
+    class Adaptive implements TickPolicy {
+
+        // 指数移动平均的平滑系数
+        private static final double ALPHA = 0.3;
+
+        private final DigitalLifeConfig.Loop loop;
+
+        private double averageLatencyMs = -1;
+
+        public Adaptive(DigitalLifeConfig.Loop loop) {
+            this.loop = loop;
+        }
+
+        @Override
+        public long nextDelayMillis(TickOutcome outcome) {
+            if (outcome.isError()) {
+                return loop.getErrorDelayMs();
+            }
+            long latency = outcome.getBackendLatencyMs();
+            if (latency >= 0) {
+                averageLatencyMs = averageLatencyMs < 0 ? latency : ALPHA * latency + (1 - ALPHA) * averageLatencyMs;
+            }
+            if (averageLatencyMs < 0) {
+                return loop.getMinDelayMs();
+            }
+            long delay = Math.round(averageLatencyMs * loop.getLatencyMultiplier());
+            return Math.min(loop.getMaxDelayMs(), Math.max(loop.getMinDelayMs(), delay));
+        }
+    }
+}
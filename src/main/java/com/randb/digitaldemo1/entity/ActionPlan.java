@@ -0,0 +1,128 @@
+package com.randb.digitaldemo1.entity;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * LLM规划结果
+ * LLM响应解析一次后得到动作指令、下一步指令等字段，在格式化、执行、判断各环节之间传递，不再重复解析
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class ActionPlan {
+
+    /**
+     * 动作指令字段名（完整提示形式和简写形式）
+     */
+    public static final String ACTION_FIELD_FULL = "动作指令（whatCanIDo选一个，只能选一个最佳的动作，JSON格式输出完整描述key-动作value）";
+    public static final String ACTION_FIELD = "动作指令";
+
+    /**
+     * 解析后的动作指令：JSONObject（包括以字符串形式给出的JSON），或无法解析为JSON的动作描述字符串
+     */
+    private final Object action;
+
+    /**
+     * 动作指令原文（格式化时交给LLM）
+     */
+    private final String actionText;
+
+    private final String nextStep;
+
+    private final String currentStepResult;
+
+    private final String taskDone;
+
+    private ActionPlan(Object action, String actionText, String nextStep, String currentStepResult, String taskDone) {
+        this.action = action;
+        this.actionText = actionText;
+        this.nextStep = nextStep;
+        this.currentStepResult = currentStepResult;
+        this.taskDone = taskDone;
+    }
+
+    /**
+     * 解析LLM规划响应
+     * @param content LLM响应内容
+     * @return 规划结果
+     * @throws com.alibaba.fastjson.JSONException 响应不是JSON
+     */
+    public static ActionPlan parse(String content) {
+        JSONObject responseObj = JSONObject.parseObject(content);
+
+        // 提取动作指令
+        Object actionObj = responseObj.get(ACTION_FIELD_FULL);
+        if (actionObj == null) {
+            // 尝试其他可能的字段名
+            actionObj = responseObj.get(ACTION_FIELD);
+        }
+
+        // 提取其他信息（兼容多种字段名格式）
+        String nextStep = responseObj.getString("下一步指令");
+        if (nextStep == null) {
+            nextStep = responseObj.getString("下一步指令（输出指令指导下游LLM，不要重复包括这次的动作）");
+        }
+
+        return of(actionObj, nextStep,
+                responseObj.getString("当前这一步理想执行结果"),
+                responseObj.getString("执行完当前这一步任务是否完成(yes/no)"));
+    }
+
+    private static ActionPlan of(Object actionObj, String nextStep, String currentStepResult, String taskDone) {
+        String actionText = null;
+        Object action = null;
+        if (actionObj instanceof String) {
+            actionText = (String) actionObj;
+            action = parseActionText(actionText);
+        } else if (actionObj != null) {
+            actionText = actionObj.toString();
+            action = actionObj;
+        }
+        return new ActionPlan(action, actionText, nextStep, currentStepResult, taskDone);
+    }
+
+    /**
+     * 以字符串形式给出的动作指令：是JSON对象时解析，否则保留为动作描述
+     */
+    private static Object parseActionText(String actionText) {
+        String trimmed = actionText.trim();
+        if (trimmed.startsWith("{")) {
+            try {
+                Object parsed = JSON.parse(trimmed);
+                if (parsed instanceof JSONObject) {
+                    return parsed;
+                }
+            } catch (Exception ignored) {
+                // 不是合法JSON，按动作描述处理
+            }
+        }
+        return actionText;
+    }
+
+    /**
+     * 是否包含需要执行的动作指令
+     */
+    public boolean hasAction() {
+        return actionText != null && !actionText.isEmpty() && !"null".equals(actionText);
+    }
+
+    public Object getAction() {
+        return action;
+    }
+
+    public String getActionText() {
+        return actionText;
+    }
+
+    public String getNextStep() {
+        return nextStep;
+    }
+
+    public String getCurrentStepResult() {
+        return currentStepResult;
+    }
+
+    public String getTaskDone() {
+        return taskDone;
+    }
+}
@@ -0,0 +1,65 @@
+package com.randb.digitaldemo1.entity;
+
+import lombok.Data;
+
+/**
+ * 动作执行结果（一次HTTP请求的结果）
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Data
+public class ActionResult {
+
+    /**
+     * HTTP方法
+     */
+    private String method;
+
+    /**
+     * 请求URL
+     */
+    private String url;
+
+    /**
+     * HTTP状态码，请求未发出或无响应时为0
+     */
+    private int statusCode;
+
+    /**
+     * 响应内容
+     */
+    private String body;
+
+    /**
+     * 请求耗时（毫秒）
+     */
+    private long latencyMs;
+
+    /**
+     * 失败原因，成功时为null
+     */
+    private String error;
+
+    /**
+     * 是否直接使用了缓存的响应（没有发出请求）
+     */
+    private boolean cacheHit;
+
+    /**
+     * 是否成功（2xx）
+     * @return 成功返回true
+     */
+    public boolean isSuccess() {
+        return error == null && statusCode >= 200 && statusCode < 300;
+    }
+
+    /**
+     * 没有可执行请求时的结果
+     * @return 结果
+     */
+    public static ActionResult noRequest() {
+        ActionResult result = new ActionResult();
+        result.setError("没有可执行的HTTP请求");
+        return result;
+    }
+}
@@ -0,0 +1,97 @@
+package com.randb.digitaldemo1.entity;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 数字生命状态快照
+ * 每轮循环结束后由状态存储保存，重启后按快照恢复任务进度，不需要重新调用LLM执行已完成的步骤
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Data
+public class AgentSnapshot {
+
+    /**
+     * 数字生命ID
+     */
+    private String agentId;
+
+    /**
+     * 当前任务名称，没有进行中的任务时为null
+     */
+    private String currentTask;
+
+    /**
+     * 当前步骤索引
+     */
+    private int currentStep;
+
+    /**
+     * 当前这一步理想执行结果
+     */
+    private String currentStepResult;
+
+    /**
+     * LLM给出的下一步指令
+     */
+    private String nextStep;
+
+    /**
+     * 最后一次HTTP响应（保存的内容，超出预算时为摘要）
+     */
+    private String lastResponse;
+
+    /**
+     * 最后一次HTTP响应的分类（基于完整响应，恢复时不重新分类）
+     */
+    private boolean responseSuccess;
+    private boolean responseError;
+    private boolean responseHasData;
+    private boolean responseEmptyData;
+    private boolean responseRequestFailure;
+
+    /**
+     * 最后一次HTTP请求的URL
+     */
+    private String lastActionUrl;
+
+    /**
+     * 当前任务中出错的步骤数
+     */
+    private int taskErrors;
+
+    /**
+     * 动态获取的登录token
+     */
+    private String loginToken;
+
+    /**
+     * 当前任务的请求执行历史（按时间顺序，只包含保留的记录）
+     */
+    private List<StepRecord> stepHistory = new ArrayList<>();
+
+    /**
+     * 当前任务累计的请求数（包括已被覆盖的记录）
+     */
+    private int stepHistoryTotal;
+
+    /**
+     * 保存时间
+     */
+    private long savedAt;
+
+    /**
+     * 一次请求的执行记录
+     */
+    @Data
+    public static class StepRecord {
+        private String method;
+        private String url;
+        private int statusCode;
+        private long latencyMs;
+        private String summary;
+    }
+}
@@ -0,0 +1,45 @@
+package com.randb.digitaldemo1.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * HTTP响应的分类结果
+ * 响应保存时分类一次，构建上下文、任务指导和任务完成判断共用
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Getter
+@AllArgsConstructor
+public final class ResponseClassification {
+
+    /**
+     * 没有响应时的分类
+     */
+    public static final ResponseClassification NONE = new ResponseClassification(false, false, false, false, false);
+
+    /**
+     * 响应表示成功
+     */
+    private final boolean success;
+
+    /**
+     * 响应表示错误
+     */
+    private final boolean error;
+
+    /**
+     * 响应带有非空数据
+     */
+    private final boolean hasData;
+
+    /**
+     * 查询成功但没有数据（data为null且msg为空）
+     */
+    private final boolean emptyData;
+
+    /**
+     * 请求失败（请求未发出、超时或HTTP错误状态）
+     */
+    private final boolean requestFailure;
+}
@@ -0,0 +1,83 @@
+package com.randb.digitaldemo1.entity;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+
+/**
+ * HTTP响应的解析视图
+ * 响应保存时解析一次，之后构建Prompt、任务指导、任务完成判断都复用解析结果
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class ResponseView {
+
+    private static final ResponseView EMPTY = new ResponseView(null, null);
+
+    /**
+     * 响应原文
+     */
+    private final String raw;
+
+    /**
+     * 解析后的JSON对象，响应不是JSON对象时为null
+     */
+    private final JSONObject json;
+
+    private ResponseView(String raw, JSONObject json) {
+        this.raw = raw;
+        this.json = json;
+    }
+
+    /**
+     * 解析响应
+     * @param raw 响应原文
+     * @return 响应视图
+     */
+    public static ResponseView of(String raw) {
+        if (raw == null) {
+            return EMPTY;
+        }
+        String trimmed = raw.trim();
+        if (!trimmed.startsWith("{")) {
+            return new ResponseView(raw, null);
+        }
+        try {
+            Object parsed = JSON.parse(trimmed);
+            return new ResponseView(raw, parsed instanceof JSONObject ? (JSONObject) parsed : null);
+        } catch (Exception e) {
+            return new ResponseView(raw, null);
+        }
+    }
+
+    /**
+     * 由已有的JSON对象构建视图（不再解析）
+     * @param raw JSON对象的文本
+     * @param json JSON对象
+     * @return 响应视图
+     */
+    public static ResponseView of(String raw, JSONObject json) {
+        return new ResponseView(raw, json);
+    }
+
+    public String getRaw() {
+        return raw;
+    }
+
+    public JSONObject getJson() {
+        return json;
+    }
+
+    /**
+     * 是否为JSON对象响应
+     */
+    public boolean isJson() {
+        return json != null;
+    }
+
+    /**
+     * 是否没有响应内容
+     */
+    public boolean isBlank() {
+        return raw == null || raw.trim().isEmpty();
+    }
+}
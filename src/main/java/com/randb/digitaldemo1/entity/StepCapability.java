@@ -0,0 +1,51 @@
+package com.randb.digitaldemo1.entity;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.Getter;
+
+import java.util.Set;
+
+/**
+ * 能力配置中的单个步骤（ability.txt中"步骤"数组的元素）
+ * 描述在加载时预先分词，匹配动作时无需重复分词
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Getter
+public class StepCapability {
+
+    /**
+     * 步骤在任务中的序号（从0开始）
+     */
+    private final int index;
+
+    /**
+     * 步骤描述
+     */
+    private final String description;
+
+    /**
+     * 动作配置（url、method、params、body），只读
+     */
+    private final JSONObject action;
+
+    /**
+     * 描述的关键词集合
+     */
+    private final Set<String> keywords;
+
+    public StepCapability(int index, String description, JSONObject action, Set<String> keywords) {
+        this.index = index;
+        this.description = description;
+        this.action = action;
+        this.keywords = keywords;
+    }
+
+    /**
+     * 是否包含可执行的HTTP动作
+     * @return 动作中包含url则返回true
+     */
+    public boolean hasHttpAction() {
+        return action != null && action.containsKey("url");
+    }
+}
@@ -0,0 +1,73 @@
+package com.randb.digitaldemo1.entity;
+
+import lombok.Getter;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 能力配置中的单个任务（ability.txt中的一项）
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Getter
+public class TaskCapability {
+
+    /**
+     * 任务名称
+     */
+    private final String name;
+
+    /**
+     * 任务步骤
+     */
+    private final List<StepCapability> steps;
+
+    /**
+     * 任务在能力配置中的原始JSON定义
+     */
+    private final String definition;
+
+    /**
+     * 结束步骤的URL：最后一个步骤，以及与它同属一组"[二选一]"的步骤
+     */
+    private final Set<String> terminalUrls;
+
+    public TaskCapability(String name, String definition, List<StepCapability> steps) {
+        this.name = name;
+        this.definition = definition;
+        this.steps = List.copyOf(steps);
+
+        Set<String> urls = new HashSet<>();
+        for (int i = this.steps.size() - 1; i >= 0; i--) {
+            StepCapability step = this.steps.get(i);
+            boolean last = i == this.steps.size() - 1;
+            if (!last && !(isAlternative(step) && isAlternative(this.steps.get(i + 1)))) {
+                break;
+            }
+            if (step.hasHttpAction()) {
+                urls.add(stripQuery(step.getAction().getString("url")));
+            }
+        }
+        this.terminalUrls = Set.copyOf(urls);
+    }
+
+    /**
+     * 判断请求的URL是否为该任务的结束步骤
+     * @param url 请求URL
+     * @return 是结束步骤返回true
+     */
+    public boolean isTerminalUrl(String url) {
+        return url != null && terminalUrls.contains(stripQuery(url));
+    }
+
+    private static boolean isAlternative(StepCapability step) {
+        return step.getDescription() != null && step.getDescription().contains("[二选一]");
+    }
+
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+}
@@ -0,0 +1,62 @@
+package com.randb.digitaldemo1.entity;
+
+import lombok.Data;
+
+/**
+ * 引擎吞吐量快照
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Data
+public class ThroughputSnapshot {
+
+    /**
+     * 运行中的数字生命数量
+     */
+    private int runningAgents;
+
+    /**
+     * 统计时长（秒）
+     */
+    private double elapsedSeconds;
+
+    /**
+     * 累计执行步数
+     */
+    private long steps;
+
+    /**
+     * 累计LLM调用次数
+     */
+    private long llmCalls;
+
+    /**
+     * 累计完成任务数
+     */
+    private long tasksCompleted;
+
+    /**
+     * 累计循环异常次数
+     */
+    private long errors;
+
+    /**
+     * 每秒执行步数
+     */
+    private double stepsPerSecond;
+
+    /**
+     * 每秒LLM调用次数
+     */
+    private double llmCallsPerSecond;
+
+    /**
+     * 每步耗时中位数（毫秒，两位有效数字）
+     */
+    private long stepLatencyP50Ms;
+
+    /**
+     * 每步耗时P99（毫秒，两位有效数字）
+     */
+    private long stepLatencyP99Ms;
+}
@@ -3,6 +3,14 @@ package com.randb.digitaldemo1.service;
 import com.alibaba.fastjson.JSONObject;
 import com.alibaba.fastjson.JSONArray;
 import com.randb.digitaldemo1.config.SpringAIChatStarterConfig;
+import com.randb.digitaldemo1.core.ActionExecutor;
+import com.randb.digitaldemo1.core.EngineMetrics;
+import com.randb.digitaldemo1.core.LlmResponseCache;
+import com.randb.digitaldemo1.core.LogChannels;
+import com.randb.digitaldemo1.entity.ActionPlan;
+import com.randb.digitaldemo1.entity.ActionResult;
+import com.randb.digitaldemo1.entity.HttpRequestInfo;
+import com.randb.digitaldemo1.entity.StepCapability;
 import com.randb.springaichatstarter.core.ChatModelFactory;
 import com.randb.springaichatstarter.core.ChatService;
 import com.randb.springaichatstarter.dto.ChatRequest;
@@ -10,12 +18,10 @@ import com.randb.springaichatstarter.dto.ChatResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * 动作格式化器
@@ -30,67 +36,81 @@ public class ActionFormatter {
     @Autowired
     private ChatModelFactory chatModelFactory;
 
-    @Autowired
-    private StateManager stateManager;
-
-    private final RestTemplate restTemplate = new RestTemplate();
     @Autowired
     private SpringAIChatStarterConfig springAIChatStarterConfig;
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    @Autowired
+    private EngineMetrics engineMetrics;
+    @Autowired
+    private ActionExecutor actionExecutor;
+    @Autowired
+    private CapabilityRegistry capabilityRegistry;
 
     /**
-     * 智能处理动作指令：先尝试直接执行，失败后再格式化
-     * @param llm1Output LLM1的原始输出
+     * 异步智能处理动作指令：先尝试直接执行，失败后再格式化
+     * HTTP请求通过非阻塞客户端发出，不占用调用线程；需要调用LLM格式化时在llmExecutor上执行
+     * @param plan 已解析的LLM1规划结果
      * @param currentTask 当前任务名称
+     * @param agentState 执行动作的数字生命状态作用域
+     * @param llmExecutor 执行LLM格式化调用的执行器
      * @return 处理结果：true表示成功执行，false表示需要进一步处理
      */
-    public boolean smartProcessAction(String llm1Output, String currentTask) {
-        try {
-            log.info("🧠 智能处理动作指令开始...");
-
-            // 1. 先尝试直接解析并执行原始指令
-            if (tryDirectExecution(llm1Output, currentTask)) {
-                log.info("✅ 直接执行成功，无需格式化");
-                return true;
-            }
-
-            // 2. 直接执行失败，尝试格式化后执行
-            log.info("🔄 直接执行失败，开始格式化...");
-            String formattedAction = formatActionInternal(llm1Output, currentTask);
-
-            if (formattedAction != null) {
-                // 执行格式化后的动作
-                com.randb.digitaldemo1.core.ActionExecutor.executeComplexAction(formattedAction);
-                log.info("✅ 格式化后执行成功");
-                return true;
-            } else {
-                log.warn("⚠️ 格式化失败，无法执行动作");
-                return false;
-            }
+    public CompletableFuture<Boolean> smartProcessActionAsync(ActionPlan plan, String currentTask,
+                                                              AgentState agentState, Executor llmExecutor) {
+        log.info("🧠 智能处理动作指令开始...");
+
+        // 1. 先尝试直接执行已解析的指令
+        return tryDirectExecution(plan.getAction(), currentTask, agentState)
+                .thenComposeAsync(executed -> {
+                    if (executed) {
+                        log.info("✅ 直接执行成功，无需格式化");
+                        engineMetrics.recordActionDispatch("direct");
+                        return CompletableFuture.completedFuture(true);
+                    }
 
-        } catch (Exception e) {
-            log.error("❌ 智能处理动作指令失败: {}", e.getMessage(), e);
-            return false;
-        }
+                    // 2. 直接执行失败，尝试格式化后执行
+                    log.info("🔄 直接执行失败，开始格式化...");
+                    JSONObject formattedAction = formatActionInternal(plan.getActionText(), currentTask);
+                    if (formattedAction == null) {
+                        log.warn("⚠️ 格式化失败，无法执行动作");
+                        engineMetrics.recordActionDispatch("failed");
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    engineMetrics.recordActionDispatch("formatter");
+
+                    // 执行格式化后的动作
+                    return actionExecutor.executeComplexActionAsync(formattedAction, agentState)
+                            .thenApply(result -> {
+                                log.info("✅ 格式化后执行成功");
+                                return true;
+                            });
+                }, llmExecutor)
+                .exceptionally(e -> {
+                    log.error("❌ 智能处理动作指令失败: {}", e.getMessage(), e);
+                    return false;
+                });
     }
 
     /**
      * 尝试直接执行原始指令
      */
-    private boolean tryDirectExecution(String llm1Output, String currentTask) {
+    private CompletableFuture<Boolean> tryDirectExecution(Object action, String currentTask, AgentState agentState) {
         try {
-            log.info("尝试直接执行原始指令: {}", llm1Output);
+            if (!(action instanceof JSONObject)) {
+                log.warn("⚠️ 动作指令不是JSON对象，无法直接执行");
+                return CompletableFuture.completedFuture(false);
+            }
+            JSONObject json = (JSONObject) action;
+            LogChannels.PAYLOAD.debug("尝试直接执行原始指令: {}", json);
 
             // 检查是否已经是标准格式
-            if (isStandardFormat(llm1Output)) {
+            if (isStandardFormat(json)) {
                 log.info("✅ 识别为标准格式，直接执行");
-                com.randb.digitaldemo1.core.ActionExecutor.executeComplexAction(llm1Output);
-                return true;
+                return actionExecutor.executeComplexActionAsync(json, agentState)
+                        .thenApply(result -> true);
             }
 
-            // 尝试简单的JSON解析和执行
-            JSONObject json = JSONObject.parseObject(llm1Output);
-            log.info("📋 解析JSON成功，检查动作指令字段");
-
             // 检查"动作指令"字段（新的LLM1输出格式）
             if (json.containsKey("动作指令")) {
                 Object actionObj = json.get("动作指令");
@@ -99,11 +119,11 @@ public class ActionFormatter {
                 // 如果是完整的动作配置对象
                 if (actionObj instanceof JSONObject) {
                     JSONObject actionConfig = (JSONObject) actionObj;
-                    log.info("📝 动作配置内容: {}", actionConfig.toJSONString());
+                    LogChannels.PAYLOAD.debug("📝 动作配置内容: {}", actionConfig);
 
                     if (actionConfig.containsKey("url") && actionConfig.containsKey("method")) {
                         log.info("🎯 发现完整的动作配置（动作指令字段），直接执行");
-                        return executeActionFromConfig(actionConfig, currentTask);
+                        return executeHttpAction(actionConfig, agentState);
                     } else {
                         log.warn("⚠️ 动作配置缺少url或method字段");
                     }
@@ -113,7 +133,7 @@ public class ActionFormatter {
                 if (actionObj instanceof String) {
                     String actionDescription = (String) actionObj;
                     log.info("尝试从ability.txt匹配动作: {}", actionDescription);
-                    return executeSimpleAction(actionDescription, currentTask);
+                    return executeSimpleAction(actionDescription, currentTask, agentState);
                 }
             }
 
@@ -127,7 +147,7 @@ public class ActionFormatter {
                     JSONObject actionConfig = (JSONObject) actionObj;
                     if (actionConfig.containsKey("url") && actionConfig.containsKey("method")) {
                         log.info("🎯 发现完整的动作配置（whatCanIDo字段），直接执行");
-                        return executeActionFromConfig(actionConfig, currentTask);
+                        return executeHttpAction(actionConfig, agentState);
                     }
                 }
 
@@ -135,168 +155,61 @@ public class ActionFormatter {
                 if (actionObj instanceof String) {
                     String actionDescription = (String) actionObj;
                     log.info("尝试从ability.txt匹配动作: {}", actionDescription);
-                    return executeSimpleAction(actionDescription, currentTask);
+                    return executeSimpleAction(actionDescription, currentTask, agentState);
                 }
             }
 
             // 检查是否直接是HTTP配置（顶级字段包含url和method）
             if (json.containsKey("url") && json.containsKey("method")) {
                 log.info("🎯 发现顶级HTTP配置，直接执行");
-                return executeActionFromConfig(json, currentTask);
+                return executeHttpAction(json, agentState);
             }
 
             log.warn("⚠️ 未找到可识别的动作指令格式");
-            return false;
+            return CompletableFuture.completedFuture(false);
         } catch (Exception e) {
             log.error("❌ 直接执行失败: {}", e.getMessage(), e);
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
     }
 
     /**
-     * 执行完整的动作配置
+     * 执行简单动作（通用化实现，基于能力注册表）
      */
-    private boolean executeActionFromConfig(JSONObject actionConfig, String currentTask) {
-        try {
-            String method = actionConfig.getString("method");
-            String url = actionConfig.getString("url");
-            JSONObject params = actionConfig.getJSONObject("params");
-            Object body = actionConfig.get("body");
-
-            // 直接发送HTTP请求（自动添加token）
-            ResponseEntity<String> response = sendHttpRequestWithToken(url, method, params, body);
-
-            // 检查响应是否成功
-            return response.getStatusCode().is2xxSuccessful();
-        } catch (Exception e) {
-            log.debug("执行动作配置失败: {}", e.getMessage());
-            return false;
+    private CompletableFuture<Boolean> executeSimpleAction(String actionDescription, String currentTask, AgentState agentState) {
+        // 从能力注册表中查找当前任务下与动作描述匹配的步骤
+        StepCapability step = capabilityRegistry.matchStep(currentTask, actionDescription);
+        if (step != null && step.hasHttpAction()) {
+            return executeHttpAction(step.getAction(), agentState);
         }
+        return CompletableFuture.completedFuture(false);
     }
 
     /**
-     * 执行简单动作（通用化实现，基于ability.txt配置）
+     * 执行完整的动作配置（动作指令中的配置或从ability.txt中解析出的动作），自动添加Bearer token
+     * @return 响应是否成功
      */
-    private boolean executeSimpleAction(String actionDescription, String currentTask) {
-        try {
-            // 从ability.txt中查找匹配的动作
-            String abilityContent = readAbilityFile();
-            if (abilityContent == null) {
-                return false;
-            }
-
-            // 解析ability.txt，查找当前任务的动作配置
-            JSONObject abilityJson = JSONObject.parseObject(abilityContent);
-            JSONArray tasks = abilityJson.getJSONArray("tasks");
-
-            for (int i = 0; i < tasks.size(); i++) {
-                JSONObject task = tasks.getJSONObject(i);
-                String taskName = task.getString("任务");
-
-                // 找到匹配的任务
-                if (currentTask.equals(taskName)) {
-                    JSONArray steps = task.getJSONArray("步骤");
-
-                    // 在步骤中查找匹配的动作描述
-                    for (int j = 0; j < steps.size(); j++) {
-                        JSONObject step = steps.getJSONObject(j);
-                        String stepDescription = step.getString("描述");
-
-                        // 使用模糊匹配来判断动作描述是否匹配
-                        if (isActionMatch(actionDescription, stepDescription)) {
-                            JSONObject action = step.getJSONObject("动作");
-                            if (action != null && action.containsKey("url")) {
-                                return executeActionFromAbility(action);
-                            }
-                        }
-                    }
-                }
-            }
-
-            return false;
-        } catch (Exception e) {
-            log.debug("简单动作执行失败: {}", e.getMessage());
-            return false;
-        }
-    }
-
-    /**
-     * 读取ability.txt文件
-     */
-    private String readAbilityFile() {
-        try {
-            return java.nio.file.Files.readString(java.nio.file.Paths.get("src/main/resources/ability.txt"));
-        } catch (Exception e) {
-            log.debug("读取ability.txt失败: {}", e.getMessage());
-            return null;
-        }
-    }
-
-    /**
-     * 判断动作描述是否匹配（模糊匹配）
-     */
-    private boolean isActionMatch(String actionDescription, String stepDescription) {
-        if (actionDescription == null || stepDescription == null) {
-            return false;
-        }
-
-        // 提取关键词进行匹配
-        String[] actionKeywords = extractKeywords(actionDescription);
-        String[] stepKeywords = extractKeywords(stepDescription);
-
-        // 计算匹配度
-        int matchCount = 0;
-        for (String actionKeyword : actionKeywords) {
-            for (String stepKeyword : stepKeywords) {
-                if (actionKeyword.equals(stepKeyword)) {
-                    matchCount++;
-                    break;
-                }
-            }
-        }
-
-        // 如果有50%以上的关键词匹配，认为是匹配的
-        return matchCount > 0 && (double) matchCount / actionKeywords.length >= 0.5;
-    }
-
-    /**
-     * 提取关键词
-     */
-    private String[] extractKeywords(String text) {
-        // 简单的关键词提取，去除常见的停用词
-        String[] stopWords = {"的", "了", "在", "是", "和", "与", "或", "但", "然后", "接着", "之后"};
-
-        String[] words = text.replaceAll("[^\\u4e00-\\u9fa5a-zA-Z0-9]", " ").split("\\s+");
-        java.util.List<String> keywords = new java.util.ArrayList<>();
-
-        for (String word : words) {
-            if (word.length() > 1 && !java.util.Arrays.asList(stopWords).contains(word)) {
-                keywords.add(word);
-            }
+    @SuppressWarnings("unchecked")
+    private CompletableFuture<Boolean> executeHttpAction(JSONObject actionConfig, AgentState agentState) {
+        HttpRequestInfo httpInfo = new HttpRequestInfo();
+        httpInfo.setMethod(actionConfig.getString("method"));
+        httpInfo.setUrl(actionConfig.getString("url"));
+        httpInfo.setParams(actionConfig.getJSONObject("params"));
+
+        // 准备请求体
+        Object body = actionConfig.get("body");
+        if (body instanceof Map) {
+            httpInfo.setBody((Map<String, Object>) body);
+        } else if (body instanceof String && !((String) body).trim().isEmpty()) {
+            httpInfo.setBodyString((String) body);
         }
 
-        return keywords.toArray(new String[0]);
-    }
-
-    /**
-     * 执行从ability.txt中解析出的动作
-     */
-    private boolean executeActionFromAbility(JSONObject action) {
-        try {
-            String method = action.getString("method");
-            String url = action.getString("url");
-            JSONObject params = action.getJSONObject("params");
-            Object body = action.get("body");
-
-            // 直接发送HTTP请求（自动添加token）
-            ResponseEntity<String> response = sendHttpRequestWithToken(url, method, params, body);
-
-            // 检查响应是否成功
-            return response.getStatusCode().is2xxSuccessful();
-        } catch (Exception e) {
-            log.debug("执行ability动作失败: {}", e.getMessage());
-            return false;
+        if (!httpInfo.isValid()) {
+            log.debug("动作配置缺少有效的url或method: {}", actionConfig);
+            return CompletableFuture.completedFuture(false);
         }
+        return actionExecutor.executeRequestAsync(httpInfo, agentState)
+                .thenApply(ActionResult::isSuccess);
     }
 
     /**
@@ -332,136 +245,23 @@ public class ActionFormatter {
         return result.toJSONString();
     }
 
-    /**
-     * 发送HTTP请求（自动添加Bearer token）
-     */
-    private ResponseEntity<String> sendHttpRequestWithToken(String url, String method, JSONObject params, Object body) {
-        try {
-            log.info("🌐 发送HTTP请求: {} {}", method, url);
-            log.info("📝 请求参数: {}", params);
-            log.info("📦 请求体: {}", body);
-
-            // 设置请求头
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-
-            // 自动添加Bearer token（如果存在）
-            if (stateManager != null && stateManager.hasState("login_token")) {
-                String token = stateManager.getLoginToken();
-                headers.setBearerAuth(token);
-                log.info("🔐 自动添加认证token到请求头");
-            }
-
-            // 准备请求体
-            Object requestBody = null;
-            if (body != null) {
-                if (body instanceof JSONObject || body instanceof java.util.Map) {
-                    requestBody = body;
-                } else if (body instanceof String && !((String) body).trim().isEmpty()) {
-                    requestBody = body;
-                }
-            }
-
-            HttpEntity<Object> entity = new HttpEntity<>(requestBody, headers);
-
-            // 发送请求
-            HttpMethod httpMethod = HttpMethod.valueOf(method.toUpperCase());
-            ResponseEntity<String> response = restTemplate.exchange(url, httpMethod, entity, String.class);
-
-            log.info("✅ HTTP请求响应状态: {}", response.getStatusCode());
-            log.info("📄 HTTP请求响应内容: {}", response.getBody());
-
-            // 保存响应到状态管理器
-            if (stateManager != null) {
-                stateManager.saveLastResponse(response.getBody());
-
-                // 如果是登录请求，尝试提取token
-                if (url.contains("login") && response.getStatusCode().is2xxSuccessful()) {
-                    extractAndSaveToken(response.getBody());
-                }
-            }
-
-            return response;
-
-        } catch (Exception e) {
-            log.error("❌ 发送HTTP请求失败: {}", e.getMessage(), e);
-            if (stateManager != null) {
-                stateManager.saveLastResponse("ERROR: " + e.getMessage());
-            }
-            throw new RuntimeException("HTTP请求失败: " + e.getMessage(), e);
-        }
-    }
-
-    /**
-     * 从登录响应中提取并保存token
-     */
-    private void extractAndSaveToken(String responseBody) {
-        try {
-            if (responseBody != null && !responseBody.isEmpty()) {
-                JSONObject responseNode = JSONObject.parseObject(responseBody);
-
-                // 首先检查是否有data字段（嵌套结构）
-                if (responseNode.containsKey("data")) {
-                    JSONObject dataNode = responseNode.getJSONObject("data");
-                    if (dataNode.containsKey("token")) {
-                        String token = dataNode.getString("token");
-                        if (token != null && !token.isEmpty()) {
-                            stateManager.saveLoginToken(token);
-                            log.info("✅ 成功提取并保存登录token");
-                            return;
-                        }
-                    }
-                }
-
-                // 尝试多种可能的顶级token字段名
-                String[] tokenFields = {"token", "accessToken", "access_token", "authToken", "jwt"};
-
-                for (String field : tokenFields) {
-                    if (responseNode.containsKey(field)) {
-                        String token = responseNode.getString(field);
-                        if (token != null && !token.isEmpty()) {
-                            stateManager.saveLoginToken(token);
-                            log.info("✅ 成功提取并保存登录token");
-                            return;
-                        }
-                    }
-                }
-
-                log.warn("⚠️ 未能从登录响应中提取token");
-            }
-        } catch (Exception e) {
-            log.error("❌ 提取token失败: {}", e.getMessage(), e);
-        }
-    }
-
-
-
     /**
      * 检查是否为标准格式
      */
-    private boolean isStandardFormat(String actionInstruction) {
-        try {
-            JSONObject json = JSONObject.parseObject(actionInstruction);
-            // 检查是否包含标准格式的关键字段
-            for (String key : json.keySet()) {
-                Object value = json.get(key);
-                if (value instanceof JSONObject) {
-                    JSONObject valueObj = (JSONObject) value;
-                    if (valueObj.containsKey("步骤")) {
-                        return true; // 已经是标准格式
-                    }
-                }
+    private boolean isStandardFormat(JSONObject json) {
+        // 检查是否包含标准格式的关键字段
+        for (Object value : json.values()) {
+            if (value instanceof JSONObject && ((JSONObject) value).containsKey("步骤")) {
+                return true; // 已经是标准格式
             }
-            return false;
-        } catch (Exception e) {
-            return false;
         }
+        return false;
     }
 
     /**
      * 内部格式化方法（原来的formatAction逻辑）
      */
-    private String formatActionInternal(String llm1Output, String currentTask) {
+    private JSONObject formatActionInternal(String llm1Output, String currentTask) {
         try {
             // 构建格式化prompt
             String formatPrompt = buildFormatPrompt(llm1Output, currentTask);
@@ -469,9 +269,10 @@ public class ActionFormatter {
             // 调用LLM2进行格式化
             ChatService chatService = chatModelFactory.get(springAIChatStarterConfig.getModel());
             ChatRequest request = createFormatRequest(formatPrompt);
-            ChatResponse response = chatService.syncReply(request);
+            ChatResponse response = llmResponseCache.reply(EngineMetrics.CALLER_FORMATTER, request,
+                    () -> engineMetrics.timeLlmCall(EngineMetrics.CALLER_FORMATTER, () -> chatService.syncReply(request)));
 
-            String formattedAction = extractFormattedAction(response.getContent());
+            JSONObject formattedAction = extractFormattedAction(response.getContent());
 
             log.info("✅ 动作指令格式化完成");
             return formattedAction;
@@ -486,7 +287,8 @@ public class ActionFormatter {
      * 保持原有的formatAction方法以兼容现有代码
      */
     public String formatAction(String llm1Output, String currentTask) {
-        return formatActionInternal(llm1Output, currentTask);
+        JSONObject formattedAction = formatActionInternal(llm1Output, currentTask);
+        return formattedAction != null ? formattedAction.toJSONString() : null;
     }
 
     /**
@@ -550,19 +352,14 @@ public class ActionFormatter {
     /**
      * 从格式化响应中提取JSON
      */
-    private String extractFormattedAction(String response) {
+    private JSONObject extractFormattedAction(String response) {
         try {
-            // 查找JSON部分
-            int startIndex = response.indexOf("{");
-            int endIndex = response.lastIndexOf("}");
-            
-            if (startIndex != -1 && endIndex != -1 && endIndex > startIndex) {
-                String jsonStr = response.substring(startIndex, endIndex + 1);
-                
-                // 验证JSON格式
-                JSONObject.parseObject(jsonStr);
-                
-                return jsonStr;
+            // 查找JSON部分（按括号配对提取第一个完整对象）
+            String jsonStr = JsonExtractor.extractFirstObject(response);
+
+            if (jsonStr != null) {
+                // 解析一次，直接交给执行器
+                return JSONObject.parseObject(jsonStr);
             } else {
                 log.warn("⚠️ 无法从格式化响应中提取JSON: {}", response);
                 return null;
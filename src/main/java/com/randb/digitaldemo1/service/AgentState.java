@@ -0,0 +1,544 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.config.AuthConfig;
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import com.randb.digitaldemo1.entity.ResponseClassification;
+import com.randb.digitaldemo1.entity.ResponseView;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单个数字生命的状态记录
+ * 任务、步骤、最后响应、下一步指令、token等核心状态使用类型化字段保存，
+ * 由所属数字生命的循环线程写入，引擎、动作格式化器、动作执行器显式传递，多个数字生命之间互不干扰、无需加锁
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public class AgentState {
+
+    /**
+     * 状态键（兼容按键名访问状态的接口）
+     */
+    public static final String CURRENT_TASK = "current_task";
+    public static final String CURRENT_STEP = "current_step";
+    public static final String CURRENT_STEP_RESULT = "current_step_result";
+    public static final String NEXT_STEP = "next_step";
+    public static final String LAST_RESPONSE = "last_response";
+    public static final String LOGIN_TOKEN = "login_token";
+
+    private final String agentId;
+
+    private final AuthConfig authConfig;
+
+    private final ResponseSummarizer responseSummarizer;
+
+    // 当前任务的请求执行历史
+    private final StepHistory stepHistory;
+
+    // 状态访问审计
+    private final StateAuditor auditor;
+
+    // 动作响应缓存
+    private final ResponseCache responseCache;
+
+    // 当前任务名称
+    private volatile String currentTask;
+
+    // 当前步骤索引
+    private volatile int currentStep;
+
+    // 当前这一步理想执行结果
+    private volatile String currentStepResult;
+
+    // LLM给出的下一步指令
+    private volatile String nextStep;
+
+    // 最后一次HTTP响应（保存时解析一次，超出预算时只保存摘要）
+    private volatile ResponseView lastResponse = ResponseView.of(null);
+
+    // 最后一次HTTP响应是登录响应（含有token），审计日志和状态变更日志中不记录内容
+    private volatile boolean lastResponseSecret;
+
+    // 最后一次HTTP响应的分类（保存时分类一次）
+    private volatile ResponseClassification lastResponseClass = ResponseClassification.NONE;
+
+    // 最后一次HTTP响应耗时（毫秒），-1表示本步骤没有发出请求
+    private volatile long lastResponseLatencyMs = -1;
+
+    // 最后一次HTTP响应来自动作响应缓存（没有访问后端）
+    private volatile boolean lastResponseCached;
+
+    // 最后一次HTTP请求的URL
+    private volatile String lastActionUrl;
+
+    // 当前任务中出错的步骤数
+    private volatile int taskErrors;
+
+    // 动态获取的登录token
+    private volatile String loginToken;
+
+    // 其他扩展状态
+    private final Map<String, Object> extraStates = new ConcurrentHashMap<>();
+
+    public AgentState(String agentId, AuthConfig authConfig, ResponseSummarizer responseSummarizer,
+                      int stepHistorySize, StateAuditor auditor, int responseCacheSize) {
+        this.agentId = agentId;
+        this.authConfig = authConfig;
+        this.responseSummarizer = responseSummarizer;
+        this.stepHistory = new StepHistory(stepHistorySize);
+        this.auditor = auditor;
+        this.responseCache = new ResponseCache(responseCacheSize);
+    }
+
+    /**
+     * 获取数字生命ID
+     * @return 数字生命ID
+     */
+    public String getAgentId() {
+        return agentId;
+    }
+
+    /**
+     * 保存当前任务状态
+     * @param taskName 任务名称
+     * @param stepIndex 当前步骤索引
+     */
+    public void saveTaskProgress(String taskName, int stepIndex) {
+        this.currentTask = taskName;
+        this.currentStep = stepIndex;
+        audit("保存", CURRENT_TASK, taskName);
+        audit("保存", CURRENT_STEP, stepIndex);
+    }
+
+    /**
+     * 开始新任务：记录任务并清空上一个任务的响应状态，避免影响新任务的判断
+     * @param taskName 任务名称
+     */
+    public void startTask(String taskName) {
+        saveTaskProgress(taskName, 0);
+        updateLastResponse(null);
+        this.stepHistory.clear();
+        this.lastActionUrl = null;
+        this.taskErrors = 0;
+        this.currentStepResult = null;
+        this.nextStep = null;
+    }
+
+    /**
+     * 完成当前任务：清空任务和步骤
+     */
+    public void completeTask() {
+        this.currentTask = null;
+        this.currentStep = 0;
+        audit("删除", CURRENT_TASK, null);
+    }
+
+    /**
+     * 获取当前任务名称
+     * @return 任务名称
+     */
+    public String getCurrentTask() {
+        return currentTask;
+    }
+
+    /**
+     * 获取当前步骤索引
+     * @return 步骤索引
+     */
+    public int getCurrentStep() {
+        return currentStep;
+    }
+
+    /**
+     * 保存当前这一步理想执行结果
+     * @param currentStepResult 执行结果描述
+     */
+    public void saveCurrentStepResult(String currentStepResult) {
+        this.currentStepResult = currentStepResult;
+        audit("保存", CURRENT_STEP_RESULT, currentStepResult);
+    }
+
+    /**
+     * 获取当前这一步理想执行结果
+     * @return 执行结果描述
+     */
+    public String getCurrentStepResult() {
+        return currentStepResult;
+    }
+
+    /**
+     * 保存下一步指令
+     * @param nextStep 下一步指令
+     */
+    public void saveNextStep(String nextStep) {
+        this.nextStep = nextStep;
+        audit("保存", NEXT_STEP, nextStep);
+    }
+
+    /**
+     * 获取下一步指令
+     * @return 下一步指令
+     */
+    public String getNextStep() {
+        return nextStep;
+    }
+
+    /**
+     * 保存最后一次HTTP响应
+     * @param response 响应内容
+     * @return 完整响应的解析视图（保存的可能是摘要，需要完整内容时使用返回值，如提取token）
+     */
+    public ResponseView saveLastResponse(String response) {
+        ResponseView view = updateLastResponse(response);
+        audit("保存", LAST_RESPONSE, lastResponse.getRaw());
+        return view;
+    }
+
+    /**
+     * 保存登录请求的HTTP响应：响应中含有登录token，与login_token一样不写入日志
+     * @param response 响应内容
+     * @return 完整响应的解析视图（用于提取token）
+     */
+    public ResponseView saveLoginResponse(String response) {
+        ResponseView view = updateLastResponse(response);
+        lastResponseSecret = true;
+        audit("保存", LAST_RESPONSE, lastResponse.getRaw());
+        return view;
+    }
+
+    /**
+     * 获取最后一次HTTP响应
+     * @return 响应内容
+     */
+    public String getLastResponse() {
+        return lastResponse.getRaw();
+    }
+
+    /**
+     * 获取最后一次HTTP响应的解析视图
+     * @return 响应视图
+     */
+    public ResponseView getLastResponseView() {
+        return lastResponse;
+    }
+
+    /**
+     * 获取最后一次HTTP响应的分类
+     * @return 分类结果
+     */
+    public ResponseClassification getLastResponseClass() {
+        return lastResponseClass;
+    }
+
+    /**
+     * 解析、分类并生成摘要（每个响应只做一次），分类基于完整响应
+     */
+    private ResponseView updateLastResponse(String response) {
+        ResponseView view = ResponseView.of(response);
+        this.lastResponseSecret = false;
+        this.lastResponseClass = ResponseInspector.classify(view);
+        this.lastResponse = responseSummarizer != null ? responseSummarizer.summarize(view) : view;
+        return view;
+    }
+
+    /**
+     * 保存最后一次HTTP响应耗时
+     * @param latencyMs 耗时（毫秒），-1表示没有发出请求
+     */
+    public void saveLastResponseLatency(long latencyMs) {
+        this.lastResponseLatencyMs = latencyMs;
+    }
+
+    /**
+     * 获取最后一次HTTP响应耗时
+     * @return 耗时（毫秒），-1表示没有发出请求
+     */
+    public long getLastResponseLatencyMs() {
+        return lastResponseLatencyMs;
+    }
+
+    /**
+     * 保存最后一次HTTP响应是否来自动作响应缓存
+     * @param cached 是否命中缓存
+     */
+    public void saveLastResponseCached(boolean cached) {
+        this.lastResponseCached = cached;
+    }
+
+    /**
+     * 最后一次HTTP响应是否来自动作响应缓存（耗时不反映后端负载）
+     * @return 是否命中缓存
+     */
+    public boolean isLastResponseCached() {
+        return lastResponseCached;
+    }
+
+    /**
+     * 保存最后一次HTTP请求的URL
+     * @param url 请求URL
+     */
+    public void saveLastActionUrl(String url) {
+        this.lastActionUrl = url;
+    }
+
+    /**
+     * 获取最后一次HTTP请求的URL
+     * @return 请求URL
+     */
+    public String getLastActionUrl() {
+        return lastActionUrl;
+    }
+
+    /**
+     * 获取当前任务的请求执行历史
+     * @return 执行历史
+     */
+    public StepHistory getStepHistory() {
+        return stepHistory;
+    }
+
+    /**
+     * 获取动作响应缓存（跨任务保留，清空所有状态时清空）
+     * @return 响应缓存
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * 记录当前任务中一次出错的步骤
+     * @return 当前任务累计出错步骤数
+     */
+    public int incrementTaskErrors() {
+        return ++taskErrors;
+    }
+
+    /**
+     * 保存登录token
+     * @param token 登录token
+     */
+    public void saveLoginToken(String token) {
+        this.loginToken = token;
+        audit("保存", LOGIN_TOKEN, token);
+    }
+
+    /**
+     * 检查是否有可用的登录token（永久token或动态token）
+     * @return 是否有可用的token
+     */
+    public boolean hasLoginToken() {
+        // 优先检查永久token
+        if (authConfig != null && authConfig.hasPermanentToken()) {
+            return true;
+        }
+
+        // 检查动态token
+        return loginToken != null;
+    }
+
+    /**
+     * 获取登录token（优先使用永久token）
+     * @return 登录token
+     */
+    public String getLoginToken() {
+        // 优先使用配置文件中的永久token
+        if (authConfig != null && authConfig.hasPermanentToken()) {
+            log.debug("使用配置文件中的永久token");
+            return authConfig.getPermanentToken();
+        }
+
+        // 如果没有永久token，使用动态获取的token
+        if (loginToken != null) {
+            log.debug("使用动态获取的token");
+            return loginToken;
+        }
+
+        log.warn("[{}] 没有找到任何可用的token", agentId);
+        return null;
+    }
+
+    /**
+     * 按键名保存状态（核心状态键映射到类型化字段）
+     * @param key 状态键
+     * @param value 状态值
+     */
+    public void saveState(String key, Object value) {
+        switch (key) {
+            case CURRENT_TASK -> currentTask = value != null ? value.toString() : null;
+            case CURRENT_STEP -> currentStep = value != null ? Integer.parseInt(value.toString()) : 0;
+            case CURRENT_STEP_RESULT -> currentStepResult = value != null ? value.toString() : null;
+            case NEXT_STEP -> nextStep = value != null ? value.toString() : null;
+            case LAST_RESPONSE -> updateLastResponse(value != null ? value.toString() : null);
+            case LOGIN_TOKEN -> loginToken = value != null ? value.toString() : null;
+            default -> extraStates.put(key, value);
+        }
+        audit("保存", key, value);
+    }
+
+    /**
+     * 按键名获取状态
+     * @param key 状态键
+     * @return 状态值
+     */
+    public Object getState(String key) {
+        Object value = switch (key) {
+            case CURRENT_TASK -> currentTask;
+            case CURRENT_STEP -> currentTask != null ? currentStep : null;
+            case CURRENT_STEP_RESULT -> currentStepResult;
+            case NEXT_STEP -> nextStep;
+            case LAST_RESPONSE -> lastResponse.getRaw();
+            case LOGIN_TOKEN -> loginToken;
+            default -> extraStates.get(key);
+        };
+        if (auditor != null) {
+            auditor.onRead(agentId, key, mask(key, value));
+        }
+        return value;
+    }
+
+    /**
+     * 检查状态是否存在
+     * @param key 状态键
+     * @return 是否存在
+     */
+    public boolean hasState(String key) {
+        // 对于login_token，优先检查永久token
+        if (LOGIN_TOKEN.equals(key)) {
+            return hasLoginToken();
+        }
+
+        return getState(key) != null;
+    }
+
+    /**
+     * 按键名删除状态
+     * @param key 状态键
+     */
+    public void removeState(String key) {
+        switch (key) {
+            case CURRENT_TASK -> currentTask = null;
+            case CURRENT_STEP -> currentStep = 0;
+            case CURRENT_STEP_RESULT -> currentStepResult = null;
+            case NEXT_STEP -> nextStep = null;
+            case LAST_RESPONSE -> updateLastResponse(null);
+            case LOGIN_TOKEN -> loginToken = null;
+            default -> extraStates.remove(key);
+        }
+        audit("删除", key, null);
+    }
+
+    /**
+     * 清空所有状态
+     */
+    public void clearAllStates() {
+        currentTask = null;
+        currentStep = 0;
+        currentStepResult = null;
+        nextStep = null;
+        updateLastResponse(null);
+        lastResponseLatencyMs = -1;
+        lastActionUrl = null;
+        stepHistory.clear();
+        responseCache.clear();
+        taskErrors = 0;
+        loginToken = null;
+        extraStates.clear();
+        log.info("[{}] 清空所有状态", agentId);
+    }
+
+    /**
+     * 生成状态快照（扩展状态和响应缓存不保存）
+     * @return 状态快照
+     */
+    public AgentSnapshot snapshot() {
+        AgentSnapshot snapshot = new AgentSnapshot();
+        snapshot.setAgentId(agentId);
+        snapshot.setCurrentTask(currentTask);
+        snapshot.setCurrentStep(currentStep);
+        snapshot.setCurrentStepResult(currentStepResult);
+        snapshot.setNextStep(nextStep);
+        snapshot.setLastResponse(lastResponse.getRaw());
+        ResponseClassification responseClass = lastResponseClass;
+        snapshot.setResponseSuccess(responseClass.isSuccess());
+        snapshot.setResponseError(responseClass.isError());
+        snapshot.setResponseHasData(responseClass.isHasData());
+        snapshot.setResponseEmptyData(responseClass.isEmptyData());
+        snapshot.setResponseRequestFailure(responseClass.isRequestFailure());
+        snapshot.setLastActionUrl(lastActionUrl);
+        snapshot.setTaskErrors(taskErrors);
+        snapshot.setLoginToken(loginToken);
+        snapshot.setStepHistory(stepHistory.export());
+        snapshot.setStepHistoryTotal(stepHistory.getTotal());
+        snapshot.setSavedAt(System.currentTimeMillis());
+        return snapshot;
+    }
+
+    /**
+     * 按快照恢复状态（保存的响应已经是摘要，不重新解析分类）
+     * @param snapshot 状态快照
+     */
+    public void restore(AgentSnapshot snapshot) {
+        clearAllStates();
+        currentTask = snapshot.getCurrentTask();
+        currentStep = snapshot.getCurrentStep();
+        currentStepResult = snapshot.getCurrentStepResult();
+        nextStep = snapshot.getNextStep();
+        lastResponse = ResponseView.of(snapshot.getLastResponse());
+        lastResponseClass = snapshot.getLastResponse() == null ? ResponseClassification.NONE
+                : new ResponseClassification(snapshot.isResponseSuccess(), snapshot.isResponseError(),
+                        snapshot.isResponseHasData(), snapshot.isResponseEmptyData(), snapshot.isResponseRequestFailure());
+        lastActionUrl = snapshot.getLastActionUrl();
+        lastResponseSecret = lastResponse.getRaw() != null && lastActionUrl != null && lastActionUrl.contains("login");
+        taskErrors = snapshot.getTaskErrors();
+        loginToken = snapshot.getLoginToken();
+        stepHistory.restore(snapshot.getStepHistory(), snapshot.getStepHistoryTotal());
+        if (currentTask != null) {
+            log.info("[{}] 恢复状态: 任务 {}，第{}步", agentId, currentTask, currentStep + 1);
+        } else {
+            log.info("[{}] 恢复状态: 没有进行中的任务", agentId);
+        }
+    }
+
+    /**
+     * 获取所有状态
+     * @return 状态映射
+     */
+    public Map<String, Object> getAllStates() {
+        Map<String, Object> states = new LinkedHashMap<>();
+        putIfNotNull(states, CURRENT_TASK, currentTask);
+        putIfNotNull(states, CURRENT_STEP, currentTask != null ? currentStep : null);
+        putIfNotNull(states, CURRENT_STEP_RESULT, currentStepResult);
+        putIfNotNull(states, NEXT_STEP, nextStep);
+        putIfNotNull(states, LAST_RESPONSE, lastResponse.getRaw());
+        putIfNotNull(states, LOGIN_TOKEN, loginToken);
+        states.putAll(extraStates);
+        return states;
+    }
+
+    private static void putIfNotNull(Map<String, Object> states, String key, Object value) {
+        if (value != null) {
+            states.put(key, value);
+        }
+    }
+
+    /**
+     * 记录状态变更（审计通道和状态变更日志）
+     */
+    private void audit(String action, String key, Object value) {
+        if (auditor != null) {
+            auditor.onWrite(agentId, action, key, mask(key, value));
+        }
+    }
+
+    /**
+     * token和含有token的登录响应不写入日志
+     */
+    private Object mask(String key, Object value) {
+        boolean secret = LOGIN_TOKEN.equals(key) || (LAST_RESPONSE.equals(key) && lastResponseSecret);
+        return secret && value != null ? "***" : value;
+    }
+}
@@ -8,7 +8,6 @@ import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -50,10 +49,8 @@ public class AutoStartService {
                         return;
                     }
                     
-                    // 异步启动数字生命
-                    CompletableFuture.runAsync(() -> {
-                        digitalLifeEngine.startDigitalLife();
-                    });
+                    // 数字生命在引擎的执行器上异步运行
+                    digitalLifeEngine.startDigitalLife();
                     
                     log.info("数字生命自动启动完成");
                     
@@ -0,0 +1,280 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.alibaba.fastjson.parser.Feature;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.StepCapability;
+import com.randb.digitaldemo1.entity.TaskCapability;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 能力注册表
+ * 启动时加载一次ability.txt，按任务名称索引任务、按预分词的关键词集合索引步骤，
+ * 文件变化时自动重新加载，匹配动作时不再读取和解析文件
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+@Component
+public class CapabilityRegistry {
+
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+
+    // 当前生效的能力快照，重新加载时整体替换
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    private FileWatcher watcher;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        if (digitalLifeConfig.getCapability().isWatch()) {
+            watcher = FileWatcher.watch(Paths.get(digitalLifeConfig.getCapability().getAbilityFile()), "capability-watcher",
+                    () -> {
+                        log.info("检测到能力配置文件变化，重新加载");
+                        reload();
+                    });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * 重新加载能力配置文件
+     * @return 是否加载成功
+     */
+    public boolean reload() {
+        Path abilityFile = Paths.get(digitalLifeConfig.getCapability().getAbilityFile());
+        try {
+            String content = Files.readString(abilityFile);
+            snapshot = parse(content);
+            log.info("能力配置加载完成: {} 个任务", snapshot.tasksByName.size());
+            return true;
+        } catch (Exception e) {
+            log.error("加载能力配置失败 {}: {}", abilityFile, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 获取能力配置原文
+     * @return ability.txt内容
+     */
+    public String getRawContent() {
+        return snapshot.rawContent;
+    }
+
+    /**
+     * 获取所有任务能力
+     * @return 任务能力列表
+     */
+    public List<TaskCapability> getTasks() {
+        return snapshot.tasks;
+    }
+
+    /**
+     * 按任务名称查找任务能力
+     * 先精确匹配；tasks.txt中的任务名往往是ability.txt任务名的前缀，精确匹配失败时按前缀匹配
+     * @param taskName 任务名称
+     * @return 任务能力，找不到返回null
+     */
+    public TaskCapability findTask(String taskName) {
+        return findTask(snapshot, taskName);
+    }
+
+    private TaskCapability findTask(Snapshot current, String taskName) {
+        if (taskName == null) {
+            return null;
+        }
+        TaskCapability task = current.tasksByName.get(taskName);
+        if (task != null) {
+            return task;
+        }
+        for (TaskCapability candidate : current.tasks) {
+            if (candidate.getName().startsWith(taskName)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 在任务的步骤中查找与动作描述得分最高的步骤
+     * @param taskName 任务名称
+     * @param actionDescription 动作描述
+     * @return 匹配的步骤，找不到返回null
+     */
+    public StepCapability matchStep(String taskName, String actionDescription) {
+        Snapshot current = snapshot;
+        TaskCapability task = findTask(current, taskName);
+        if (task == null || actionDescription == null) {
+            return null;
+        }
+
+        KeywordMatcher.Match match = current.matchersByTask.get(task.getName()).bestMatch(actionDescription);
+        if (match == null) {
+            return null;
+        }
+        log.debug("动作 '{}' 匹配步骤 '{}'，得分 {}", actionDescription, match.getStep().getDescription(), match.getScore());
+        return match.getStep();
+    }
+
+    /**
+     * 查找接口在能力配置中设置的响应缓存时间
+     * 动作中的 "cache": {"ttlSeconds": 30} 或 "cache": 30，0表示不缓存
+     * @param url 请求URL（忽略查询参数）
+     * @return 缓存时间（秒），未配置返回null
+     */
+    public Integer findCacheTtlSeconds(String url) {
+        return url != null ? snapshot.cacheTtlByUrl.get(stripQuery(url)) : null;
+    }
+
+    /**
+     * 查找请求对应的能力配置接口（按URL路径匹配，忽略主机和查询参数）
+     * @param url 请求URL
+     * @return 能力配置中的接口路径，不是配置中的接口时返回null
+     */
+    public String findEndpoint(String url) {
+        String path = pathOf(url);
+        return path != null && snapshot.endpoints.contains(path) ? path : null;
+    }
+
+    /**
+     * 解析能力配置，兼容顶层数组和 {"tasks": [...]} 两种格式
+     */
+    private Snapshot parse(String content) {
+        // 保持字段顺序，任务定义会原样放入Prompt
+        Object root = JSON.parse(content, Feature.OrderedField);
+        JSONArray taskArray;
+        if (root instanceof JSONArray) {
+            taskArray = (JSONArray) root;
+        } else if (root instanceof JSONObject && ((JSONObject) root).containsKey("tasks")) {
+            taskArray = ((JSONObject) root).getJSONArray("tasks");
+        } else {
+            throw new IllegalArgumentException("无法识别的能力配置格式");
+        }
+
+        Map<String, TaskCapability> tasksByName = new LinkedHashMap<>();
+        Map<String, Integer> cacheTtlByUrl = new HashMap<>();
+        for (int i = 0; i < taskArray.size(); i++) {
+            JSONObject taskJson = taskArray.getJSONObject(i);
+            String taskName = taskJson.getString("任务");
+            if (taskName == null) {
+                continue;
+            }
+
+            List<StepCapability> steps = new ArrayList<>();
+            JSONArray stepArray = taskJson.getJSONArray("步骤");
+            if (stepArray != null) {
+                for (int j = 0; j < stepArray.size(); j++) {
+                    JSONObject stepJson = stepArray.getJSONObject(j);
+                    String description = stepJson.getString("描述");
+                    Set<String> keywords = KeywordMatcher.extractInternedKeywords(description);
+                    JSONObject action = stepJson.getJSONObject("动作");
+                    steps.add(new StepCapability(j, description, action, keywords));
+                    putCacheTtl(action, cacheTtlByUrl);
+                }
+            }
+            tasksByName.put(taskName, new TaskCapability(taskName, taskJson.toJSONString(), steps));
+        }
+        return new Snapshot(content, tasksByName, cacheTtlByUrl);
+    }
+
+    /**
+     * 读取动作的缓存配置
+     */
+    private static void putCacheTtl(JSONObject action, Map<String, Integer> cacheTtlByUrl) {
+        if (action == null || action.getString("url") == null || !action.containsKey("cache")) {
+            return;
+        }
+        Object cache = action.get("cache");
+        Integer ttlSeconds = cache instanceof JSONObject ? ((JSONObject) cache).getInteger("ttlSeconds")
+                : cache instanceof Number ? ((Number) cache).intValue() : null;
+        if (ttlSeconds != null) {
+            cacheTtlByUrl.put(stripQuery(action.getString("url")), Math.max(ttlSeconds, 0));
+        }
+    }
+
+    private static String stripQuery(String url) {
+        int query = url.indexOf('?');
+        return query >= 0 ? url.substring(0, query) : url;
+    }
+
+    /**
+     * 取URL的路径部分
+     */
+    private static String pathOf(String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            String path = URI.create(url).getPath();
+            return path != null && !path.isEmpty() ? path : "/";
+        } catch (IllegalArgumentException e) {
+            return stripQuery(url);
+        }
+    }
+
+    /**
+     * 不可变的能力快照
+     */
+    private static class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(null, Collections.emptyMap(), Collections.emptyMap());
+
+        private final String rawContent;
+        private final Map<String, TaskCapability> tasksByName;
+        private final List<TaskCapability> tasks;
+        private final Map<String, KeywordMatcher> matchersByTask;
+        private final Map<String, Integer> cacheTtlByUrl;
+        // 能力配置中所有接口的路径
+        private final Set<String> endpoints;
+
+        private Snapshot(String rawContent, Map<String, TaskCapability> tasksByName, Map<String, Integer> cacheTtlByUrl) {
+            this.rawContent = rawContent;
+            this.cacheTtlByUrl = Map.copyOf(cacheTtlByUrl);
+            this.tasksByName = Collections.unmodifiableMap(tasksByName);
+            this.tasks = List.copyOf(tasksByName.values());
+
+            Set<String> paths = new HashSet<>();
+            for (TaskCapability task : tasks) {
+                for (StepCapability step : task.getSteps()) {
+                    if (step.hasHttpAction()) {
+                        paths.add(pathOf(step.getAction().getString("url")));
+                    }
+                }
+            }
+            this.endpoints = Set.copyOf(paths);
+
+            // 每个任务一个关键词倒排索引
+            Map<String, KeywordMatcher> matchers = new HashMap<>();
+            tasksByName.forEach((name, task) -> matchers.put(name, new KeywordMatcher(task.getSteps())));
+            this.matchersByTask = Collections.unmodifiableMap(matchers);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.randb.digitaldemo1.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * 配置文件监听
+ * 监听文件所在目录，文件创建或修改时回调（能力配置、任务配置的热加载共用）
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public final class FileWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+
+    private FileWatcher(WatchService watchService) {
+        this.watchService = watchService;
+    }
+
+    /**
+     * 开始监听文件
+     * @param file 监听的文件
+     * @param threadName 监听线程名称
+     * @param onChange 文件变化时的回调，在监听线程中执行
+     * @return 监听器，目录不存在或无法监听时返回null
+     */
+    public static FileWatcher watch(Path file, String threadName, Runnable onChange) {
+        Path absolute = file.toAbsolutePath();
+        Path directory = absolute.getParent();
+        if (directory == null || !Files.isDirectory(directory)) {
+            log.warn("配置目录不存在，不监听文件变化: {}", directory);
+            return null;
+        }
+
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            log.warn("无法监听文件变化 {}: {}", absolute, e.getMessage());
+            return null;
+        }
+
+        FileWatcher watcher = new FileWatcher(watchService);
+        Thread thread = new Thread(() -> watcher.watchLoop(absolute.getFileName(), onChange), threadName);
+        thread.setDaemon(true);
+        thread.start();
+        return watcher;
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            log.debug("关闭文件监听失败: {}", e.getMessage());
+        }
+    }
+
+    private void watchLoop(Path fileName, Runnable onChange) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (fileName.equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    onChange.run();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.debug("文件监听已关闭: {}", fileName);
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSON;
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 基于本地追加日志的状态存储
+ * 状态快照以记录的形式追加到内存映射文件，写入只是一次内存拷贝，进程崩溃后已写入的记录仍在页缓存中，不会丢失；
+ * 后台线程按间隔把映射区刷到磁盘，并在日志中过期记录过多时压缩：只保留每个数字生命最新的快照，写入临时文件后原子替换。
+ *
+ * 文件格式：8字节文件头，之后是连续的记录 [长度(4)][CRC32(4)][类型(1)][ID长度(2)][数字生命ID][快照JSON]，
+ * 长度最后写入，长度为0表示日志结束；启动时顺序读取，遇到长度越界或CRC不一致的记录（写入一半时崩溃）即视为日志结束
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public final class JournalStateStore implements StateStore {
+
+    // "DLSTATE1"
+    private static final long MAGIC = 0x444C535441544531L;
+
+    private static final int FILE_HEADER = 8;
+
+    // 长度(4) + CRC32(4) + 类型(1)
+    private static final int RECORD_HEADER = 9;
+
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_REMOVE = 2;
+
+    // 日志大小超过有效快照大小的倍数时压缩
+    private static final int COMPACT_RATIO = 4;
+
+    private final Path file;
+
+    private final int initialSize;
+
+    // 数字生命ID -> 最新的保存记录（完整记录字节，压缩时直接写出）
+    private final Map<String, byte[]> live = new HashMap<>();
+
+    private final ScheduledExecutorService syncer;
+
+    private long liveBytes;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    // 下一条记录写入的位置
+    private int position;
+
+    private boolean dirty;
+
+    private boolean closed;
+
+    /**
+     * @param file 日志文件
+     * @param initialSizeBytes 初始映射大小，空间不足时先压缩，仍不足时翻倍
+     * @param syncIntervalMs 刷盘和检查压缩的间隔（毫秒）
+     */
+    public JournalStateStore(Path file, int initialSizeBytes, long syncIntervalMs) throws IOException {
+        this.file = file;
+        this.initialSize = Math.max(initialSizeBytes, 64 * 1024);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        long start = System.nanoTime();
+        map(Math.max(Files.exists(file) ? Files.size(file) : 0, initialSize));
+        recover();
+        log.info("状态存储: {}（{} 个数字生命，日志 {}KB，读取耗时 {}ms）", file.toAbsolutePath(), live.size(),
+                position / 1024, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "state-store-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(syncIntervalMs, 10);
+        syncer.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public AgentSnapshot load(String agentId) {
+        byte[] record;
+        synchronized (this) {
+            record = live.get(agentId);
+        }
+        if (record == null) {
+            return null;
+        }
+        int idLength = ((record[RECORD_HEADER] & 0xFF) << 8) | (record[RECORD_HEADER + 1] & 0xFF);
+        int offset = RECORD_HEADER + 2 + idLength;
+        try {
+            return JSON.parseObject(new String(record, offset, record.length - offset, StandardCharsets.UTF_8),
+                    AgentSnapshot.class);
+        } catch (RuntimeException e) {
+            log.warn("[{}] 状态快照解析失败，忽略: {}", agentId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(AgentSnapshot snapshot) {
+        append(OP_SAVE, snapshot.getAgentId(), JSON.toJSONString(snapshot).getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void remove(String agentId) {
+        append(OP_REMOVE, agentId, new byte[0]);
+    }
+
+    @Override
+    public void flush() {
+        MappedByteBuffer target;
+        synchronized (this) {
+            if (closed || !dirty) {
+                return;
+            }
+            dirty = false;
+            target = buffer;
+        }
+        // 刷盘不持有锁，不阻塞数字生命写入；期间压缩替换了映射区时，新文件在压缩时已经刷盘
+        target.force();
+    }
+
+    @Override
+    public void close() {
+        syncer.shutdownNow();
+        flush();
+        synchronized (this) {
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.warn("关闭状态存储失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 追加一条记录（序列化和CRC计算在锁外完成，锁内只有一次内存拷贝）
+     */
+    private void append(byte op, String agentId, byte[] json) {
+        byte[] id = agentId.getBytes(StandardCharsets.UTF_8);
+        int length = 2 + id.length + json.length;
+        byte[] record = new byte[RECORD_HEADER + length];
+        ByteBuffer.wrap(record)
+                .putInt(length)
+                .putInt(0)
+                .put(op)
+                .putShort((short) id.length)
+                .put(id)
+                .put(json);
+        CRC32 crc = new CRC32();
+        crc.update(record, RECORD_HEADER - 1, length + 1);
+        ByteBuffer.wrap(record).putInt(4, (int) crc.getValue());
+
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            try {
+                ensureCapacity(record.length);
+            } catch (IOException e) {
+                log.error("[{}] 状态存储空间不足，快照未保存: {}", agentId, e.getMessage());
+                return;
+            }
+            // 先写内容，最后写长度：写入一半时长度仍为0，重启后视为日志结束
+            buffer.put(position + 4, record, 4, record.length - 4);
+            buffer.putInt(position, length);
+            position += record.length;
+            dirty = true;
+
+            byte[] previous = op == OP_SAVE ? live.put(agentId, record) : live.remove(agentId);
+            liveBytes += (op == OP_SAVE ? record.length : 0) - (previous != null ? previous.length : 0);
+        }
+    }
+
+    /**
+     * 后台维护：刷盘，过期记录过多时压缩
+     */
+    private void maintain() {
+        try {
+            flush();
+            synchronized (this) {
+                if (!closed && position > initialSize / 4 && position > liveBytes * COMPACT_RATIO) {
+                    compact(0);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("状态存储维护失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 确保映射区剩余空间足够：先压缩，仍不足时扩大文件
+     */
+    private void ensureCapacity(int recordLength) throws IOException {
+        if (position + recordLength <= buffer.capacity()) {
+            return;
+        }
+        compact(recordLength);
+    }
+
+    /**
+     * 压缩：每个数字生命只保留最新的快照，写入临时文件并刷盘后原子替换日志文件，再重新映射
+     * @param reserve 压缩后需要额外预留的空间
+     */
+    private void compact(int reserve) throws IOException {
+        long required = FILE_HEADER + liveBytes + reserve;
+        long size = initialSize;
+        while (size < required * 2) {
+            size *= 2;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("状态快照总大小超出单个映射文件的上限");
+        }
+
+        long start = System.nanoTime();
+        int before = position;
+        Path temp = file.resolveSibling(file.getFileName() + ".compact");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.allocate(FILE_HEADER).putLong(0, MAGIC));
+            for (byte[] record : live.values()) {
+                out.write(ByteBuffer.wrap(record));
+            }
+            out.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        // 旧的映射区在没有引用后由GC释放
+        channel.close();
+        map(size);
+        position = (int) (FILE_HEADER + liveBytes);
+        dirty = false;
+        log.info("状态存储已压缩: {}KB -> {}KB（{} 个数字生命，耗时 {}ms）", before / 1024, position / 1024, live.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private void map(long size) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // 映射超出文件大小的区域时文件自动扩展，扩展部分为0
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    /**
+     * 启动时读取日志：校验文件头，顺序读取记录直到日志结束，重建每个数字生命最新的快照
+     */
+    private void recover() throws IOException {
+        long magic = buffer.getLong(0);
+        if (magic == 0) {
+            buffer.putLong(0, MAGIC);
+            position = FILE_HEADER;
+            return;
+        }
+        if (magic != MAGIC) {
+            throw new IOException("不是状态存储文件: " + file.toAbsolutePath());
+        }
+
+        int offset = FILE_HEADER;
+        int capacity = buffer.capacity();
+        boolean torn = false;
+        while (offset + RECORD_HEADER <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            // 长度可能是任意值，按剩余空间比较避免整数溢出
+            if (length < 3 || length > capacity - offset - RECORD_HEADER) {
+                torn = true;
+                break;
+            }
+            byte[] record = new byte[RECORD_HEADER + length];
+            buffer.get(offset, record);
+            CRC32 crc = new CRC32();
+            crc.update(record, RECORD_HEADER - 1, length + 1);
+            int idLength = ((record[RECORD_HEADER] & 0xFF) << 8) | (record[RECORD_HEADER + 1] & 0xFF);
+            if ((int) crc.getValue() != ByteBuffer.wrap(record).getInt(4) || 2 + idLength > length) {
+                torn = true;
+                break;
+            }
+
+            String agentId = new String(record, RECORD_HEADER + 2, idLength, StandardCharsets.UTF_8);
+            byte[] previous = record[RECORD_HEADER - 1] == OP_SAVE ? live.put(agentId, record) : live.remove(agentId);
+            liveBytes += (record[RECORD_HEADER - 1] == OP_SAVE ? record.length : 0) - (previous != null ? previous.length : 0);
+            offset += record.length;
+        }
+        position = offset;
+
+        if (torn) {
+            // 清除写入一半的记录，避免之后较短的记录后面残留旧数据
+            log.warn("状态存储在 {} 字节处有不完整的记录（上次运行时中断），已丢弃", offset);
+            for (int i = offset; i < capacity; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            dirty = true;
+        }
+    }
+}
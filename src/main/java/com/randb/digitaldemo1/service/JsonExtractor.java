@@ -0,0 +1,53 @@
+package com.randb.digitaldemo1.service;
+
+/**
+ * 从LLM回复中提取JSON文本
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class JsonExtractor {
+
+    private JsonExtractor() {
+    }
+
+    /**
+     * 从文本中提取第一个完整的JSON对象（按括号配对，忽略字符串内的括号）
+     * 括号不配对时退化为第一个"{"到最后一个"}"之间的内容
+     * @param text 文本
+     * @return JSON对象文本，没有时返回null
+     */
+    public static String extractFirstObject(String text) {
+        if (text == null) {
+            return null;
+        }
+        int start = text.indexOf('{');
+        if (start < 0) {
+            return null;
+        }
+
+        int depth = 0;
+        boolean inString = false;
+        boolean escape = false;
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (inString) {
+                if (escape) {
+                    escape = false;
+                } else if (c == '\\') {
+                    escape = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return text.substring(start, i + 1);
+            }
+        }
+
+        int end = text.lastIndexOf('}');
+        return end > start ? text.substring(start, end + 1) : null;
+    }
+}
@@ -0,0 +1,177 @@
+package com.randb.digitaldemo1.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * 多关键词单遍扫描自动机（Aho–Corasick）
+ * 每个关键词属于一个类别（用位掩码表示），扫描文本一遍即可得到命中的全部类别，
+ * 所有类别都命中后提前结束；ASCII字母不区分大小写
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class KeywordAutomaton {
+
+    // 节点的出边字符（按字符排序）和目标节点
+    private final char[][] labels;
+    private final int[][] targets;
+
+    // 失败指针
+    private final int[] fail;
+
+    // 到达该节点时命中的类别（包含失败链上的类别）
+    private final int[] output;
+
+    private final int allCategories;
+
+    private KeywordAutomaton(char[][] labels, int[][] targets, int[] fail, int[] output, int allCategories) {
+        this.labels = labels;
+        this.targets = targets;
+        this.fail = fail;
+        this.output = output;
+        this.allCategories = allCategories;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * 扫描文本
+     * @param text 文本
+     * @return 命中的类别位掩码，没有命中时为0
+     */
+    public int scan(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int matched = 0;
+        int node = 0;
+        for (int i = 0, length = text.length(); i < length && matched != allCategories; i++) {
+            char c = toLower(text.charAt(i));
+            int next;
+            while ((next = next(node, c)) < 0 && node != 0) {
+                node = fail[node];
+            }
+            node = Math.max(next, 0);
+            matched |= output[node];
+        }
+        return matched;
+    }
+
+    private int next(int node, char c) {
+        int index = Arrays.binarySearch(labels[node], c);
+        return index >= 0 ? targets[node][index] : -1;
+    }
+
+    private static char toLower(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * 自动机构建器
+     */
+    public static final class Builder {
+
+        private final List<StringBuilder> edgeLabels = new ArrayList<>();
+        private final List<List<Integer>> edgeTargets = new ArrayList<>();
+        private final List<Integer> outputs = new ArrayList<>();
+        private int allCategories;
+
+        private Builder() {
+            addNode();
+        }
+
+        /**
+         * 添加关键词
+         * @param category 类别位掩码
+         * @param keywords 关键词
+         */
+        public Builder add(int category, String... keywords) {
+            for (String keyword : keywords) {
+                int node = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = toLower(keyword.charAt(i));
+                    int index = edgeLabels.get(node).indexOf(String.valueOf(c));
+                    if (index >= 0) {
+                        node = edgeTargets.get(node).get(index);
+                    } else {
+                        int child = addNode();
+                        edgeLabels.get(node).append(c);
+                        edgeTargets.get(node).add(child);
+                        node = child;
+                    }
+                }
+                outputs.set(node, outputs.get(node) | category);
+            }
+            allCategories |= category;
+            return this;
+        }
+
+        public KeywordAutomaton build() {
+            int size = outputs.size();
+            char[][] labels = new char[size][];
+            int[][] targets = new int[size][];
+            int[] output = new int[size];
+            for (int node = 0; node < size; node++) {
+                sortEdges(node, labels, targets);
+                output[node] = outputs.get(node);
+            }
+
+            // 按层次遍历计算失败指针，并把失败链上的类别合并到节点
+            int[] fail = new int[size];
+            Queue<Integer> queue = new ArrayDeque<>();
+            for (int child : targets[0]) {
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int node = queue.poll();
+                for (int i = 0; i < labels[node].length; i++) {
+                    char c = labels[node][i];
+                    int child = targets[node][i];
+                    int state = fail[node];
+                    int next;
+                    while ((next = find(labels, targets, state, c)) < 0 && state != 0) {
+                        state = fail[state];
+                    }
+                    fail[child] = next >= 0 ? next : 0;
+                    output[child] |= output[fail[child]];
+                    queue.add(child);
+                }
+            }
+            return new KeywordAutomaton(labels, targets, fail, output, allCategories);
+        }
+
+        private int addNode() {
+            edgeLabels.add(new StringBuilder());
+            edgeTargets.add(new ArrayList<>());
+            outputs.add(0);
+            return outputs.size() - 1;
+        }
+
+        private void sortEdges(int node, char[][] labels, int[][] targets) {
+            StringBuilder nodeLabels = edgeLabels.get(node);
+            List<Integer> nodeTargets = edgeTargets.get(node);
+            Integer[] order = new Integer[nodeLabels.length()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Character.compare(nodeLabels.charAt(a), nodeLabels.charAt(b)));
+
+            labels[node] = new char[order.length];
+            targets[node] = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                labels[node][i] = nodeLabels.charAt(order[i]);
+                targets[node][i] = nodeTargets.get(order[i]);
+            }
+        }
+
+        private static int find(char[][] labels, int[][] targets, int node, char c) {
+            int index = Arrays.binarySearch(labels[node], c);
+            return index >= 0 ? targets[node][index] : -1;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.entity.StepCapability;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 动作描述与步骤描述的关键词匹配引擎
+ * 步骤关键词在加载时分词并驻留（intern），同时建立 关键词 -> 步骤 的倒排索引，
+ * 匹配时只需对动作描述分词一次，再通过倒排索引累计每个步骤的命中数，返回得分最高的步骤
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class KeywordMatcher {
+
+    /**
+     * 匹配阈值：动作描述中至少有该比例的关键词命中步骤才算匹配
+     */
+    public static final double MATCH_THRESHOLD = 0.5;
+
+    // 常见的停用词
+    private static final Set<String> STOP_WORDS = new HashSet<>(List.of(
+            "的", "了", "在", "是", "和", "与", "或", "但", "然后", "接着", "之后"));
+
+    private final List<StepCapability> steps;
+
+    // 关键词 -> 包含该关键词的步骤下标
+    private final Map<String, int[]> invertedIndex;
+
+    public KeywordMatcher(List<StepCapability> steps) {
+        this.steps = List.copyOf(steps);
+
+        Map<String, List<Integer>> postings = new HashMap<>();
+        for (int i = 0; i < this.steps.size(); i++) {
+            for (String keyword : this.steps.get(i).getKeywords()) {
+                postings.computeIfAbsent(keyword, k -> new ArrayList<>()).add(i);
+            }
+        }
+
+        Map<String, int[]> index = new HashMap<>(postings.size() * 2);
+        postings.forEach((keyword, stepIndexes) ->
+                index.put(keyword, stepIndexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.invertedIndex = index;
+    }
+
+    /**
+     * 查找与动作描述得分最高的步骤
+     * @param actionDescription 动作描述
+     * @return 匹配结果，没有步骤达到阈值时返回null
+     */
+    public Match bestMatch(String actionDescription) {
+        if (actionDescription == null) {
+            return null;
+        }
+        return bestMatch(extractKeywords(actionDescription));
+    }
+
+    /**
+     * 查找与动作关键词得分最高的步骤
+     * 得分 = 命中的关键词数 / 动作关键词数；得分相同时优先关键词更少（更具体）的步骤，再按步骤顺序
+     * @param actionKeywords 动作描述的关键词
+     * @return 匹配结果，没有步骤达到阈值时返回null
+     */
+    public Match bestMatch(Set<String> actionKeywords) {
+        if (actionKeywords.isEmpty() || steps.isEmpty()) {
+            return null;
+        }
+
+        int[] hits = new int[steps.size()];
+        for (String keyword : actionKeywords) {
+            int[] stepIndexes = invertedIndex.get(keyword);
+            if (stepIndexes != null) {
+                for (int stepIndex : stepIndexes) {
+                    hits[stepIndex]++;
+                }
+            }
+        }
+
+        int best = -1;
+        for (int i = 0; i < hits.length; i++) {
+            if (hits[i] == 0) {
+                continue;
+            }
+            if (best < 0 || hits[i] > hits[best]
+                    || (hits[i] == hits[best] && steps.get(i).getKeywords().size() < steps.get(best).getKeywords().size())) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+
+        double score = (double) hits[best] / actionKeywords.size();
+        return score >= MATCH_THRESHOLD ? new Match(steps.get(best), score) : null;
+    }
+
+    /**
+     * 提取关键词：按非中文、字母、数字的字符切分，去除单字和停用词
+     * @param text 文本
+     * @return 关键词集合（不可变）
+     */
+    public static Set<String> extractKeywords(String text) {
+        return extractKeywords(text, false);
+    }
+
+    /**
+     * 提取关键词并驻留，用于加载时对步骤描述预分词，同一关键词在各步骤间共享同一实例
+     * @param text 文本
+     * @return 关键词集合（不可变）
+     */
+    public static Set<String> extractInternedKeywords(String text) {
+        return extractKeywords(text, true);
+    }
+
+    private static Set<String> extractKeywords(String text, boolean intern) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        Set<String> keywords = new LinkedHashSet<>();
+        int start = -1;
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            boolean wordChar = i < length && isWordChar(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                if (i - start > 1) {
+                    String word = text.substring(start, i);
+                    if (!STOP_WORDS.contains(word)) {
+                        keywords.add(intern ? word.intern() : word);
+                    }
+                }
+                start = -1;
+            }
+        }
+        return Collections.unmodifiableSet(keywords);
+    }
+
+    private static boolean isWordChar(char c) {
+        return (c >= '\u4e00' && c <= '\u9fa5')
+                || (c >= 'a' && c <= 'z')
+                || (c >= 'A' && c <= 'Z')
+                || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * 匹配结果
+     */
+    public static class Match {
+
+        private final StepCapability step;
+
+        private final double score;
+
+        public Match(StepCapability step, double score) {
+            this.step = step;
+            this.score = score;
+        }
+
+        public StepCapability getStep() {
+            return step;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.Prompt;
+import com.randb.digitaldemo1.entity.TaskCapability;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prompt组装器
+ * 输出规则、我是谁、我能做什么组成的前缀按任务预先构建并缓存，每步只拼接任务进度部分；
+ * 能力配置重新加载后缓存自动失效。前缀固定放在Prompt最前面，模型服务端可复用前缀缓存
+ * （对话starter的ChatRequest只有单个prompt字段，没有独立的system消息）
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+@Component
+public class PromptComposer {
+
+    @Autowired
+    private CapabilityRegistry capabilityRegistry;
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+
+    // 当前能力配置对应的前缀缓存，能力配置重新加载后整体替换
+    private volatile PrefixCache prefixCache = new PrefixCache(null);
+
+    /**
+     * 组装完整Prompt
+     * @param prompt 本步骤的Prompt内容
+     * @return 发送给LLM的Prompt
+     */
+    public String compose(Prompt prompt) {
+        return getPrefix(prompt.getWhatIsMytask()) + prompt.buildProgress();
+    }
+
+    /**
+     * 获取任务对应的Prompt前缀
+     * @param taskName 任务名称
+     * @return Prompt前缀
+     */
+    public String getPrefix(String taskName) {
+        String rawContent = capabilityRegistry.getRawContent();
+        PrefixCache cache = prefixCache;
+        if (cache.source != rawContent) {
+            cache = new PrefixCache(rawContent);
+            prefixCache = cache;
+        }
+
+        boolean relevantOnly = digitalLifeConfig.getPrompt().isRelevantAbilitiesOnly();
+        String key = relevantOnly && taskName != null ? taskName : "";
+        return cache.prefixes.computeIfAbsent(key, k -> Prompt.buildPrefix(abilitiesFor(k, rawContent)));
+    }
+
+    /**
+     * 当前任务相关的能力；找不到任务时返回全部能力
+     */
+    private String abilitiesFor(String taskName, String rawContent) {
+        if (!taskName.isEmpty()) {
+            TaskCapability task = capabilityRegistry.findTask(taskName);
+            if (task != null) {
+                return task.getDefinition();
+            }
+            log.debug("能力配置中找不到任务 '{}'，Prompt中放入全部能力", taskName);
+        }
+        return rawContent;
+    }
+
+    /**
+     * 某一版能力配置对应的前缀缓存
+     */
+    private static class PrefixCache {
+
+        private final String source;
+
+        private final Map<String, String> prefixes = new ConcurrentHashMap<>();
+
+        private PrefixCache(String source) {
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSON;
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Redis协议的共享状态存储（多个节点组成数字生命集群）
+ * 快照保存在一个哈希（数字生命ID -> 快照JSON）中；数字生命线程保存快照时只放入待写队列（同一数字生命只保留最新的一份），
+ * 后台线程按间隔用一次pipeline批量写入，同时续约当前节点持有的租约。
+ * 租约是带过期时间的键（值为节点ID），SET NX获取，脚本比较节点ID后续约和释放。
+ * 本地按发出续约请求的时间记录租约截止时间（有效期的2/3，早于Redis中的过期时间），超过截止时间或续约失败即视为失去租约，
+ * 对应的数字生命不再执行动作并停止；快照同样通过脚本写入，只在租约仍属于当前节点时执行，失去租约的节点不会覆盖接管节点的状态
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public final class RedisStateStore implements StateStore {
+
+    /**
+     * 续约：租约仍属于当前节点时延长过期时间
+     */
+    public static final String RENEW_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+
+    /**
+     * 保存快照：租约仍属于当前节点时写入，否则返回-1
+     */
+    public static final String SAVE_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('hset', KEYS[2], ARGV[2], ARGV[3]) else return -1 end";
+
+    /**
+     * 删除快照：租约属于当前节点或没有节点持有时删除，否则返回-1
+     */
+    public static final String REMOVE_SCRIPT = "local owner = redis.call('get', KEYS[1]) "
+            + "if owner == false or owner == ARGV[1] then return redis.call('hdel', KEYS[2], ARGV[2]) else return -1 end";
+
+    /**
+     * 释放：租约仍属于当前节点时删除
+     */
+    public static final String RELEASE_SCRIPT = "if redis.call('get', KEYS[1]) == ARGV[1] then "
+            + "return redis.call('del', KEYS[1]) else return 0 end";
+
+    // 待写队列中表示删除快照的标记
+    private static final String REMOVED = "\u0000";
+
+    // 脚本发现租约不属于当前节点时的返回值
+    private static final Long NOT_OWNER = -1L;
+
+    private final RespClient client;
+
+    private final String statesKey;
+
+    private final String leasePrefix;
+
+    private final String nodeId;
+
+    private final long leaseTtlMs;
+
+    // 本地认为租约有效的时长：有效期的2/3，留出时钟误差和网络延迟的余量
+    private final long leaseSafeNanos;
+
+    // 数字生命ID -> 待写入的快照JSON（REMOVED表示删除）
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    // 当前节点持有租约的数字生命 -> 本地截止时间（System.nanoTime）
+    private final Map<String, Long> owned = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService writer;
+
+    private volatile long lastRenewedAt = System.currentTimeMillis();
+
+    /**
+     * @param client Redis客户端
+     * @param keyPrefix 键前缀
+     * @param nodeId 当前节点ID
+     * @param leaseTtlMs 租约有效期（毫秒），每1/3有效期续约一次，超过2/3有效期未续约成功视为失去租约
+     * @param flushIntervalMs 批量写入间隔（毫秒）
+     */
+    public RedisStateStore(RespClient client, String keyPrefix, String nodeId, long leaseTtlMs, long flushIntervalMs) {
+        this.client = client;
+        this.statesKey = keyPrefix + "states";
+        this.leasePrefix = keyPrefix + "lease:";
+        this.nodeId = nodeId;
+        this.leaseTtlMs = Math.max(leaseTtlMs, 1000);
+        this.leaseSafeNanos = TimeUnit.MILLISECONDS.toNanos(this.leaseTtlMs * 2 / 3);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "state-store-redis");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(Math.min(flushIntervalMs, this.leaseTtlMs / 3), 10);
+        writer.scheduleWithFixedDelay(this::maintain, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("状态存储: Redis {}（节点 {}，租约 {}ms）", keyPrefix, nodeId, this.leaseTtlMs);
+    }
+
+    @Override
+    public AgentSnapshot load(String agentId) {
+        String json = pending.get(agentId);
+        if (json == null) {
+            try {
+                json = (String) client.call("HGET", statesKey, agentId);
+            } catch (IOException e) {
+                log.warn("[{}] 读取状态快照失败，从头开始: {}", agentId, e.getMessage());
+                return null;
+            }
+        }
+        if (json == null || REMOVED.equals(json)) {
+            return null;
+        }
+        try {
+            return JSON.parseObject(json, AgentSnapshot.class);
+        } catch (RuntimeException e) {
+            log.warn("[{}] 状态快照解析失败，忽略: {}", agentId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void save(AgentSnapshot snapshot) {
+        if (owns(snapshot.getAgentId())) {
+            pending.put(snapshot.getAgentId(), JSON.toJSONString(snapshot));
+        }
+    }
+
+    @Override
+    public void remove(String agentId) {
+        pending.put(agentId, REMOVED);
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        // 取出待写的快照，写入失败时放回（期间有更新的快照时保留更新的）；串行执行，保证同一数字生命的快照按顺序写入
+        Map<String, String> batch = new HashMap<>();
+        for (String agentId : pending.keySet()) {
+            String json = pending.remove(agentId);
+            if (json != null) {
+                batch.put(agentId, json);
+            }
+        }
+
+        // 每个数字生命一条脚本，租约不属于当前节点时不写入
+        List<String> agentIds = new ArrayList<>(batch.keySet());
+        List<String[]> commands = new ArrayList<>(agentIds.size());
+        for (String agentId : agentIds) {
+            String json = batch.get(agentId);
+            String leaseKey = leasePrefix + agentId;
+            commands.add(REMOVED.equals(json)
+                    ? new String[]{"EVAL", REMOVE_SCRIPT, "2", leaseKey, statesKey, nodeId, agentId}
+                    : new String[]{"EVAL", SAVE_SCRIPT, "2", leaseKey, statesKey, nodeId, agentId, json});
+        }
+
+        List<Object> replies;
+        try {
+            replies = client.pipeline(commands);
+        } catch (IOException e) {
+            batch.forEach(pending::putIfAbsent);
+            log.warn("写入状态快照失败，稍后重试（{} 个数字生命）: {}", batch.size(), e.getMessage());
+            return;
+        }
+        for (int i = 0; i < agentIds.size(); i++) {
+            Object reply = replies.get(i);
+            if (reply instanceof RespClient.ErrorReply) {
+                log.warn("[{}] 写入状态快照失败: {}", agentIds.get(i), ((RespClient.ErrorReply) reply).getMessage());
+            } else if (NOT_OWNER.equals(reply)) {
+                log.warn("[{}] 租约已由其他节点持有，快照未写入", agentIds.get(i));
+                if (owned.containsKey(agentIds.get(i))) {
+                    loseLease(agentIds.get(i));
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean acquire(String agentId) {
+        String key = leasePrefix + agentId;
+        long start = System.nanoTime();
+        try {
+            Object reply = client.call("SET", key, nodeId, "NX", "PX", String.valueOf(leaseTtlMs));
+            if (reply == null) {
+                // 已被持有：可能是当前节点之前获取的，续约成功即仍属于当前节点
+                reply = client.call("EVAL", RENEW_SCRIPT, "1", key, nodeId, String.valueOf(leaseTtlMs));
+                if (!Long.valueOf(1).equals(reply)) {
+                    return false;
+                }
+            }
+            owned.put(agentId, start + leaseSafeNanos);
+            return true;
+        } catch (IOException e) {
+            log.warn("[{}] 获取租约失败: {}", agentId, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean owns(String agentId) {
+        Long deadline = owned.get(agentId);
+        return deadline != null && System.nanoTime() - deadline < 0;
+    }
+
+    @Override
+    public void release(String agentId) {
+        Long deadline = owned.remove(agentId);
+        if (deadline == null) {
+            return;
+        }
+        if (System.nanoTime() - deadline < 0) {
+            flush();
+        } else {
+            // 本地已超过截止时间，不再写入快照；Redis中的租约若仍属于当前节点，脚本会删除它
+            pending.remove(agentId);
+        }
+        try {
+            client.call("EVAL", RELEASE_SCRIPT, "1", leasePrefix + agentId, nodeId);
+        } catch (IOException e) {
+            log.warn("[{}] 释放租约失败，等待租约过期: {}", agentId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        writer.shutdownNow();
+        flush();
+        for (String agentId : new ArrayList<>(owned.keySet())) {
+            release(agentId);
+        }
+        client.close();
+    }
+
+    /**
+     * 后台维护：每1/3租约有效期续约一次，超过截止时间的租约视为失效，再批量写入快照
+     */
+    private void maintain() {
+        try {
+            if (System.currentTimeMillis() - lastRenewedAt >= leaseTtlMs / 3) {
+                renewLeases();
+            }
+            expireLeases();
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("状态存储维护失败: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 用一次pipeline续约所有租约；续约失败的数字生命视为已被其他节点接管
+     */
+    private void renewLeases() {
+        List<String> agentIds = new ArrayList<>(owned.keySet());
+        if (agentIds.isEmpty()) {
+            lastRenewedAt = System.currentTimeMillis();
+            return;
+        }
+        List<String[]> commands = new ArrayList<>(agentIds.size());
+        for (String agentId : agentIds) {
+            commands.add(new String[]{"EVAL", RENEW_SCRIPT, "1", leasePrefix + agentId, nodeId, String.valueOf(leaseTtlMs)});
+        }
+
+        long start = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        try {
+            List<Object> replies = client.pipeline(commands);
+            for (int i = 0; i < agentIds.size(); i++) {
+                String agentId = agentIds.get(i);
+                if (Long.valueOf(1).equals(replies.get(i))) {
+                    // 截止时间从发出续约请求时算起；期间已释放或已失效的租约不再恢复
+                    owned.computeIfPresent(agentId, (id, deadline) -> startNanos + leaseSafeNanos);
+                } else {
+                    loseLease(agentId);
+                    log.warn("[{}] 租约已失效，数字生命将停止运行", agentId);
+                }
+            }
+            lastRenewedAt = start;
+        } catch (IOException e) {
+            // 截止时间前续约成功即可，超过截止时间的租约由expireLeases处理
+            log.warn("续约失败，稍后重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 超过本地截止时间仍未续约成功的租约视为失效（Redis中的租约稍后过期，可能被其他节点获取）
+     */
+    private void expireLeases() {
+        for (String agentId : new ArrayList<>(owned.keySet())) {
+            if (owned.containsKey(agentId) && !owns(agentId)) {
+                log.error("[{}] 超过租约截止时间未能续约，数字生命将停止运行", agentId);
+                loseLease(agentId);
+            }
+        }
+    }
+
+    private void loseLease(String agentId) {
+        owned.remove(agentId);
+        pending.remove(agentId);
+    }
+}
@@ -0,0 +1,220 @@
+package com.randb.digitaldemo1.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 最小的Redis协议（RESP2）客户端
+ * 单连接，同一时间只有一个线程使用；pipeline一次写出多条命令再依次读取回复，批量写入只需要一次网络往返。
+ * 连接断开后下一次调用时自动重连
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class RespClient implements AutoCloseable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int database;
+    private final int timeoutMs;
+
+    private Socket socket;
+    private InputStream in;
+    private OutputStream out;
+
+    public RespClient(String host, int port, String password, int database, int timeoutMs) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.database = database;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * 执行一条命令
+     * @return 回复：简单字符串和批量字符串为String（空值为null），整数为Long，数组为List
+     * @throws IOException 连接失败，或服务端返回错误
+     */
+    public synchronized Object call(String... command) throws IOException {
+        Object reply = pipeline(Collections.singletonList(command)).get(0);
+        if (reply instanceof ErrorReply) {
+            throw new IOException(((ErrorReply) reply).getMessage());
+        }
+        return reply;
+    }
+
+    /**
+     * 一次写出多条命令，再按顺序读取回复
+     * @return 每条命令的回复，服务端返回错误的命令对应ErrorReply
+     * @throws IOException 连接失败（已发出的命令是否执行不确定）
+     */
+    public synchronized List<Object> pipeline(List<String[]> commands) throws IOException {
+        ensureConnected();
+        try {
+            for (String[] command : commands) {
+                writeCommand(command);
+            }
+            out.flush();
+            List<Object> replies = new ArrayList<>(commands.size());
+            for (int i = 0; i < commands.size(); i++) {
+                replies.add(readReply());
+            }
+            return replies;
+        } catch (IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        disconnect();
+    }
+
+    private void ensureConnected() throws IOException {
+        if (socket != null) {
+            return;
+        }
+        Socket connection = new Socket();
+        try {
+            connection.connect(new InetSocketAddress(host, port), timeoutMs);
+            connection.setSoTimeout(timeoutMs);
+            connection.setTcpNoDelay(true);
+            socket = connection;
+            in = new BufferedInputStream(connection.getInputStream(), 8192);
+            out = new BufferedOutputStream(connection.getOutputStream(), 8192);
+            if (password != null && !password.isEmpty()) {
+                expectOk(new String[]{"AUTH", password});
+            }
+            if (database > 0) {
+                expectOk(new String[]{"SELECT", String.valueOf(database)});
+            }
+        } catch (IOException e) {
+            disconnect();
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void expectOk(String[] command) throws IOException {
+        writeCommand(command);
+        out.flush();
+        Object reply = readReply();
+        if (reply instanceof ErrorReply) {
+            throw new IOException(command[0] + " 失败: " + ((ErrorReply) reply).getMessage());
+        }
+    }
+
+    private void disconnect() {
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 连接已不可用
+            }
+        }
+        socket = null;
+        in = null;
+        out = null;
+    }
+
+    private void writeCommand(String[] command) throws IOException {
+        out.write('*');
+        out.write(ascii(command.length));
+        out.write(CRLF);
+        for (String argument : command) {
+            byte[] bytes = argument.getBytes(StandardCharsets.UTF_8);
+            out.write('$');
+            out.write(ascii(bytes.length));
+            out.write(CRLF);
+            out.write(bytes);
+            out.write(CRLF);
+        }
+    }
+
+    private Object readReply() throws IOException {
+        int type = in.read();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                return new ErrorReply(readLine());
+            case ':':
+                return Long.parseLong(readLine());
+            case '$': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length || in.read() != '\r' || in.read() != '\n') {
+                    throw new EOFException("Redis连接已断开");
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            case '*': {
+                int count = Integer.parseInt(readLine());
+                if (count < 0) {
+                    return null;
+                }
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(readReply());
+                }
+                return items;
+            }
+            case -1:
+                throw new EOFException("Redis连接已断开");
+            default:
+                throw new IOException("无法识别的Redis回复类型: " + (char) type);
+        }
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(32);
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException("Redis连接已断开");
+            }
+            line.write(b);
+        }
+        if (in.read() != '\n') {
+            throw new IOException("Redis回复格式错误");
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(int value) {
+        return Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 服务端返回的错误
+     */
+    public static final class ErrorReply {
+
+        private final String message;
+
+        public ErrorReply(String message) {
+            this.message = message;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数字生命的动作响应缓存
+ * 按 方法+URL+参数+请求体+token标识 缓存响应，容量固定，超出时淘汰最久未使用的记录；
+ * 过期的记录在带有ETag或Last-Modified时保留，用于发起条件请求
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class ResponseCache {
+
+    private final int maxEntries;
+
+    private final LinkedHashMap<String, Entry> entries;
+
+    public ResponseCache(int maxEntries) {
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 生成缓存键
+     * @param token 登录token，token变化后不再命中之前的缓存；为null表示未登录
+     */
+    public static String key(String method, String url, Map<String, Object> params, Object body, String token) {
+        StringBuilder key = new StringBuilder(128)
+                .append(method != null ? method.toUpperCase() : "GET").append(' ').append(url);
+        if (params != null && !params.isEmpty()) {
+            key.append('?').append(JSON.toJSONString(params, SerializerFeature.MapSortField));
+        }
+        if (body != null) {
+            key.append('|').append(body instanceof String ? body : JSON.toJSONString(body, SerializerFeature.MapSortField));
+        }
+        if (token != null) {
+            key.append('#').append(Integer.toHexString(token.hashCode()));
+        }
+        return key.toString();
+    }
+
+    /**
+     * 获取缓存记录（包括已过期但可重新验证的记录）
+     * @return 缓存记录，不存在返回null
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    public synchronized void remove(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 删除某个URL的所有缓存记录（对该URL执行了写操作后调用）
+     */
+    public synchronized void invalidateUrl(String url) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().url.equals(url)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 缓存的响应
+     */
+    public static final class Entry {
+
+        private final String url;
+        private final int statusCode;
+        private final String body;
+        private final String etag;
+        private final String lastModified;
+        private final long expiresAtMillis;
+
+        public Entry(String url, int statusCode, String body, String etag, String lastModified, long expiresAtMillis) {
+            this.url = url;
+            this.statusCode = statusCode;
+            this.body = body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        public String getLastModified() {
+            return lastModified;
+        }
+
+        /**
+         * 是否仍在有效期内
+         */
+        public boolean isFresh(long nowMillis) {
+            return nowMillis < expiresAtMillis;
+        }
+
+        /**
+         * 重新验证通过后延长有效期
+         */
+        public Entry withExpiry(long expiresAtMillis) {
+            return new Entry(url, statusCode, body, etag, lastModified, expiresAtMillis);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.entity.ResponseClassification;
+import com.randb.digitaldemo1.entity.ResponseView;
+
+import java.util.Map;
+
+/**
+ * HTTP响应检查工具
+ * 对响应做一次分类：JSON响应按code、success、msg、data字段判断，
+ * 非JSON响应或字段无法判断时用关键词自动机单遍扫描；分类结果随响应一起保存，
+ * 引擎构建任务指导与任务完成判断共用
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class ResponseInspector {
+
+    /**
+     * 动作执行器保存请求失败信息时使用的前缀
+     */
+    public static final String REQUEST_FAILURE_PREFIX = "ERROR: ";
+
+    /**
+     * 平台约定的业务状态码
+     */
+    private static final int CODE_SUCCESS = 10001;
+    private static final int CODE_ERROR = 10002;
+
+    private static final int SUCCESS = 1;
+    private static final int ERROR = 2;
+
+    private static final KeywordAutomaton KEYWORDS = KeywordAutomaton.builder()
+            .add(SUCCESS, "成功", "success", "完成")
+            .add(ERROR, "错误", "失败", "error", "异常")
+            .build();
+
+    private ResponseInspector() {
+    }
+
+    /**
+     * 对响应分类
+     * @param response 已解析的响应
+     * @return 分类结果
+     */
+    public static ResponseClassification classify(ResponseView response) {
+        String raw = response.getRaw();
+        if (raw == null) {
+            return ResponseClassification.NONE;
+        }
+        if (isRequestFailure(raw)) {
+            return new ResponseClassification(false, true, false, false, true);
+        }
+
+        JSONObject json = response.getJson();
+        if (json == null) {
+            int matched = KEYWORDS.scan(raw);
+            return new ResponseClassification((matched & SUCCESS) != 0, (matched & ERROR) != 0, false, false, false);
+        }
+
+        Object data = json.get("data");
+        String msg = json.getString("msg");
+        boolean emptyData = data == null && (msg == null || msg.trim().isEmpty());
+
+        // 优先使用业务状态码和success字段，无法判断时再扫描msg
+        int matched = statusOf(json);
+        if (matched == 0) {
+            matched = KEYWORDS.scan(msg);
+            if (json.containsKey("error")) {
+                matched |= ERROR;
+            }
+        }
+        return new ResponseClassification((matched & SUCCESS) != 0, (matched & ERROR) != 0,
+                hasData(data), emptyData, false);
+    }
+
+    /**
+     * 检查是否为请求失败（请求未发出、超时或HTTP错误状态）
+     */
+    public static boolean isRequestFailure(String response) {
+        return response != null && response.startsWith(REQUEST_FAILURE_PREFIX);
+    }
+
+    private static int statusOf(JSONObject json) {
+        Object code = json.get("code");
+        if (code instanceof Number) {
+            int value = ((Number) code).intValue();
+            if (value == CODE_SUCCESS) {
+                return SUCCESS;
+            }
+            if (value == CODE_ERROR) {
+                return ERROR;
+            }
+        }
+        Object success = json.get("success");
+        if (success instanceof Boolean) {
+            return (Boolean) success ? SUCCESS : ERROR;
+        }
+        return 0;
+    }
+
+    private static boolean hasData(Object data) {
+        if (data instanceof JSONArray) {
+            return !((JSONArray) data).isEmpty();
+        }
+        if (data instanceof Map) {
+            return !((Map<?, ?>) data).isEmpty();
+        }
+        if (data instanceof String) {
+            return !((String) data).isEmpty();
+        }
+        return data != null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.ResponseView;
+
+import java.util.Map;
+
+/**
+ * HTTP响应摘要
+ * 响应保存时按字符、字段预算裁剪一次：超过深度的对象折叠、长数组只保留前几项、长字符串截断、
+ * 字段过多时省略其余字段；裁剪后仍超出字符预算时收紧数组和字符串预算重试，最后按字符硬截断。
+ * 保存的摘要用于构建Prompt和任务完成判断，避免大响应撑大Prompt和堆内存
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class ResponseSummarizer {
+
+    // 超出字符预算时收紧预算的最多次数
+    private static final int MAX_SHRINK_ROUNDS = 3;
+
+    private final boolean enabled;
+    private final int maxChars;
+    private final int maxDepth;
+    private final int maxArrayItems;
+    private final int maxFields;
+    private final int maxStringLength;
+
+    public ResponseSummarizer(DigitalLifeConfig.ResponseConfig config) {
+        this.enabled = config.isSummarize();
+        this.maxChars = config.getMaxChars();
+        // 顶层对象至少展开一层，摘要始终是JSON对象
+        this.maxDepth = Math.max(config.getMaxDepth(), 1);
+        this.maxArrayItems = config.getMaxArrayItems();
+        this.maxFields = config.getMaxFields();
+        this.maxStringLength = config.getMaxStringLength();
+    }
+
+    /**
+     * 生成响应摘要
+     * @param response 完整响应
+     * @return 摘要，未超出预算时返回原响应
+     */
+    public ResponseView summarize(ResponseView response) {
+        String raw = response.getRaw();
+        if (!enabled || raw == null || raw.length() <= maxChars) {
+            return response;
+        }
+
+        JSONObject json = response.getJson();
+        if (json == null) {
+            return ResponseView.of(truncate(raw, maxChars));
+        }
+
+        int arrayItems = maxArrayItems;
+        int stringLength = maxStringLength;
+        for (int round = 0; round <= MAX_SHRINK_ROUNDS; round++) {
+            JSONObject summary = (JSONObject) summarizeValue(json, 0, arrayItems, stringLength);
+            String text = summary.toJSONString();
+            if (text.length() <= maxChars) {
+                return ResponseView.of(text, summary);
+            }
+            arrayItems = Math.max(1, arrayItems / 2);
+            stringLength = Math.max(20, stringLength / 2);
+        }
+        return ResponseView.of(truncate(raw, maxChars));
+    }
+
+    private Object summarizeValue(Object value, int depth, int arrayItems, int stringLength) {
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            if (depth >= maxDepth) {
+                return "{...共" + map.size() + "个字段}";
+            }
+            JSONObject result = new JSONObject(true);
+            int count = 0;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (count++ >= maxFields) {
+                    result.put("...", "省略" + (map.size() - maxFields) + "个字段");
+                    break;
+                }
+                result.put(String.valueOf(entry.getKey()), summarizeValue(entry.getValue(), depth + 1, arrayItems, stringLength));
+            }
+            return result;
+        }
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            if (depth >= maxDepth) {
+                return "[...共" + array.size() + "项]";
+            }
+            JSONArray result = new JSONArray(Math.min(array.size(), arrayItems) + 1);
+            for (int i = 0; i < array.size() && i < arrayItems; i++) {
+                result.add(summarizeValue(array.get(i), depth + 1, arrayItems, stringLength));
+            }
+            if (array.size() > arrayItems) {
+                result.add("...共" + array.size() + "项，省略" + (array.size() - arrayItems) + "项");
+            }
+            return result;
+        }
+        if (value instanceof String) {
+            return truncate((String) value, stringLength);
+        }
+        return value;
+    }
+
+    private static String truncate(String text, int limit) {
+        if (text.length() <= limit) {
+            return text;
+        }
+        // 不截断在代理对中间
+        int end = Character.isHighSurrogate(text.charAt(limit - 1)) ? limit - 1 : limit;
+        return text.substring(0, end) + "...(共" + text.length() + "字)";
+    }
+}
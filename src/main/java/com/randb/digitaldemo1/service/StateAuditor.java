@@ -0,0 +1,66 @@
+package com.randb.digitaldemo1.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 状态访问审计
+ * 审计日志使用独立的DEBUG级别日志通道（digital-life.state-audit），读取按采样率记录，值超长时截断；
+ * 审计通道关闭且未开启状态变更日志时直接返回，状态读写路径上不产生任何日志对象
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class StateAuditor {
+
+    private static final Logger AUDIT = LoggerFactory.getLogger("digital-life.state-audit");
+
+    // 读取采样率：每N次读取记录一次
+    private final int readSampleRate;
+
+    private final int maxValueLength;
+
+    // 状态变更日志，未开启时为null
+    private final StateJournal journal;
+
+    private final AtomicLong reads = new AtomicLong();
+
+    public StateAuditor(int readSampleRate, int maxValueLength, StateJournal journal) {
+        this.readSampleRate = Math.max(readSampleRate, 1);
+        this.maxValueLength = maxValueLength;
+        this.journal = journal;
+    }
+
+    /**
+     * 记录状态读取（采样）
+     */
+    public void onRead(String agentId, String key, Object value) {
+        if (!AUDIT.isDebugEnabled() || reads.incrementAndGet() % readSampleRate != 0) {
+            return;
+        }
+        AUDIT.debug("[{}] 获取状态: {} = {}", agentId, key, truncate(value));
+    }
+
+    /**
+     * 记录状态变更
+     * @param action 操作（保存、删除）
+     */
+    public void onWrite(String agentId, String action, String key, Object value) {
+        if (journal != null) {
+            journal.append(agentId, action, key, value);
+        }
+        if (AUDIT.isDebugEnabled()) {
+            AUDIT.debug("[{}] {}状态: {} = {}", agentId, action, key, truncate(value));
+        }
+    }
+
+    private Object truncate(Object value) {
+        if (value == null || maxValueLength <= 0) {
+            return value;
+        }
+        String text = value.toString();
+        return text.length() > maxValueLength
+                ? text.substring(0, maxValueLength) + "...(共" + text.length() + "字)" : text;
+    }
+}
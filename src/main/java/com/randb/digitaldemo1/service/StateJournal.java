@@ -0,0 +1,139 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 状态变更日志（JSON Lines）
+ * 状态写入方只把变更放入有界队列，由后台线程序列化并批量追加到文件；队列满时丢弃并计数，不阻塞数字生命循环
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public final class StateJournal implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 10_000;
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Path file;
+
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+
+    private volatile boolean running = true;
+
+    public StateJournal(Path file) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.writer = new Thread(this::writeLoop, "state-journal");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        log.info("状态变更日志: {}", file.toAbsolutePath());
+    }
+
+    /**
+     * 记录一次状态变更（不阻塞）
+     * @param agentId 数字生命ID
+     * @param action 操作（保存、删除）
+     * @param key 状态键
+     * @param value 状态值
+     */
+    public void append(String agentId, String action, String key, Object value) {
+        if (!queue.offer(new Entry(System.currentTimeMillis(), agentId, action, key, value))) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 获取因队列满而丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            while (running || !queue.isEmpty()) {
+                Entry first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Entry entry : batch) {
+                    out.write(entry.toJson());
+                    out.newLine();
+                }
+                batch.clear();
+                if (queue.isEmpty()) {
+                    out.flush();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.error("写入状态变更日志失败，停止记录: {}", e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (dropped.sum() > 0) {
+            log.warn("状态变更日志队列已满，共丢弃 {} 条记录", dropped.sum());
+        }
+    }
+
+    private static final class Entry {
+        private final long time;
+        private final String agentId;
+        private final String action;
+        private final String key;
+        private final Object value;
+
+        private Entry(long time, String agentId, String action, String key, Object value) {
+            this.time = time;
+            this.agentId = agentId;
+            this.action = action;
+            this.key = key;
+            this.value = value;
+        }
+
+        private String toJson() {
+            JSONObject json = new JSONObject(true);
+            json.put("ts", time);
+            json.put("agent", agentId);
+            json.put("op", action);
+            json.put("key", key);
+            json.put("value", value);
+            return json.toJSONString();
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.randb.digitaldemo1.service;
 
 import com.randb.digitaldemo1.config.AuthConfig;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Paths;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 数字生命状态管理器
- * 用于保存执行过程中的状态信息，如token、响应结果等
+ * 维护 数字生命ID -> 状态记录（AgentState）的映射，状态记录保存执行过程中的任务、响应结果、token等信息
+ * 各组件拿到状态记录后显式传递使用，不再通过全局共享的键值访问；配置了状态存储时每轮循环结束后保存快照，重启后恢复；
+ * 共享存储（Redis）下多个节点通过租约分摊数字生命
  * @author: randb
  * @date: 2025-08-22
  */
@@ -18,167 +29,207 @@ import java.util.Map;
 @Slf4j
 public class StateManager {
 
+    /**
+     * 默认数字生命ID（单数字生命模式及未指定ID的接口使用）
+     */
+    public static final String DEFAULT_AGENT_ID = "digital-life-1";
+
     @Autowired
     private AuthConfig authConfig;
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
 
-    // 使用内存存储状态信息（可以后续扩展为Redis、数据库等）
-    private final Map<String, Object> stateStore = new ConcurrentHashMap<>();
-    
-    /**
-     * 保存状态
-     * @param key 状态键
-     * @param value 状态值
-     */
-    public void saveState(String key, Object value) {
-        stateStore.put(key, value);
-        log.info("保存状态: {} = {}", key, value);
-    }
-    
-    /**
-     * 获取状态
-     * @param key 状态键
-     * @return 状态值
-     */
-    public Object getState(String key) {
-        Object value = stateStore.get(key);
-        log.info("获取状态: {} = {}", key, value);
-        return value;
-    }
-    
-    /**
-     * 获取字符串状态
-     * @param key 状态键
-     * @return 字符串状态值
-     */
-    public String getStringState(String key) {
-        Object value = getState(key);
-        return value != null ? value.toString() : null;
-    }
-    
-    /**
-     * 检查状态是否存在
-     * @param key 状态键
-     * @return 是否存在
-     */
-    public boolean hasState(String key) {
-        // 对于login_token，优先检查永久token
-        if ("login_token".equals(key)) {
-            return hasLoginToken();
+    // 各数字生命共用的响应摘要器
+    private ResponseSummarizer responseSummarizer;
+
+    // 各数字生命共用的状态访问审计
+    private StateAuditor stateAuditor;
+
+    // 状态变更日志，未开启时为null
+    private StateJournal stateJournal;
+
+    // 状态存储，未配置时为null（只保存在内存中）
+    private StateStore stateStore;
+
+    private final Map<String, AgentState> agentStates = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        responseSummarizer = new ResponseSummarizer(digitalLifeConfig.getResponse());
+
+        DigitalLifeConfig.State stateConfig = digitalLifeConfig.getState();
+        if (stateConfig.isJournalEnabled()) {
+            try {
+                stateJournal = new StateJournal(Paths.get(stateConfig.getJournalFile()));
+            } catch (IOException e) {
+                log.error("创建状态变更日志失败，不记录状态变更: {}", e.getMessage(), e);
+            }
         }
+        stateAuditor = new StateAuditor(stateConfig.getAuditSampleRate(), stateConfig.getAuditMaxValueLength(), stateJournal);
 
-        return stateStore.containsKey(key);
+        stateStore = createStateStore(stateConfig.getStore());
     }
 
-    /**
-     * 检查是否有可用的登录token（永久token或动态token）
-     * @return 是否有可用的token
-     */
-    public boolean hasLoginToken() {
-        // 优先检查永久token
-        if (authConfig != null && authConfig.hasPermanentToken()) {
-            return true;
+    @PreDestroy
+    public void shutdown() {
+        if (stateStore != null) {
+            stateStore.close();
+        }
+        if (stateJournal != null) {
+            stateJournal.close();
         }
-
-        // 检查动态token
-        return stateStore.containsKey("login_token");
     }
-    
+
     /**
-     * 删除状态
-     * @param key 状态键
+     * 获取指定数字生命的状态记录，不存在时创建
+     * @param agentId 数字生命ID
+     * @return 状态记录
      */
-    public void removeState(String key) {
-        Object removed = stateStore.remove(key);
-        log.info("删除状态: {} = {}", key, removed);
+    public AgentState getAgentState(String agentId) {
+        return agentStates.computeIfAbsent(agentId, id -> new AgentState(id, authConfig, responseSummarizer,
+                digitalLifeConfig.getPrompt().getStepHistorySize(), stateAuditor,
+                digitalLifeConfig.getHttpCache().getMaxEntries()));
     }
-    
+
     /**
-     * 清空所有状态
+     * 移除指定数字生命的状态记录
+     * @param agentId 数字生命ID
      */
-    public void clearAllStates() {
-        stateStore.clear();
-        log.info("清空所有状态");
+    public void removeAgentState(String agentId) {
+        agentStates.remove(agentId);
+        if (stateStore != null) {
+            stateStore.remove(agentId);
+        }
+        log.info("移除数字生命状态记录: {}", agentId);
     }
-    
+
     /**
-     * 获取所有状态
-     * @return 状态映射
+     * 获取所有已存在状态记录的数字生命ID
+     * @return 数字生命ID集合
      */
-    public Map<String, Object> getAllStates() {
-        return new ConcurrentHashMap<>(stateStore);
+    public Set<String> getAgentIds() {
+        return agentStates.keySet();
     }
-    
+
     /**
-     * 保存登录token
-     * @param token 登录token
+     * 清空所有数字生命的状态
      */
-    public void saveLoginToken(String token) {
-        saveState("login_token", token);
+    public void clearAllStates() {
+        agentStates.values().forEach(AgentState::clearAllStates);
+        agentStates.values().forEach(this::saveAgentState);
+        log.info("清空所有数字生命状态");
     }
-    
+
     /**
-     * 获取登录token（优先使用永久token）
-     * @return 登录token
+     * 数字生命启动时准备状态：有保存的快照时恢复，否则清空之前的状态
+     * @param agentState 状态记录
+     * @return 是否按快照恢复
      */
-    public String getLoginToken() {
-        // 优先使用配置文件中的永久token
-        if (authConfig != null && authConfig.hasPermanentToken()) {
-            String permanentToken = authConfig.getPermanentToken();
-            log.debug("使用配置文件中的永久token");
-            return permanentToken;
+    public boolean resumeOrReset(AgentState agentState) {
+        AgentSnapshot snapshot = stateStore != null && digitalLifeConfig.getState().getStore().isResume()
+                ? stateStore.load(agentState.getAgentId()) : null;
+        if (snapshot != null) {
+            agentState.restore(snapshot);
+            return true;
         }
-
-        // 如果没有永久token，使用动态获取的token
-        String dynamicToken = getStringState("login_token");
-        if (dynamicToken != null) {
-            log.debug("使用动态获取的token");
-            return dynamicToken;
+        agentState.clearAllStates();
+        if (stateStore != null) {
+            stateStore.remove(agentState.getAgentId());
         }
+        return false;
+    }
 
-        log.warn("没有找到任何可用的token");
-        return null;
+    /**
+     * 获取数字生命的运行租约（多个节点共享状态存储时，同一个数字生命只在一个节点上运行）
+     * @param agentId 数字生命ID
+     * @return 是否获取成功，未配置状态存储时总是成功
+     */
+    public boolean acquireAgent(String agentId) {
+        return stateStore == null || stateStore.acquire(agentId);
     }
-    
+
     /**
-     * 保存最后一次HTTP响应
-     * @param response 响应内容
+     * 当前节点是否仍持有数字生命的租约
+     * @param agentId 数字生命ID
      */
-    public void saveLastResponse(String response) {
-        saveState("last_response", response);
+    public boolean ownsAgent(String agentId) {
+        return stateStore == null || stateStore.owns(agentId);
     }
-    
+
     /**
-     * 获取最后一次HTTP响应
-     * @return 响应内容
+     * 数字生命停止后释放租约
+     * @param agentId 数字生命ID
      */
-    public String getLastResponse() {
-        return getStringState("last_response");
+    public void releaseAgent(String agentId) {
+        if (stateStore != null) {
+            stateStore.release(agentId);
+        }
     }
-    
+
     /**
-     * 保存当前任务状态
-     * @param taskName 任务名称
-     * @param stepIndex 当前步骤索引
+     * 保存状态快照（每轮循环结束后调用，未配置状态存储时不做任何事）
+     * @param agentState 状态记录
      */
-    public void saveTaskProgress(String taskName, int stepIndex) {
-        saveState("current_task", taskName);
-        saveState("current_step", stepIndex);
+    public void saveAgentState(AgentState agentState) {
+        if (stateStore == null) {
+            return;
+        }
+        try {
+            stateStore.save(agentState.snapshot());
+        } catch (RuntimeException e) {
+            log.warn("[{}] 保存状态快照失败: {}", agentState.getAgentId(), e.getMessage());
+        }
     }
-    
+
     /**
-     * 获取当前任务名称
-     * @return 任务名称
+     * 按配置创建状态存储
      */
-    public String getCurrentTask() {
-        return getStringState("current_task");
+    private StateStore createStateStore(DigitalLifeConfig.Store config) {
+        try {
+            return switch (config.getType()) {
+                case "journal" -> new JournalStateStore(Paths.get(config.getJournalFile()),
+                        journalInitialSize(config), config.getSyncIntervalMs());
+                case "redis" -> {
+                    DigitalLifeConfig.Redis redis = config.getRedis();
+                    RespClient client = new RespClient(redis.getHost(), redis.getPort(), redis.getPassword(),
+                            redis.getDatabase(), redis.getTimeoutMs());
+                    yield new RedisStateStore(client, redis.getKeyPrefix(), nodeId(redis),
+                            redis.getLeaseTtlMs(), config.getSyncIntervalMs());
+                }
+                case "none" -> null;
+                default -> {
+                    log.warn("未知的状态存储类型 {}，状态只保存在内存中", config.getType());
+                    yield null;
+                }
+            };
+        } catch (IOException e) {
+            log.error("创建状态存储失败，状态只保存在内存中: {}", e.getMessage(), e);
+            return null;
+        }
     }
-    
+
     /**
-     * 获取当前步骤索引
-     * @return 步骤索引
+     * journal的初始映射大小（字节）；单个映射区最大2GB，超出时拒绝启动
      */
-    public Integer getCurrentStep() {
-        Object step = getState("current_step");
-        return step != null ? (Integer) step : 0;
+    private static int journalInitialSize(DigitalLifeConfig.Store config) {
+        long bytes = config.getJournalInitialSizeMb() * 1024L * 1024;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("journal-initial-size-mb 不能超过 "
+                    + Integer.MAX_VALUE / (1024 * 1024) + "（单个映射文件的上限为2GB）: " + config.getJournalInitialSizeMb());
+        }
+        return (int) bytes;
+    }
+
+    private static String nodeId(DigitalLifeConfig.Redis config) {
+        if (config.getNodeId() != null && !config.getNodeId().isEmpty()) {
+            return config.getNodeId();
+        }
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
     }
 }
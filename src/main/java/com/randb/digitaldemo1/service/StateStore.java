@@ -0,0 +1,64 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+
+/**
+ * 数字生命状态存储（SPI）
+ * 每轮循环结束后保存状态快照，重启后按快照恢复数字生命；实现类需要保证各方法可以被多个数字生命线程并发调用。
+ * 多个节点共享的存储通过租约保证同一个数字生命同一时间只在一个节点上运行
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public interface StateStore extends AutoCloseable {
+
+    /**
+     * 读取数字生命保存的状态快照（数字生命启动时调用）
+     * @param agentId 数字生命ID
+     * @return 状态快照，没有保存过时返回null
+     */
+    AgentSnapshot load(String agentId);
+
+    /**
+     * 保存状态快照，覆盖该数字生命之前的快照
+     * @param snapshot 状态快照
+     */
+    void save(AgentSnapshot snapshot);
+
+    /**
+     * 删除数字生命的状态快照
+     * @param agentId 数字生命ID
+     */
+    void remove(String agentId);
+
+    /**
+     * 把已保存的快照写入持久化介质
+     */
+    void flush();
+
+    /**
+     * 获取数字生命的运行租约，成功后由存储负责续约
+     * @param agentId 数字生命ID
+     * @return 是否获取成功（已被其他节点持有时返回false）
+     */
+    default boolean acquire(String agentId) {
+        return true;
+    }
+
+    /**
+     * 当前节点是否仍持有数字生命的租约（续约失败后返回false，数字生命应停止运行）
+     * @param agentId 数字生命ID
+     */
+    default boolean owns(String agentId) {
+        return true;
+    }
+
+    /**
+     * 释放数字生命的租约（先写入该数字生命未写入的快照）
+     * @param agentId 数字生命ID
+     */
+    default void release(String agentId) {
+    }
+
+    @Override
+    void close();
+}
@@ -0,0 +1,145 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 当前任务的请求执行历史（固定容量环形缓冲区）
+ * 记录每次HTTP请求的方法、URL、状态码、耗时和结果摘要，容量满后覆盖最早的记录；
+ * 记录保存在预先分配的数组中，记录一步不创建额外对象。渲染为紧凑文本放入规划Prompt和任务完成判断Prompt，
+ * 避免LLM重复请求已经获取过的数据
+ * @author: randb
+ * @date: 2026-10-17
+ */
+public final class StepHistory {
+
+    // 结果摘要的最大长度
+    private static final int SUMMARY_LENGTH = 80;
+
+    private final String[] methods;
+    private final String[] urls;
+    private final int[] statusCodes;
+    private final long[] latencies;
+    private final String[] summaries;
+
+    // 下一条记录写入的位置
+    private int next;
+
+    // 当前任务累计记录数（超过容量时只保留最近的记录）
+    private int total;
+
+    public StepHistory(int capacity) {
+        int size = Math.max(capacity, 1);
+        this.methods = new String[size];
+        this.urls = new String[size];
+        this.statusCodes = new int[size];
+        this.latencies = new long[size];
+        this.summaries = new String[size];
+    }
+
+    /**
+     * 记录一次请求
+     * @param method HTTP方法
+     * @param url 请求URL
+     * @param statusCode HTTP状态码，请求未发出时为0
+     * @param latencyMs 耗时（毫秒）
+     * @param summary 结果摘要（超长时截断）
+     */
+    public synchronized void record(String method, String url, int statusCode, long latencyMs, String summary) {
+        methods[next] = method;
+        urls[next] = url;
+        statusCodes[next] = statusCode;
+        latencies[next] = latencyMs;
+        summaries[next] = summary != null && summary.length() > SUMMARY_LENGTH
+                ? summary.substring(0, SUMMARY_LENGTH) + "..." : summary;
+        next = (next + 1) % methods.length;
+        total++;
+    }
+
+    /**
+     * 清空记录（开始新任务时）
+     */
+    public synchronized void clear() {
+        next = 0;
+        total = 0;
+    }
+
+    /**
+     * 是否没有记录
+     */
+    public synchronized boolean isEmpty() {
+        return total == 0;
+    }
+
+    /**
+     * 按时间顺序渲染为紧凑文本，每次请求一行
+     * @return 执行历史，没有记录时返回空字符串
+     */
+    public synchronized String render() {
+        int count = Math.min(total, methods.length);
+        if (count == 0) {
+            return "";
+        }
+
+        StringBuilder text = new StringBuilder(count * 96);
+        int first = total - count;
+        if (first > 0) {
+            text.append("（省略更早的").append(first).append("次请求）\n");
+        }
+        for (int i = 0; i < count; i++) {
+            int index = (next - count + i + methods.length) % methods.length;
+            text.append(first + i + 1).append(". ")
+                    .append(methods[index]).append(' ').append(urls[index])
+                    .append(" -> ").append(statusCodes[index] > 0 ? String.valueOf(statusCodes[index]) : "未响应")
+                    .append(" (").append(latencies[index]).append("ms)");
+            if (summaries[index] != null && !summaries[index].isEmpty()) {
+                text.append(' ').append(summaries[index]);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * 导出保留的记录（按时间顺序），用于保存状态快照
+     */
+    public synchronized List<AgentSnapshot.StepRecord> export() {
+        int count = Math.min(total, methods.length);
+        List<AgentSnapshot.StepRecord> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = (next - count + i + methods.length) % methods.length;
+            AgentSnapshot.StepRecord record = new AgentSnapshot.StepRecord();
+            record.setMethod(methods[index]);
+            record.setUrl(urls[index]);
+            record.setStatusCode(statusCodes[index]);
+            record.setLatencyMs(latencies[index]);
+            record.setSummary(summaries[index]);
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * 获取当前任务累计记录数（包括已被覆盖的记录）
+     */
+    public synchronized int getTotal() {
+        return total;
+    }
+
+    /**
+     * 按快照恢复记录
+     * @param records 保留的记录（按时间顺序）
+     * @param total 累计记录数
+     */
+    public synchronized void restore(List<AgentSnapshot.StepRecord> records, int total) {
+        clear();
+        if (records != null) {
+            for (AgentSnapshot.StepRecord record : records) {
+                record(record.getMethod(), record.getUrl(), record.getStatusCode(), record.getLatencyMs(), record.getSummary());
+            }
+        }
+        this.total = Math.max(this.total, total);
+    }
+}
@@ -1,7 +1,13 @@
 package com.randb.digitaldemo1.service;
 
 import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
 import com.randb.digitaldemo1.config.SpringAIChatStarterConfig;
+import com.randb.digitaldemo1.core.EngineMetrics;
+import com.randb.digitaldemo1.core.LlmResponseCache;
+import com.randb.digitaldemo1.core.LogChannels;
+import com.randb.digitaldemo1.entity.ResponseClassification;
+import com.randb.digitaldemo1.entity.TaskCapability;
 import com.randb.springaichatstarter.core.ChatModelFactory;
 import com.randb.springaichatstarter.core.ChatService;
 import com.randb.springaichatstarter.dto.ChatRequest;
@@ -10,9 +16,15 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * 任务完成判断服务
  * 职责：专门判断任务是否应该完成，避免执行LLM的思维惯性
+ * 分层判断：先用确定性规则（出错次数、步骤上限、空数据、到达结束步骤）在本地判断，规则无法判断时才调用LLM
  * @author: randb
  * @date: 2025-08-22
  */
@@ -24,9 +36,126 @@ public class TaskCompletionJudge {
     private ChatModelFactory chatModelFactory;
     @Autowired
     private SpringAIChatStarterConfig springAIChatStarterConfig;
+    @Autowired
+    private LlmResponseCache llmResponseCache;
+    @Autowired
+    private EngineMetrics engineMetrics;
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+    @Autowired
+    private CapabilityRegistry capabilityRegistry;
+
+    /**
+     * 判断层级
+     */
+    public enum Tier {
+        ERROR_BUDGET,
+        STEP_LIMIT,
+        EMPTY_DATA,
+        LAST_STEP,
+        LLM
+    }
+
+    // 各层级命中次数
+    private final Map<Tier, LongAdder> tierHits = new EnumMap<>(Tier.class);
+
+    {
+        for (Tier tier : Tier.values()) {
+            tierHits.put(tier, new LongAdder());
+        }
+    }
+
+    /**
+     * 第一层：用确定性规则判断任务是否应该完成，不调用LLM
+     * @param taskName 任务名称
+     * @param agentState 数字生命状态（已执行完当前步骤）
+     * @return 命中的规则层级；规则未启用或无法判断时返回null，由调用方继续调用{@link #judgeByLlm}
+     */
+    public Tier applyRules(String taskName, AgentState agentState) {
+        if (!digitalLifeConfig.getJudge().isRulesEnabled()) {
+            return null;
+        }
+        Tier tier = matchRule(taskName, agentState);
+        if (tier != null) {
+            tierHits.get(tier).increment();
+            engineMetrics.recordJudgeTier(tier.name());
+            log.info("任务完成判断：规则 {} 命中，结束任务 '{}'", tier, taskName);
+        }
+        return tier;
+    }
+
+    /**
+     * 第二层：规则无法判断时调用LLM判断任务是否应该完成
+     * @param taskName 任务名称
+     * @param agentState 数字生命状态（已执行完当前步骤）
+     * @param executionHistory 执行历史
+     * @return true表示应该完成任务
+     */
+    public boolean judgeByLlm(String taskName, AgentState agentState, String executionHistory) {
+        tierHits.get(Tier.LLM).increment();
+        engineMetrics.recordJudgeTier(Tier.LLM.name());
+        return shouldCompleteTask(taskName, executionHistory, agentState.getLastResponse());
+    }
 
     /**
-     * 判断任务是否应该完成（通用方法）
+     * 确定性规则
+     * @return 命中的规则层级，规则无法判断时返回null
+     */
+    private Tier matchRule(String taskName, AgentState agentState) {
+        DigitalLifeConfig.Judge config = digitalLifeConfig.getJudge();
+        String lastResponse = agentState.getLastResponse();
+        ResponseClassification responseClass = agentState.getLastResponseClass();
+
+        // 本步骤发出了请求（每轮开始时耗时重置为-1）时，最近一次响应才是本步骤的结果，
+        // 否则是之前步骤留下的，不能再计入出错次数或用于判断
+        boolean requested = agentState.getLastResponseLatencyMs() >= 0;
+        boolean failed = requested && (responseClass.isRequestFailure() || responseClass.isError());
+
+        // 出错次数达到上限，放弃当前任务
+        if (failed && agentState.incrementTaskErrors() >= config.getErrorBudget()) {
+            return Tier.ERROR_BUDGET;
+        }
+
+        // 步骤数达到上限
+        if (config.getMaxSteps() > 0 && agentState.getCurrentStep() >= config.getMaxSteps()) {
+            return Tier.STEP_LIMIT;
+        }
+
+        if (!requested || lastResponse == null || failed) {
+            return null;
+        }
+
+        // 查询成功但没有数据，没有更多可处理的内容
+        if (responseClass.isEmptyData()) {
+            return Tier.EMPTY_DATA;
+        }
+
+        // 成功执行了任务的结束步骤
+        TaskCapability task = capabilityRegistry.findTask(taskName);
+        if (task != null && task.isTerminalUrl(agentState.getLastActionUrl())) {
+            return Tier.LAST_STEP;
+        }
+        return null;
+    }
+
+    /**
+     * 获取各判断层级的命中次数和命中率
+     * @return 层级 -> {hits, rate}
+     */
+    public Map<String, Map<String, Object>> getTierStats() {
+        long total = tierHits.values().stream().mapToLong(LongAdder::sum).sum();
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        tierHits.forEach((tier, hits) -> {
+            Map<String, Object> tierStats = new LinkedHashMap<>();
+            tierStats.put("hits", hits.sum());
+            tierStats.put("rate", total > 0 ? (double) hits.sum() / total : 0.0);
+            stats.put(tier.name(), tierStats);
+        });
+        return stats;
+    }
+
+    /**
+     * 调用LLM判断任务是否应该完成（通用方法）
      * @param taskName 任务名称
      * @param executionHistory 执行历史
      * @param lastResponse 最后一次响应
@@ -49,9 +178,10 @@ public class TaskCompletionJudge {
             request.setStream(false);
             request.setPrompt(judgePrompt);
 
-            ChatResponse response = chatService.syncReply(request);
+            ChatResponse response = llmResponseCache.reply(EngineMetrics.CALLER_JUDGE, request,
+                    () -> engineMetrics.timeLlmCall(EngineMetrics.CALLER_JUDGE, () -> chatService.syncReply(request)));
             String llmResponse = response.getContent();
-            log.info("任务完成判断：LLM响应 {}", llmResponse);
+            LogChannels.PAYLOAD.debug("任务完成判断：LLM响应 {}", llmResponse);
             
             // 解析判断结果
             return parseJudgeResult(llmResponse);
@@ -122,23 +252,14 @@ public class TaskCompletionJudge {
      * 从响应中提取JSON字符串
      */
     private String extractJsonFromResponse(String response) {
-        if (response == null) return null;
-        
-        // 查找JSON开始和结束位置
-        int start = response.indexOf("{");
-        int end = response.lastIndexOf("}");
-        
-        if (start >= 0 && end > start) {
-            return response.substring(start, end + 1);
-        }
-        
-        return null;
+        // 按括号配对提取第一个完整的JSON对象，避免JSON之后的说明文字中含有括号
+        return JsonExtractor.extractFirstObject(response);
     }
 
     /**
      * 构建执行历史摘要
      */
-    public String buildExecutionHistory(String taskName, int currentStep, String lastStepResult) {
+    public String buildExecutionHistory(String taskName, int currentStep, String lastStepResult, StepHistory stepHistory) {
         StringBuilder history = new StringBuilder();
         
         history.append("任务：").append(taskName).append("\n");
@@ -147,6 +268,10 @@ public class TaskCompletionJudge {
         if (lastStepResult != null) {
             history.append("最后一步结果：").append(lastStepResult).append("\n");
         }
+
+        if (stepHistory != null && !stepHistory.isEmpty()) {
+            history.append("已执行的请求：\n").append(stepHistory.render());
+        }
         
         return history.toString();
     }
@@ -0,0 +1,383 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 任务选择器
+ * 启动时加载一次tasks.txt，按优先级分组构建不可变的别名表（Alias Method），按权重抽样是O(1)的；文件变化时整体替换。
+ * 选择时从最高优先级开始：抽样两个任务，选择已分配次数/权重较小的一个，多个数字生命同时选择任务时分布贴近权重比例；
+ * 任务达到每分钟频率限制或配额时跳过，同级任务都不可用时才选择低优先级任务。
+ * 分配次数、配额和频率限制按任务名称统计（当前节点），重新加载后保留
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+@Component
+public class TaskSelector {
+
+    // 同一优先级内抽样的轮数，都不可用时再顺序检查该优先级的所有任务
+    private static final int SAMPLE_ROUNDS = 4;
+
+    @Autowired
+    private DigitalLifeConfig digitalLifeConfig;
+
+    // 当前生效的任务表，重新加载时整体替换
+    private volatile TaskTable table = TaskTable.EMPTY;
+
+    // 任务名称 -> 运行统计
+    private final Map<String, TaskUsage> usages = new ConcurrentHashMap<>();
+
+    private FileWatcher watcher;
+
+    @PostConstruct
+    public void init() {
+        reload();
+        if (digitalLifeConfig.getTask().isWatch()) {
+            watcher = FileWatcher.watch(Paths.get(digitalLifeConfig.getTask().getTasksFile()), "task-watcher", () -> {
+                log.info("检测到任务配置文件变化，重新加载");
+                reload();
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    /**
+     * 重新加载任务配置文件，加载失败时保留原来的任务表
+     * @return 是否加载成功
+     */
+    public boolean reload() {
+        Path tasksFile = Paths.get(digitalLifeConfig.getTask().getTasksFile());
+        try {
+            table = parse(Files.readString(tasksFile));
+            log.info("任务配置加载完成: {} 个任务，{} 个优先级", table.size, table.levels.size());
+            return true;
+        } catch (Exception e) {
+            log.error("加载任务配置失败 {}: {}", tasksFile, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 选择下一个任务
+     * @return 选择结果：选中的任务；或所有任务都达到频率限制时的等待时间；或没有可执行的任务
+     */
+    public Selection next() {
+        TaskTable current = table;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        long waitNanos = Long.MAX_VALUE;
+
+        for (Level level : current.levels) {
+            for (int round = 0; round < SAMPLE_ROUNDS; round++) {
+                TaskDefinition first = level.sample(random);
+                TaskDefinition second = level.sample(random);
+                if (load(second) < load(first)) {
+                    TaskDefinition swap = first;
+                    first = second;
+                    second = swap;
+                }
+                if (usage(first).tryStart(first, now)) {
+                    return Selection.of(first.name);
+                }
+                if (second != first && usage(second).tryStart(second, now)) {
+                    return Selection.of(second.name);
+                }
+            }
+            // 抽中的任务都不可用，顺序检查同级的其他任务，并记录最早可用的时间
+            for (TaskDefinition task : level.tasks) {
+                if (usage(task).tryStart(task, now)) {
+                    return Selection.of(task.name);
+                }
+                waitNanos = Math.min(waitNanos, usage(task).waitNanos(task, now));
+            }
+        }
+
+        if (waitNanos == Long.MAX_VALUE) {
+            return Selection.NONE;
+        }
+        long waitMs = Math.max(TimeUnit.NANOSECONDS.toMillis(waitNanos), 1);
+        return Selection.waiting(Math.min(waitMs, Math.max(digitalLifeConfig.getTask().getMaxWaitMs(), 1)));
+    }
+
+    /**
+     * 获取各任务的配置和运行统计
+     * @return 任务名称 -> 统计项
+     */
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (Level level : table.levels) {
+            for (TaskDefinition task : level.tasks) {
+                TaskUsage usage = usage(task);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("priority", task.priority);
+                item.put("weight", task.weight);
+                item.put("ratePerMinute", task.ratePerMinute);
+                item.put("quota", task.quota);
+                item.put("started", usage.getStarted());
+                item.put("throttled", usage.getThrottled());
+                stats.put(task.name, item);
+            }
+        }
+        return stats;
+    }
+
+    private TaskUsage usage(TaskDefinition task) {
+        return usages.computeIfAbsent(task.name, name -> new TaskUsage());
+    }
+
+    private double load(TaskDefinition task) {
+        return usage(task).getStarted() / task.weight;
+    }
+
+    /**
+     * 解析任务配置：任务以全角分号分隔，任务名后可跟JSON属性（权重、优先级、每分钟、配额）
+     */
+    private static TaskTable parse(String content) {
+        Map<String, TaskDefinition> tasks = new LinkedHashMap<>();
+        for (String entry : content.split("；")) {
+            String text = entry.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            String name = text;
+            JSONObject attributes = new JSONObject();
+            int brace = text.indexOf('{');
+            if (brace > 0 && text.endsWith("}")) {
+                name = text.substring(0, brace).trim();
+                attributes = JSON.parseObject(text.substring(brace));
+            }
+            double weight = attributes.getDoubleValue("权重");
+            TaskDefinition task = new TaskDefinition(name, attributes.containsKey("权重") ? weight : 1,
+                    attributes.getIntValue("优先级"), attributes.getIntValue("每分钟"), attributes.getLongValue("配额"));
+            if (task.weight <= 0) {
+                log.info("任务权重为0，不参与选择: {}", name);
+                continue;
+            }
+            if (tasks.put(name, task) != null) {
+                log.warn("任务重复定义，使用后面的定义: {}", name);
+            }
+        }
+
+        // 优先级从高到低
+        Map<Integer, List<TaskDefinition>> byPriority = new TreeMap<>((a, b) -> Integer.compare(b, a));
+        for (TaskDefinition task : tasks.values()) {
+            byPriority.computeIfAbsent(task.priority, priority -> new ArrayList<>()).add(task);
+        }
+        List<Level> levels = new ArrayList<>();
+        byPriority.values().forEach(levelTasks -> levels.add(new Level(levelTasks)));
+        return new TaskTable(levels, tasks.size());
+    }
+
+    /**
+     * 任务选择结果
+     */
+    @Getter
+    public static final class Selection {
+
+        private static final Selection NONE = new Selection(null, 0);
+
+        /**
+         * 选中的任务，没有可用任务时为null
+         */
+        private final String task;
+
+        /**
+         * 所有任务都达到频率限制时到下一次尝试的等待时间（毫秒）；0表示没有可执行的任务（任务为空或配额已用完）
+         */
+        private final long waitMs;
+
+        private Selection(String task, long waitMs) {
+            this.task = task;
+            this.waitMs = waitMs;
+        }
+
+        private static Selection of(String task) {
+            return new Selection(task, 0);
+        }
+
+        private static Selection waiting(long waitMs) {
+            return new Selection(null, waitMs);
+        }
+    }
+
+    /**
+     * 任务定义（tasks.txt中的一项）
+     */
+    private static final class TaskDefinition {
+        private final String name;
+        private final double weight;
+        private final int priority;
+        private final int ratePerMinute;
+        private final long quota;
+
+        private TaskDefinition(String name, double weight, int priority, int ratePerMinute, long quota) {
+            this.name = name;
+            this.weight = weight;
+            this.priority = priority;
+            this.ratePerMinute = Math.max(ratePerMinute, 0);
+            this.quota = Math.max(quota, 0);
+        }
+    }
+
+    /**
+     * 同一优先级的任务及其别名表（Vose算法构建）
+     */
+    private static final class Level {
+        private final TaskDefinition[] tasks;
+        private final double[] probability;
+        private final int[] alias;
+
+        private Level(List<TaskDefinition> levelTasks) {
+            int n = levelTasks.size();
+            tasks = levelTasks.toArray(new TaskDefinition[0]);
+            probability = new double[n];
+            alias = new int[n];
+
+            double total = 0;
+            for (TaskDefinition task : tasks) {
+                total += task.weight;
+            }
+            // 按平均权重缩放到1，小于1的与大于1的配对填满每一格
+            double[] scaled = new double[n];
+            Deque<Integer> small = new ArrayDeque<>();
+            Deque<Integer> large = new ArrayDeque<>();
+            for (int i = 0; i < n; i++) {
+                scaled[i] = tasks[i].weight * n / total;
+                (scaled[i] < 1 ? small : large).push(i);
+            }
+            while (!small.isEmpty() && !large.isEmpty()) {
+                int less = small.pop();
+                int more = large.pop();
+                probability[less] = scaled[less];
+                alias[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1;
+                (scaled[more] < 1 ? small : large).push(more);
+            }
+            // 剩余的格子因浮点误差接近1
+            while (!large.isEmpty()) {
+                probability[large.pop()] = 1;
+            }
+            while (!small.isEmpty()) {
+                probability[small.pop()] = 1;
+            }
+        }
+
+        private TaskDefinition sample(ThreadLocalRandom random) {
+            int column = random.nextInt(tasks.length);
+            return tasks[random.nextDouble() < probability[column] ? column : alias[column]];
+        }
+    }
+
+    /**
+     * 不可变的任务表
+     */
+    private static final class TaskTable {
+
+        private static final TaskTable EMPTY = new TaskTable(List.of(), 0);
+
+        private final List<Level> levels;
+        private final int size;
+
+        private TaskTable(List<Level> levels, int size) {
+            this.levels = List.copyOf(levels);
+            this.size = size;
+        }
+    }
+
+    /**
+     * 任务的运行统计：已开始次数（配额和均衡分配共用）和每分钟频率限制的令牌桶
+     */
+    private static final class TaskUsage {
+
+        private static final long MINUTE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+        private long started;
+        // 因频率限制被跳过的选择次数
+        private long throttled;
+        private double tokens = -1;
+        private long refilledAt;
+
+        private synchronized long getStarted() {
+            return started;
+        }
+
+        private synchronized long getThrottled() {
+            return throttled;
+        }
+
+        private synchronized boolean tryStart(TaskDefinition task, long now) {
+            if (task.quota > 0 && started >= task.quota) {
+                return false;
+            }
+            if (task.ratePerMinute > 0) {
+                refill(task, now);
+                if (tokens < 1) {
+                    return false;
+                }
+                tokens -= 1;
+            }
+            started++;
+            return true;
+        }
+
+        /**
+         * 到任务可以再次开始的等待时间，配额用完返回Long.MAX_VALUE；每次选择对受限的任务只调用一次，同时计入限流次数
+         */
+        private synchronized long waitNanos(TaskDefinition task, long now) {
+            if (task.quota > 0 && started >= task.quota) {
+                return Long.MAX_VALUE;
+            }
+            if (task.ratePerMinute <= 0) {
+                return 0;
+            }
+            refill(task, now);
+            if (tokens >= 1) {
+                return 0;
+            }
+            throttled++;
+            return (long) ((1 - tokens) * MINUTE_NANOS / task.ratePerMinute);
+        }
+
+        /**
+         * 按经过的时间补充令牌，桶容量为每分钟的次数；首次使用时桶是满的
+         */
+        private void refill(TaskDefinition task, long now) {
+            if (tokens < 0) {
+                tokens = task.ratePerMinute;
+                refilledAt = now;
+            } else if (now > refilledAt) {
+                // 多个线程的时间戳可能交错，只按更晚的时间补充
+                tokens = Math.min(task.ratePerMinute, tokens + (double) (now - refilledAt) * task.ratePerMinute / MINUTE_NANOS);
+                refilledAt = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.randb.digitaldemo1.core;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.service.CapabilityRegistry;
+import com.randb.springaichatstarter.dto.ChatResponse;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class EngineMetricsTest {
+
+    private static final String ABILITY = "[{\"任务\": \"发布帖子\", \"步骤\": ["
+            + "{\"描述\": \"发布\", \"动作\": {\"url\": \"http://localhost:8080/api/digital/addpost\", \"method\": \"POST\"}}]}]";
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private EngineMetrics engineMetrics;
+
+    private EngineThroughput engineThroughput;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path abilityFile = directory.resolve("ability.txt");
+        Files.writeString(abilityFile, ABILITY);
+        DigitalLifeConfig config = new DigitalLifeConfig();
+        config.getCapability().setAbilityFile(abilityFile.toString());
+        config.getCapability().setWatch(false);
+        CapabilityRegistry capabilityRegistry = new CapabilityRegistry();
+        ReflectionTestUtils.setField(capabilityRegistry, "digitalLifeConfig", config);
+        capabilityRegistry.reload();
+
+        meterRegistry = new SimpleMeterRegistry();
+        engineThroughput = new EngineThroughput();
+        engineMetrics = new EngineMetrics();
+        ReflectionTestUtils.setField(engineMetrics, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(engineMetrics, "capabilityRegistry", capabilityRegistry);
+        ReflectionTestUtils.setField(engineMetrics, "engineThroughput", engineThroughput);
+        engineMetrics.init();
+    }
+
+    @Test
+    void tagsCapabilityEndpointsByPath() {
+        engineMetrics.recordHttpRequest("post", "http://127.0.0.1:9090/api/digital/addpost?draft=1", 200, 12);
+
+        assertThat(endpointTags()).containsExactly("/api/digital/addpost");
+    }
+
+    @Test
+    void tagsUnknownUrlsAsOther() {
+        for (int i = 0; i < 20; i++) {
+            engineMetrics.recordHttpRequest("GET", "http://localhost:8080/api/digital/post/" + i, 200, 5);
+        }
+        engineMetrics.recordHttpRequest("GET", "not a url", 0, 1);
+        engineMetrics.recordHttpRequest("GET", null, 0, 1);
+
+        assertThat(endpointTags()).containsExactly("other");
+    }
+
+    @Test
+    void timesSuccessfulAndFailedLlmCalls() {
+        ChatResponse response = new ChatResponse();
+
+        assertThat(engineMetrics.timeLlmCall(EngineMetrics.CALLER_PLANNER, () -> response)).isSameAs(response);
+        assertThatThrownBy(() -> engineMetrics.timeLlmCall(EngineMetrics.CALLER_JUDGE, () -> {
+            throw new IllegalStateException("timeout");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(llmCalls(EngineMetrics.CALLER_PLANNER, "success")).isEqualTo(1);
+        assertThat(llmCalls(EngineMetrics.CALLER_JUDGE, "error")).isEqualTo(1);
+        assertThat(engineThroughput.snapshot(0).getLlmCalls()).isEqualTo(2);
+    }
+
+    private long llmCalls(String caller, String outcome) {
+        return meterRegistry.get("digital_life.llm.latency").tag("caller", caller).tag("outcome", outcome).timer().count();
+    }
+
+    private List<String> endpointTags() {
+        return meterRegistry.find("digital_life.http.latency").meters().stream()
+                .map(Meter::getId)
+                .map(id -> id.getTag("endpoint"))
+                .distinct()
+                .toList();
+    }
+}
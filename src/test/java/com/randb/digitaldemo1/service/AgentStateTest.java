@@ -0,0 +1,41 @@
+package com.randb.digitaldemo1.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgentStateTest {
+
+    private static final String TOKEN = "eyJhbGciOiJIUzI1NiJ9.secret";
+
+    private static final String LOGIN_RESPONSE = "{\"code\":200,\"msg\":\"登录成功\",\"data\":{\"token\":\"" + TOKEN + "\"}}";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsLoginTokenOutOfStateJournal() throws IOException {
+        Path file = directory.resolve("state-journal.jsonl");
+        StateJournal journal = new StateJournal(file);
+        AgentState agentState = new AgentState("agent-1", null, null, 8, new StateAuditor(1, 0, journal), 0);
+
+        agentState.saveLoginResponse(LOGIN_RESPONSE);
+        // 状态中保留完整的登录响应，供下一步规划使用
+        assertThat(agentState.getLastResponse()).isEqualTo(LOGIN_RESPONSE);
+        agentState.saveLoginToken(TOKEN);
+        agentState.saveLastResponse("{\"code\":200,\"data\":[]}");
+        journal.close();
+
+        String content = Files.readString(file);
+        assertThat(content).doesNotContain(TOKEN);
+        assertThat(content).contains("\"key\":\"last_response\",\"value\":\"***\"");
+        assertThat(content).contains("\"key\":\"login_token\",\"value\":\"***\"");
+        // 之后的普通响应照常记录
+        assertThat(content).contains("{\\\"code\\\":200,\\\"data\\\":[]}");
+    }
+}
@@ -0,0 +1,207 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalStateStoreTest {
+
+    private static final int INITIAL_SIZE = 64 * 1024;
+
+    // 测试期间后台线程不刷盘、不压缩
+    private static final long SYNC_INTERVAL_MS = 60_000;
+
+    // 文件头8字节，记录头为长度(4)、CRC32(4)、类型(1)
+    private static final int FILE_HEADER = 8;
+    private static final int RECORD_HEADER = 9;
+
+    @TempDir
+    Path directory;
+
+    private JournalStateStore store;
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void reloadsLatestSnapshotAfterRestart() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        store.save(snapshot("agent-1", 1, "a"));
+        store.save(snapshot("agent-2", 1, "b"));
+        store.save(snapshot("agent-1", 2, "c"));
+
+        store = reopen(file);
+
+        assertThat(store.load("agent-1").getCurrentStep()).isEqualTo(2);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo("c");
+        assertThat(store.load("agent-2").getCurrentStep()).isEqualTo(1);
+        assertThat(store.load("agent-3")).isNull();
+    }
+
+    @Test
+    void replaysRemoveRecords() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        store.save(snapshot("agent-1", 1, "a"));
+        store.save(snapshot("agent-2", 1, "b"));
+        store.remove("agent-1");
+        store.save(snapshot("agent-3", 1, "c"));
+        store.remove("agent-3");
+        store.save(snapshot("agent-3", 2, "d"));
+
+        store = reopen(file);
+
+        assertThat(store.load("agent-1")).isNull();
+        assertThat(store.load("agent-2").getLastResponse()).isEqualTo("b");
+        assertThat(store.load("agent-3").getCurrentStep()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsRecordWithCrcMismatchAndKeepsAppending() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        store.save(snapshot("agent-1", 1, "a"));
+        store.save(snapshot("agent-2", 1, "b"));
+        store.close();
+        store = null;
+
+        // 最后一条记录的内容写了一半：翻转最后一个字节，长度仍然有效
+        int[] offsets = recordOffsets(file);
+        int end = offsets[offsets.length - 1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            channel.read(b, end - 1);
+            b.put(0, (byte) (b.get(0) ^ 0x5A));
+            channel.write(b.rewind(), end - 1);
+        }
+
+        store = open(file);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo("a");
+        assertThat(store.load("agent-2")).isNull();
+
+        // 丢弃的记录之后的空间已清零，新记录写在原来的位置，重启后可以读出
+        store.save(snapshot("agent-3", 1, "c"));
+        store = reopen(file);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo("a");
+        assertThat(store.load("agent-2")).isNull();
+        assertThat(store.load("agent-3").getLastResponse()).isEqualTo("c");
+    }
+
+    @Test
+    void dropsRecordWithOutOfRangeLength() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        store.save(snapshot("agent-1", 1, "a"));
+        store.close();
+        store = null;
+
+        // 日志结束处写入越界的长度和残留数据（只写了长度就崩溃的记录）
+        int[] offsets = recordOffsets(file);
+        int end = offsets[offsets.length - 1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer garbage = ByteBuffer.allocate(RECORD_HEADER + 16).putInt(Integer.MAX_VALUE - 64);
+            for (int i = 4; i < garbage.capacity(); i++) {
+                garbage.put(i, (byte) 0x7F);
+            }
+            channel.write(garbage.rewind(), end);
+        }
+
+        store = open(file);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo("a");
+        store.save(snapshot("agent-2", 1, "b"));
+
+        store = reopen(file);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo("a");
+        assertThat(store.load("agent-2").getLastResponse()).isEqualTo("b");
+    }
+
+    @Test
+    void compactsWhenRecordDoesNotFit() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        String payload = "x".repeat(4 * 1024);
+        // 单个数字生命反复保存，写满映射区时压缩为一条记录，文件不需要扩大
+        for (int step = 0; step < 100; step++) {
+            store.save(snapshot("agent-1", step, payload + step));
+        }
+        store.save(snapshot("agent-2", 1, "b"));
+
+        assertThat(Files.size(file)).isEqualTo(INITIAL_SIZE);
+        assertThat(recordOffsets(file)).hasSizeLessThan(100);
+
+        store = reopen(file);
+        assertThat(store.load("agent-1").getCurrentStep()).isEqualTo(99);
+        assertThat(store.load("agent-1").getLastResponse()).isEqualTo(payload + 99);
+        assertThat(store.load("agent-2").getLastResponse()).isEqualTo("b");
+    }
+
+    @Test
+    void growsMappingWhenLiveSnapshotsExceedIt() throws IOException {
+        Path file = directory.resolve("state.journal");
+        store = open(file);
+        String payload = "y".repeat(8 * 1024);
+        // 有效快照总大小超过初始映射区，压缩后重新映射更大的文件
+        for (int i = 0; i < 20; i++) {
+            store.save(snapshot("agent-" + i, i, payload + i));
+        }
+        assertThat(store.load("agent-19").getLastResponse()).isEqualTo(payload + 19);
+
+        store = reopen(file);
+        assertThat(Files.size(file)).isGreaterThan(INITIAL_SIZE);
+        for (int i = 0; i < 20; i++) {
+            assertThat(store.load("agent-" + i).getLastResponse()).isEqualTo(payload + i);
+        }
+        assertThat(Files.exists(directory.resolve("state.journal.compact"))).isFalse();
+    }
+
+    private JournalStateStore open(Path file) throws IOException {
+        return new JournalStateStore(file, INITIAL_SIZE, SYNC_INTERVAL_MS);
+    }
+
+    private JournalStateStore reopen(Path file) throws IOException {
+        store.close();
+        return open(file);
+    }
+
+    private static AgentSnapshot snapshot(String agentId, int step, String lastResponse) {
+        AgentSnapshot snapshot = new AgentSnapshot();
+        snapshot.setAgentId(agentId);
+        snapshot.setCurrentTask("发布一个帖子");
+        snapshot.setCurrentStep(step);
+        snapshot.setLastResponse(lastResponse);
+        return snapshot;
+    }
+
+    /**
+     * 按长度字段顺序遍历记录
+     * @return 每条记录的起始位置，最后一项为日志结束的位置
+     */
+    private static int[] recordOffsets(Path file) throws IOException {
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        List<Integer> offsets = new ArrayList<>();
+        int offset = FILE_HEADER;
+        while (offset + RECORD_HEADER <= content.capacity() && content.getInt(offset) != 0) {
+            offsets.add(offset);
+            offset += RECORD_HEADER + content.getInt(offset);
+        }
+        offsets.add(offset);
+        return offsets.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,19 @@
+package com.randb.digitaldemo1.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JsonExtractorTest {
+
+    @Test
+    void extractsFirstObjectFromSurroundingText() {
+        assertThat(JsonExtractor.extractFirstObject("结果如下：{\"a\": \"}\", \"b\": {\"c\": 1}} 以上 {\"d\": 2}"))
+                .isEqualTo("{\"a\": \"}\", \"b\": {\"c\": 1}}");
+        assertThat(JsonExtractor.extractFirstObject("前缀 {\"a\": {\"b\": 1} 后缀}"))
+                .isEqualTo("{\"a\": {\"b\": 1} 后缀}");
+        assertThat(JsonExtractor.extractFirstObject("{\"a\": {")).isNull();
+        assertThat(JsonExtractor.extractFirstObject("没有JSON")).isNull();
+        assertThat(JsonExtractor.extractFirstObject(null)).isNull();
+    }
+}
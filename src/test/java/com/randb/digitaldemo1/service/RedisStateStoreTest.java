@@ -0,0 +1,175 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.entity.AgentSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RedisStateStoreTest {
+
+    private static final String PREFIX = "test:";
+
+    private static final long LEASE_TTL_MS = 1500;
+
+    // 只由续约节奏（有效期的1/3）驱动后台维护，快照由测试显式写入
+    private static final long FLUSH_INTERVAL_MS = 60_000;
+
+    private StubRedisServer redis;
+
+    private final List<RedisStateStore> stores = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redis = new StubRedisServer(0);
+        redis.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stores.forEach(RedisStateStore::close);
+        redis.stop();
+    }
+
+    @Test
+    void onlyOneNodeAcquiresLease() {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+        assertThat(nodeB.acquire("agent-1")).isFalse();
+        // 当前节点重复获取自己持有的租约
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+
+        assertThat(nodeA.owns("agent-1")).isTrue();
+        assertThat(nodeB.owns("agent-1")).isFalse();
+    }
+
+    @Test
+    void renewsLeaseBeyondTtl() throws InterruptedException {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+
+        Thread.sleep(LEASE_TTL_MS * 2);
+
+        assertThat(nodeA.owns("agent-1")).isTrue();
+        assertThat(nodeB.acquire("agent-1")).isFalse();
+    }
+
+    @Test
+    void losesLeaseBeforeRedisExpiresItWhenUnreachable() throws InterruptedException {
+        RedisStateStore nodeA = store("node-a");
+        long acquiredAt = System.nanoTime();
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+
+        redis.stop();
+        while (nodeA.owns("agent-1")) {
+            Thread.sleep(10);
+        }
+
+        // 本地截止时间是有效期的2/3，Redis中的租约过期、其他节点能获取之前已经停止
+        long heldMs = (System.nanoTime() - acquiredAt) / 1_000_000;
+        assertThat(heldMs).isLessThan(LEASE_TTL_MS);
+        assertThat(heldMs).isGreaterThanOrEqualTo(LEASE_TTL_MS * 2 / 3 - 50);
+    }
+
+    @Test
+    void takeoverFencesStaleWriter() throws InterruptedException {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+        nodeA.save(snapshot("agent-1", 1));
+        nodeA.flush();
+        assertThat(nodeB.load("agent-1").getCurrentStep()).isEqualTo(1);
+
+        // 节点A的租约在Redis中过期，节点B接管并写入新的快照
+        redis.delete(PREFIX + "lease:agent-1");
+        assertThat(nodeB.acquire("agent-1")).isTrue();
+        nodeB.save(snapshot("agent-1", 5));
+        nodeB.flush();
+
+        // 节点A尚未发现租约失效时写入的快照不会覆盖节点B的快照
+        nodeA.save(snapshot("agent-1", 2));
+        nodeA.flush();
+        assertThat(nodeA.owns("agent-1")).isFalse();
+        assertThat(nodeB.load("agent-1").getCurrentStep()).isEqualTo(5);
+
+        // 之后节点A保存和释放都不再影响节点B
+        nodeA.save(snapshot("agent-1", 3));
+        nodeA.release("agent-1");
+        nodeA.flush();
+        Thread.sleep(LEASE_TTL_MS / 3 + 100);
+        assertThat(nodeB.owns("agent-1")).isTrue();
+        assertThat(nodeB.load("agent-1").getCurrentStep()).isEqualTo(5);
+    }
+
+    @Test
+    void renewalDetectsTakeover() throws InterruptedException {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+
+        redis.delete(PREFIX + "lease:agent-1");
+        assertThat(nodeB.acquire("agent-1")).isTrue();
+
+        long deadline = System.currentTimeMillis() + LEASE_TTL_MS;
+        while (nodeA.owns("agent-1") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(nodeA.owns("agent-1")).isFalse();
+        assertThat(nodeB.owns("agent-1")).isTrue();
+    }
+
+    @Test
+    void releaseWritesPendingSnapshotAndFreesLease() {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+        nodeA.save(snapshot("agent-1", 7));
+
+        nodeA.release("agent-1");
+
+        assertThat(nodeA.owns("agent-1")).isFalse();
+        assertThat(nodeB.acquire("agent-1")).isTrue();
+        assertThat(nodeB.load("agent-1").getCurrentStep()).isEqualTo(7);
+    }
+
+    @Test
+    void removeDeletesSnapshotOnlyForOwnerOrUnleased() {
+        RedisStateStore nodeA = store("node-a");
+        RedisStateStore nodeB = store("node-b");
+        assertThat(nodeA.acquire("agent-1")).isTrue();
+        nodeA.save(snapshot("agent-1", 1));
+        nodeA.flush();
+
+        nodeB.remove("agent-1");
+        nodeB.flush();
+        assertThat(redis.hashGet(PREFIX + "states", "agent-1")).isNotNull();
+
+        nodeA.remove("agent-1");
+        nodeA.flush();
+        assertThat(redis.hashGet(PREFIX + "states", "agent-1")).isNull();
+        assertThat(nodeA.owns("agent-1")).isTrue();
+    }
+
+    private RedisStateStore store(String nodeId) {
+        RespClient client = new RespClient("localhost", redis.getPort(), null, 0, 500);
+        RedisStateStore store = new RedisStateStore(client, PREFIX, nodeId, LEASE_TTL_MS, FLUSH_INTERVAL_MS);
+        stores.add(store);
+        return store;
+    }
+
+    private static AgentSnapshot snapshot(String agentId, int step) {
+        AgentSnapshot snapshot = new AgentSnapshot();
+        snapshot.setAgentId(agentId);
+        snapshot.setCurrentTask("发布一个帖子");
+        snapshot.setCurrentStep(step);
+        return snapshot;
+    }
+}
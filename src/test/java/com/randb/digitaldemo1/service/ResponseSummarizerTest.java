@@ -0,0 +1,57 @@
+package com.randb.digitaldemo1.service;
+
+import com.alibaba.fastjson.JSONArray;
+import com.alibaba.fastjson.JSONObject;
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import com.randb.digitaldemo1.entity.ResponseView;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseSummarizerTest {
+
+    @Test
+    void collapsesNestedValuesBeyondMaxDepth() {
+        DigitalLifeConfig.ResponseConfig config = config(1);
+
+        ResponseView summary = new ResponseSummarizer(config).summarize(ResponseView.of(largeResponse()));
+
+        assertThat(summary.getJson()).isNotNull();
+        assertThat(summary.getJson().getString("data")).isEqualTo("{...共2个字段}");
+        assertThat(summary.getRaw().length()).isLessThanOrEqualTo(config.getMaxChars());
+    }
+
+    @Test
+    void clampsNonPositiveMaxDepthToOneLevel() {
+        DigitalLifeConfig.ResponseConfig config = config(0);
+
+        ResponseView summary = new ResponseSummarizer(config).summarize(ResponseView.of(largeResponse()));
+
+        assertThat(summary.getJson()).isNotNull();
+        assertThat(summary.getJson().getString("code")).isEqualTo("200");
+        assertThat(summary.getJson().getString("data")).isEqualTo("{...共2个字段}");
+    }
+
+    @Test
+    void keepsSmallResponsesUnchanged() {
+        ResponseView response = ResponseView.of("{\"code\":200}");
+
+        assertThat(new ResponseSummarizer(config(0)).summarize(response)).isSameAs(response);
+    }
+
+    private static DigitalLifeConfig.ResponseConfig config(int maxDepth) {
+        DigitalLifeConfig.ResponseConfig config = new DigitalLifeConfig.ResponseConfig();
+        config.setMaxChars(200);
+        config.setMaxDepth(maxDepth);
+        return config;
+    }
+
+    private static String largeResponse() {
+        JSONArray items = new JSONArray();
+        for (int i = 0; i < 50; i++) {
+            items.add(new JSONObject().fluentPut("id", i).fluentPut("name", "item-" + i));
+        }
+        JSONObject data = new JSONObject(true).fluentPut("total", 50).fluentPut("items", items);
+        return new JSONObject(true).fluentPut("code", 200).fluentPut("data", data).toJSONString();
+    }
+}
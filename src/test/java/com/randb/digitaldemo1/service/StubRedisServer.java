@@ -0,0 +1,375 @@
+package com.randb.digitaldemo1.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地Redis替身（RedisStateStore单元测试、压测和多节点演示用）
+ * 只实现RedisStateStore用到的命令：PING、AUTH、SELECT、GET、SET（NX/XX/PX/EX）、DEL、PEXPIRE、
+ * HSET、HGET、HDEL、HGETALL、HLEN，EVAL只支持RedisStateStore的续约、释放、保存和删除脚本；所有命令在一把锁内执行，与Redis一样是串行的
+ * @author: randb
+ * @date: 2026-10-17
+ */
+@Slf4j
+public class StubRedisServer {
+
+    private final int port;
+
+    private final Map<String, String> strings = new HashMap<>();
+
+    // 键 -> 过期时间（毫秒时间戳）
+    private final Map<String, Long> expiries = new HashMap<>();
+
+    private final Map<String, Map<String, String>> hashes = new HashMap<>();
+
+    private ServerSocket serverSocket;
+
+    // 已建立的连接，停止时一起关闭（模拟Redis不可达）
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+
+    /**
+     * @param port 监听端口，0表示使用随机端口（启动后通过getPort获取）
+     */
+    public StubRedisServer(int port) {
+        this.port = port;
+    }
+
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(port));
+        running = true;
+        Thread acceptor = new Thread(this::acceptLoop, "stub-redis-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("本地Redis替身已启动: localhost:{}", getPort());
+    }
+
+    public int getPort() {
+        return serverSocket != null ? serverSocket.getLocalPort() : port;
+    }
+
+    public void stop() {
+        running = false;
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException ignored) {
+            // 已关闭
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // 已关闭
+            }
+        }
+    }
+
+    /**
+     * 获取哈希字段的值
+     */
+    public synchronized String hashGet(String key, String field) {
+        Map<String, String> hash = hashes.get(key);
+        return hash != null ? hash.get(field) : null;
+    }
+
+    /**
+     * 删除键（模拟租约在Redis中过期）
+     */
+    public synchronized void delete(String key) {
+        strings.remove(key);
+        expiries.remove(key);
+    }
+
+    /**
+     * 获取哈希的字段数（压测报告中统计保存的快照数）
+     */
+    public synchronized int hashSize(String key) {
+        Map<String, String> hash = hashes.get(key);
+        return hash != null ? hash.size() : 0;
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.add(socket);
+                Thread handler = new Thread(() -> serve(socket), "stub-redis-conn");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                if (running) {
+                    log.warn("本地Redis替身接受连接失败: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (running) {
+                List<String> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                writeReply(out, execute(command));
+                // 客户端pipeline时批量回复，没有待读的命令时再刷出
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            log.debug("本地Redis替身连接关闭: {}", e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private synchronized Object execute(List<String> command) {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        expiries.entrySet().removeIf(entry -> {
+            if (entry.getValue() <= now) {
+                strings.remove(entry.getKey());
+                return true;
+            }
+            return false;
+        });
+
+        switch (name) {
+            case "PING":
+                return "PONG";
+            case "AUTH":
+            case "SELECT":
+                return "OK";
+            case "GET":
+                return strings.get(command.get(1));
+            case "SET":
+                return set(command, now);
+            case "DEL": {
+                long removed = 0;
+                for (String key : command.subList(1, command.size())) {
+                    expiries.remove(key);
+                    if (strings.remove(key) != null | hashes.remove(key) != null) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "PEXPIRE":
+                return pexpire(command.get(1), Long.parseLong(command.get(2)), now);
+            case "HSET": {
+                Map<String, String> hash = hashes.computeIfAbsent(command.get(1), key -> new HashMap<>());
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    if (hash.put(command.get(i), command.get(i + 1)) == null) {
+                        added++;
+                    }
+                }
+                return added;
+            }
+            case "HGET": {
+                Map<String, String> hash = hashes.get(command.get(1));
+                return hash != null ? hash.get(command.get(2)) : null;
+            }
+            case "HDEL": {
+                Map<String, String> hash = hashes.get(command.get(1));
+                long removed = 0;
+                for (String field : command.subList(2, command.size())) {
+                    if (hash != null && hash.remove(field) != null) {
+                        removed++;
+                    }
+                }
+                return removed;
+            }
+            case "HGETALL": {
+                List<Object> items = new ArrayList<>();
+                hashes.getOrDefault(command.get(1), Map.of()).forEach((field, value) -> {
+                    items.add(field);
+                    items.add(value);
+                });
+                return items;
+            }
+            case "HLEN":
+                return (long) hashes.getOrDefault(command.get(1), Map.of()).size();
+            case "EVAL":
+                return eval(command, now);
+            default:
+                return new Error("ERR unknown command '" + command.get(0) + "'");
+        }
+    }
+
+    private Object set(List<String> command, long now) {
+        String key = command.get(1);
+        boolean nx = false;
+        boolean xx = false;
+        long ttlMs = -1;
+        for (int i = 3; i < command.size(); i++) {
+            String option = command.get(i).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "PX" -> ttlMs = Long.parseLong(command.get(++i));
+                case "EX" -> ttlMs = Long.parseLong(command.get(++i)) * 1000;
+                default -> {
+                    return new Error("ERR syntax error");
+                }
+            }
+        }
+        boolean exists = strings.containsKey(key);
+        if ((nx && exists) || (xx && !exists)) {
+            return null;
+        }
+        strings.put(key, command.get(2));
+        if (ttlMs > 0) {
+            expiries.put(key, now + ttlMs);
+        } else {
+            expiries.remove(key);
+        }
+        return "OK";
+    }
+
+    private long pexpire(String key, long ttlMs, long now) {
+        if (!strings.containsKey(key)) {
+            return 0;
+        }
+        expiries.put(key, now + ttlMs);
+        return 1;
+    }
+
+    /**
+     * 只支持RedisStateStore的脚本：EVAL script numkeys lease-key [states-key] nodeId [参数...]
+     */
+    private Object eval(List<String> command, long now) {
+        String script = command.get(1);
+        int numKeys = Integer.parseInt(command.get(2));
+        List<String> keys = command.subList(3, 3 + numKeys);
+        List<String> args = command.subList(3 + numKeys, command.size());
+        String leaseKey = keys.get(0);
+        String owner = strings.get(leaseKey);
+        boolean ownedByCaller = args.get(0).equals(owner);
+        if (RedisStateStore.RENEW_SCRIPT.equals(script)) {
+            return ownedByCaller ? pexpire(leaseKey, Long.parseLong(args.get(1)), now) : 0L;
+        }
+        if (RedisStateStore.RELEASE_SCRIPT.equals(script)) {
+            if (!ownedByCaller) {
+                return 0L;
+            }
+            strings.remove(leaseKey);
+            expiries.remove(leaseKey);
+            return 1L;
+        }
+        if (RedisStateStore.SAVE_SCRIPT.equals(script)) {
+            if (!ownedByCaller) {
+                return -1L;
+            }
+            Map<String, String> hash = hashes.computeIfAbsent(keys.get(1), key -> new HashMap<>());
+            return hash.put(args.get(1), args.get(2)) == null ? 1L : 0L;
+        }
+        if (RedisStateStore.REMOVE_SCRIPT.equals(script)) {
+            if (owner != null && !ownedByCaller) {
+                return -1L;
+            }
+            Map<String, String> hash = hashes.get(keys.get(1));
+            return hash != null && hash.remove(args.get(1)) != null ? 1L : 0L;
+        }
+        return new Error("ERR script not supported by stub");
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("只支持数组形式的命令");
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("命令参数格式错误");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            if (bytes.length < length) {
+                throw new EOFException();
+            }
+            in.read();
+            in.read();
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(16);
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            line.write(b);
+        }
+        in.read();
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void writeReply(OutputStream out, Object reply) throws IOException {
+        if (reply == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof Error) {
+            out.write(('-' + ((Error) reply).message + "\r\n").getBytes(StandardCharsets.UTF_8));
+        } else if (reply instanceof Long) {
+            out.write((":" + reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else if (reply instanceof List) {
+            List<?> items = (List<?>) reply;
+            out.write(("*" + items.size() + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (Object item : items) {
+                writeReply(out, item);
+            }
+        } else if ("OK".equals(reply) || "PONG".equals(reply)) {
+            out.write(("+" + reply + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        } else {
+            byte[] bytes = reply.toString().getBytes(StandardCharsets.UTF_8);
+            out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(bytes);
+            out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /**
+     * 错误回复
+     */
+    private static final class Error {
+        private final String message;
+
+        private Error(String message) {
+            this.message = message;
+        }
+    }
+}
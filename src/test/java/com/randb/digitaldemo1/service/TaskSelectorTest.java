@@ -0,0 +1,132 @@
+package com.randb.digitaldemo1.service;
+
+import com.randb.digitaldemo1.config.DigitalLifeConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TaskSelectorTest {
+
+    @TempDir
+    Path directory;
+
+    private DigitalLifeConfig config;
+
+    @Test
+    void samplesTasksInProportionToWeights() throws IOException {
+        TaskSelector selector = selector("发布帖子{\"权重\": 1}；评论帖子{\"权重\": 3}；审核帖子{\"权重\": 6}；");
+
+        Map<String, Integer> counts = new HashMap<>();
+        int total = 10_000;
+        for (int i = 0; i < total; i++) {
+            counts.merge(selector.next().getTask(), 1, Integer::sum);
+        }
+
+        assertThat(counts.get("发布帖子") / (double) total).isCloseTo(0.1, within(0.02));
+        assertThat(counts.get("评论帖子") / (double) total).isCloseTo(0.3, within(0.02));
+        assertThat(counts.get("审核帖子") / (double) total).isCloseTo(0.6, within(0.02));
+    }
+
+    @Test
+    void skipsZeroWeightTasks() throws IOException {
+        TaskSelector selector = selector("发布帖子{\"权重\": 0}；评论帖子；");
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(selector.next().getTask()).isEqualTo("评论帖子");
+        }
+    }
+
+    @Test
+    void usesLowerPriorityOnlyWhenHigherIsExhausted() throws IOException {
+        TaskSelector selector = selector("紧急任务{\"优先级\": 2, \"配额\": 3}；日常任务{\"优先级\": 1}；");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(selector.next().getTask()).isEqualTo("紧急任务");
+        }
+        for (int i = 0; i < 10; i++) {
+            assertThat(selector.next().getTask()).isEqualTo("日常任务");
+        }
+    }
+
+    @Test
+    void usesLowerPriorityWhileHigherIsThrottled() throws IOException {
+        TaskSelector selector = selector("紧急任务{\"优先级\": 2, \"每分钟\": 2}；日常任务{\"优先级\": 1}；");
+
+        assertThat(selector.next().getTask()).isEqualTo("紧急任务");
+        assertThat(selector.next().getTask()).isEqualTo("紧急任务");
+        assertThat(selector.next().getTask()).isEqualTo("日常任务");
+        assertThat(selector.getStats().get("紧急任务").get("throttled")).isEqualTo(1L);
+    }
+
+    @Test
+    void returnsNoneWhenQuotaIsExhausted() throws IOException {
+        TaskSelector selector = selector("发布帖子{\"配额\": 2}；评论帖子{\"配额\": 1}；");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(selector.next().getTask()).isNotNull();
+        }
+        TaskSelector.Selection selection = selector.next();
+
+        assertThat(selection.getTask()).isNull();
+        assertThat(selection.getWaitMs()).isZero();
+        assertThat(selector.getStats().get("发布帖子").get("started")).isEqualTo(2L);
+        assertThat(selector.getStats().get("评论帖子").get("started")).isEqualTo(1L);
+    }
+
+    @Test
+    void returnsWaitingWhenAllTasksAreThrottled() throws IOException {
+        TaskSelector selector = selector("发布帖子{\"每分钟\": 1}；评论帖子{\"每分钟\": 2}；");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(selector.next().getTask()).isNotNull();
+        }
+        TaskSelector.Selection selection = selector.next();
+
+        // 评论帖子每30秒补充一个令牌，等待时间不超过配置的上限（默认5秒）
+        assertThat(selection.getTask()).isNull();
+        assertThat(selection.getWaitMs()).isBetween(1L, 5_000L);
+    }
+
+    @Test
+    void capsWaitingTimeAtMaxWait() throws IOException {
+        TaskSelector selector = selector("发布帖子{\"每分钟\": 1}；");
+        config.getTask().setMaxWaitMs(500);
+
+        assertThat(selector.next().getTask()).isEqualTo("发布帖子");
+        TaskSelector.Selection selection = selector.next();
+
+        assertThat(selection.getTask()).isNull();
+        assertThat(selection.getWaitMs()).isEqualTo(500);
+    }
+
+    @Test
+    void keepsPreviousTableWhenReloadFails() throws IOException {
+        TaskSelector selector = selector("发布帖子；");
+        Files.writeString(directory.resolve("tasks.txt"), "发布帖子{\"权重\": }");
+
+        assertThat(selector.reload()).isFalse();
+        assertThat(selector.next().getTask()).isEqualTo("发布帖子");
+    }
+
+    private TaskSelector selector(String tasks) throws IOException {
+        Path tasksFile = directory.resolve("tasks.txt");
+        Files.writeString(tasksFile, tasks);
+        config = new DigitalLifeConfig();
+        config.getTask().setTasksFile(tasksFile.toString());
+        config.getTask().setWatch(false);
+
+        TaskSelector selector = new TaskSelector();
+        ReflectionTestUtils.setField(selector, "digitalLifeConfig", config);
+        selector.init();
+        return selector;
+    }
+}